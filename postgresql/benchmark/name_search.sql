@@ -0,0 +1,104 @@
+-- ============================================
+-- 名称包含搜索：顺序扫描 vs pg_trgm GIN 索引
+-- 用法：psql -d daowei -f postgresql/benchmark/name_search.sql
+--      可用 -v rows=200000 -v customers=10000 调整数据量（默认200万条日志、10万个客户）
+-- 在事务中插入测试数据，结束时回滚，不影响现有数据
+-- 注意：数据库需使用 zh_CN.UTF-8 / en_US.UTF-8 等区域，C 区域下 pg_trgm 不索引中文，
+--      中文关键字的查询会退化为全索引扫描（此时应使用 search.substring-mode=MEMORY）
+-- ============================================
+
+\if :{?rows}
+\else
+\set rows 2000000
+\endif
+\if :{?customers}
+\else
+\set customers 100000
+\endif
+
+BEGIN;
+
+-- 测试数据：姓 + 名组合出约2万个中文姓名、拼音账号，客户名称由 城市 + 字号 + 行业 + 后缀 组合
+CREATE TEMP TABLE bench_names ON COMMIT DROP AS
+SELECT s.n || g.n AS name, row_number() OVER () AS seq
+FROM unnest(ARRAY['王', '李', '张', '刘', '陈', '杨', '黄', '赵', '吴', '周', '徐', '孙', '马', '朱', '胡',
+                  '郭', '何', '高', '林', '罗']) AS s(n)
+CROSS JOIN (
+    SELECT a.c || b.c AS n
+    FROM unnest(ARRAY['伟', '芳', '娜', '敏', '静', '丽', '强', '磊', '军', '洋', '勇', '艳', '杰', '涛', '明',
+                      '超', '秀', '霞', '平', '刚', '桂', '英', '华', '建', '国', '文', '玉', '兰', '红', '志',
+                      '海', '晓']) AS a(c)
+    CROSS JOIN unnest(ARRAY['伟', '芳', '娜', '敏', '静', '丽', '强', '磊', '军', '洋', '勇', '艳', '杰', '涛', '明',
+                            '超', '秀', '霞', '平', '刚', '桂', '英', '华', '建', '国', '文', '玉', '兰', '红', '志',
+                            '海', '晓']) AS b(c)
+) g;
+
+INSERT INTO operation_log (user_id, operator_name, role, module, action, description, status, duration, create_time)
+SELECT g % 20000,
+       CASE WHEN g % 5 = 0 THEN 'user_' || (g % 20000) ELSE n.name END,
+       'admin', 'module-' || (g % 8), (ARRAY['CREATE', 'UPDATE', 'DELETE', 'LOGIN'])[g % 4 + 1],
+       '描述 ' || g, 1, g % 300,
+       NOW() - (g % 2592000) * INTERVAL '1 second'
+FROM generate_series(1, :rows) AS g
+JOIN bench_names n ON n.seq = g % 20480 + 1;
+
+INSERT INTO customer (company_name)
+SELECT (ARRAY['深圳', '广州', '东莞', '佛山', '杭州', '苏州', '宁波', '厦门'])[g % 8 + 1]
+       || n.name
+       || (ARRAY['服装', '纺织', '贸易', '制衣', '针织', '面料'])[g % 6 + 1]
+       || (ARRAY['有限公司', '股份有限公司', '商行', '实业有限公司'])[g % 4 + 1]
+       || g
+FROM generate_series(1, :customers) AS g
+JOIN bench_names n ON n.seq = g % 20480 + 1
+ON CONFLICT DO NOTHING;
+
+ANALYZE operation_log;
+ANALYZE customer;
+
+-- 1. 不使用三元组索引：等同于没有 pg_trgm 时的顺序扫描
+SET LOCAL enable_bitmapscan = off;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, operator_name, module, action, create_time
+FROM operation_log
+WHERE create_time >= NOW() - INTERVAL '30 days' AND operator_name LIKE '%晓明%'
+ORDER BY create_time DESC, id DESC
+LIMIT 21;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, operator_name FROM operation_log WHERE operator_name LIKE '%user_1234%';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM customer WHERE company_name LIKE '%张晓明纺织%' ORDER BY company_name LIMIT 50;
+
+-- 2. 使用 idx_operation_log_operator_name_trgm / idx_customer_company_name_trgm（Bitmap Index Scan）
+SET LOCAL enable_bitmapscan = on;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, operator_name, module, action, create_time
+FROM operation_log
+WHERE create_time >= NOW() - INTERVAL '30 days' AND operator_name LIKE '%晓明%'
+ORDER BY create_time DESC, id DESC
+LIMIT 21;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, operator_name FROM operation_log WHERE operator_name LIKE '%user_1234%';
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM customer WHERE company_name LIKE '%张晓明纺织%' ORDER BY company_name LIMIT 50;
+
+-- 3. MEMORY 模式：应用先在内存索引中匹配出姓名 / 客户ID，SQL 只做等值或主键查询
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT id, operator_name, module, action, create_time
+FROM operation_log
+WHERE create_time >= NOW() - INTERVAL '30 days'
+  AND operator_name = ANY(ARRAY(SELECT name FROM bench_names WHERE name LIKE '%晓明%'))
+ORDER BY create_time DESC, id DESC
+LIMIT 21;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM customer
+WHERE id = ANY(ARRAY(SELECT id FROM customer WHERE company_name LIKE '%张晓明纺织%' LIMIT 1000))
+ORDER BY company_name LIMIT 50;
+
+ROLLBACK;
@@ -0,0 +1,72 @@
+-- ============================================
+-- 操作日志列表：SELECT * vs 摘要列 的分页耗时和返回数据量对比
+-- 用法：psql -d daowei -f postgresql/benchmark/operation_log_list.sql
+--      可用 -v rows=500000 -v payload=2000 调整数据量（默认500万行、每个大字段约4KB）
+-- 在事务中插入测试数据，结束时回滚，不影响现有数据
+-- 注意：EXPLAIN ANALYZE 不会读取（detoast）输出列，看不出大字段的开销，
+--      所以第2、3部分用 \timing 实际执行查询并把结果丢到 /dev/null
+-- ============================================
+
+\if :{?rows}
+\else
+\set rows 5000000
+\endif
+\if :{?payload}
+\else
+\set payload 4000
+\endif
+
+BEGIN;
+
+-- 近30天的日志；大字段由随机 md5 拼接，接近真实 JSON 的压缩率
+INSERT INTO operation_log (
+    user_id, operator_name, role, module, action, description,
+    method, request_url, request_method, request_params, old_data, new_data, response_data,
+    ip_address, user_agent, status, error_msg, duration, create_time
+)
+SELECT g % 500, '操作员' || (g % 500), 'admin', 'module-' || (g % 8), (ARRAY['CREATE', 'UPDATE', 'DELETE', 'LOGIN'])[g % 4 + 1],
+       '描述 ' || g, 'com.example.demo.controller.OrderController.update', '/api/orders/' || g, 'PUT',
+       p.txt, p.txt, p.txt, p.txt,
+       '10.0.' || (g % 256) || '.' || (g % 200), 'Mozilla/5.0 (benchmark)', 1, NULL, g % 300,
+       NOW() - (g % 2592000) * INTERVAL '1 second'
+FROM generate_series(1, :rows) AS g
+CROSS JOIN LATERAL (
+    SELECT left(repeat(md5(g::text) || md5((g * 7)::text) || md5(random()::text), :payload / 96 + 1), :payload) AS txt
+) p;
+
+ANALYZE operation_log;
+
+-- 1. 一页20条的返回数据量（按JSON序列化后的字节数）
+SELECT 'SELECT *' AS query, SUM(octet_length(row_to_json(t)::text)) AS page_bytes
+FROM (SELECT * FROM operation_log ORDER BY create_time DESC LIMIT 20) t
+UNION ALL
+SELECT '摘要列', SUM(octet_length(row_to_json(t)::text))
+FROM (SELECT id, user_id, operator_name, role, module, action, description,
+             request_method, request_url, ip_address, status, duration, create_time
+      FROM operation_log ORDER BY create_time DESC LIMIT 20) t;
+
+\timing on
+\o /dev/null
+
+-- 2. 改动前 /api/logs?pageNum=500：SELECT * 需要读取并解压4个大字段
+SELECT * FROM operation_log ORDER BY create_time DESC LIMIT 20 OFFSET 9980;
+SELECT * FROM operation_log WHERE create_time >= NOW() - INTERVAL '30 days' AND module = 'module-3'
+ORDER BY create_time DESC LIMIT 20 OFFSET 980;
+
+-- 3. 改动后 /api/logs、/api/logs/search：只读摘要列，大字段留在 TOAST 表里不被访问
+SELECT id, user_id, operator_name, role, module, action, description,
+       request_method, request_url, ip_address, status, duration, create_time
+FROM operation_log ORDER BY create_time DESC LIMIT 20 OFFSET 9980;
+SELECT id, user_id, operator_name, role, module, action, description,
+       request_method, request_url, ip_address, status, duration, create_time
+FROM operation_log WHERE create_time >= NOW() - INTERVAL '30 days' AND module = 'module-3'
+ORDER BY create_time DESC LIMIT 20 OFFSET 980;
+
+-- 4. /api/logs/{id}：按需读取单条日志的全部字段
+SELECT id AS detail_id FROM operation_log ORDER BY create_time DESC LIMIT 1 OFFSET 9980 \gset
+SELECT * FROM operation_log WHERE id = :detail_id;
+
+\o
+\timing off
+
+ROLLBACK;
@@ -0,0 +1,50 @@
+-- ============================================
+-- 样品列表分页性能对比：OFFSET 分页 vs 游标分页
+-- 用法：psql -d daowei -f postgresql/benchmark/sample_paging.sql
+-- 在事务中插入测试数据，结束时回滚，不影响现有数据
+-- ============================================
+
+BEGIN;
+
+INSERT INTO sample (alias, model, color_code, stock, unit_price)
+SELECT 'alias-' || g, 'MODEL-' || (g % 5000), 'C' || (g % 300), g % 100, 1.0
+FROM generate_series(1, 200000) AS g;
+
+ANALYZE sample;
+
+-- 1. 现有 /api/samples/page?pageNum=5000&pageSize=20：PageHelper 先 COUNT(*)，再 OFFSET 99980
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM sample s LEFT JOIN customer c ON s.customer_id = c.id;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.*, c.company_name
+FROM sample s
+LEFT JOIN customer c ON s.customer_id = c.id
+ORDER BY s.id DESC
+LIMIT 20 OFFSET 99980;
+
+-- 2. /api/samples/cursor?after=<同一位置的ID>&limit=20：索引定位后只读21行
+SELECT id AS cursor_id FROM sample ORDER BY id DESC LIMIT 1 OFFSET 99979 \gset
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.*, c.company_name
+FROM sample s
+LEFT JOIN customer c ON s.customer_id = c.id
+WHERE s.id < :cursor_id
+ORDER BY s.id DESC
+LIMIT 21;
+
+-- 3. 前缀过滤走 varchar_pattern_ops 索引
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT s.*, c.company_name
+FROM sample s
+LEFT JOIN customer c ON s.customer_id = c.id
+WHERE s.model LIKE 'MODEL-42%'
+ORDER BY s.id DESC
+LIMIT 21;
+
+-- 4. 近似总数只读 pg_class 一行
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT reltuples::bigint FROM pg_class WHERE oid = 'sample'::regclass;
+
+ROLLBACK;
@@ -16,6 +16,10 @@
  - operation_log: 操作日志表
 */
 
+-- 三元组索引扩展：客户名称、操作人姓名的包含搜索（LIKE '%关键字%'）使用 GIN 索引
+-- 需要 contrib 包；无法安装扩展时把 search.substring-mode 设为 MEMORY，改用应用内的 n-gram 索引
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- 创建性别枚举类型
 DO $$ 
 BEGIN
@@ -77,6 +81,10 @@ CREATE TABLE customer (
 );
 
 CREATE UNIQUE INDEX idx_company_name ON customer(company_name);
+-- 公司名称包含搜索（/api/customers/search）；已有数据库直接执行即可
+-- 注意：pg_trgm 只对数据库 LC_CTYPE 认为是字母数字的字符建三元组，C / POSIX 区域下中文不会被索引，
+--      需使用 zh_CN.UTF-8、en_US.UTF-8 等区域创建数据库，否则应使用 MEMORY 模式
+CREATE INDEX idx_customer_company_name_trgm ON customer USING gin (company_name gin_trgm_ops);
 COMMENT ON TABLE customer IS '客户信息表';
 
 -- 默认客户数据
@@ -146,6 +154,7 @@ CREATE TABLE sample (
   model VARCHAR(50) NOT NULL,
   color_code VARCHAR(20) DEFAULT NULL,
   image VARCHAR(255) DEFAULT NULL,
+  image_status VARCHAR(20) NOT NULL DEFAULT 'NONE',
   stock INT NOT NULL DEFAULT 0,
   unit_price DECIMAL(10,3) NOT NULL DEFAULT 0.000,
   create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -153,11 +162,18 @@ CREATE TABLE sample (
   CONSTRAINT fk_sample_customer FOREIGN KEY (customer_id) REFERENCES customer(id) ON DELETE SET NULL
 );
 
-CREATE INDEX idx_sample_customer_id ON sample(customer_id);
-CREATE INDEX idx_sample_alias ON sample(alias);
-CREATE INDEX idx_sample_model ON sample(model);
-CREATE INDEX idx_sample_color_code ON sample(color_code);
+-- 客户过滤 + 按ID游标分页；文本列使用 varchar_pattern_ops 以支持 LIKE '前缀%'（与排序规则无关）
+CREATE INDEX idx_sample_customer_id ON sample(customer_id, id);
+CREATE INDEX idx_sample_alias ON sample(alias varchar_pattern_ops);
+CREATE INDEX idx_sample_model ON sample(model varchar_pattern_ops);
+CREATE INDEX idx_sample_color_code ON sample(color_code varchar_pattern_ops);
 COMMENT ON TABLE sample IS '样品信息表';
+COMMENT ON COLUMN sample.image_status IS '图片处理状态：NONE/PROCESSING/READY/FAILED';
+-- 已有数据库升级：
+-- ALTER TABLE sample ADD COLUMN IF NOT EXISTS image_status VARCHAR(20) NOT NULL DEFAULT 'NONE';
+-- UPDATE sample SET image_status = 'READY' WHERE image IS NOT NULL;
+-- DROP INDEX IF EXISTS idx_sample_customer_id, idx_sample_alias, idx_sample_model, idx_sample_color_code;
+-- 然后执行上面的 CREATE INDEX 语句
 
 -- ----------------------------
 -- 8. 订单信息表
@@ -181,15 +197,18 @@ CREATE UNIQUE INDEX idx_order_number ON orders(order_number);
 CREATE INDEX idx_orders_sample_id ON orders(sample_id);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_create_date ON orders(create_date DESC);
-CREATE INDEX idx_orders_status_create_date ON orders(status, create_date DESC);
+CREATE INDEX idx_orders_status_create_date ON orders(status, create_date DESC, id DESC);
+-- 已有数据库升级：DROP INDEX IF EXISTS idx_orders_status_create_date; 然后执行上面的 CREATE INDEX（按分类游标分页使用）
 COMMENT ON TABLE orders IS '订单信息表';
 
 -- ----------------------------
 -- 9. 操作日志表
 -- ----------------------------
 DROP TABLE IF EXISTS operation_log CASCADE;
+-- 按 create_time 每月一个范围分区（operation_log_pYYYYMM），由应用定时创建后续月份的分区；
+-- 过期日志按整个分区摘除后删除，不再 DELETE 大量行
 CREATE TABLE operation_log (
-  id BIGSERIAL PRIMARY KEY,
+  id BIGSERIAL,
   user_id BIGINT DEFAULT NULL,
   operator_name VARCHAR(50) DEFAULT NULL,
   role VARCHAR(20) DEFAULT NULL,
@@ -208,15 +227,46 @@ CREATE TABLE operation_log (
   status SMALLINT NOT NULL DEFAULT 1,
   error_msg TEXT,
   duration BIGINT DEFAULT NULL,
-  create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
-);
+  create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (id, create_time)
+) PARTITION BY RANGE (create_time);
+
+-- 兜底分区：接收没有对应月份分区的数据，正常情况下应为空
+-- PostgreSQL 14+ 希望清理过期分区时不阻塞日志表（operation-log.partition.detach-concurrently=true），
+-- 需确认兜底分区为空后删除它：DROP TABLE operation_log_default;（有兜底分区时不能 DETACH ... CONCURRENTLY）
+CREATE TABLE operation_log_default PARTITION OF operation_log DEFAULT;
+
+-- 初始化上月到之后3个月的分区（之后由应用按 operation-log.partition.months-ahead 自动创建）
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    FOR i IN -1..3 LOOP
+        month_start := (date_trunc('month', CURRENT_DATE) + make_interval(months => i))::DATE;
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF operation_log FOR VALUES FROM (%L) TO (%L)',
+                       'operation_log_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, (month_start + INTERVAL '1 month')::DATE);
+    END LOOP;
+END $$;
 
-CREATE INDEX idx_operation_log_user_id ON operation_log(user_id);
-CREATE INDEX idx_operation_log_operator_name ON operation_log(operator_name);
-CREATE INDEX idx_operation_log_module ON operation_log(module);
-CREATE INDEX idx_operation_log_action ON operation_log(action);
-CREATE INDEX idx_operation_log_create_time ON operation_log(create_time);
+-- 在父表上创建的索引会自动建到每个分区上
+-- 与查询形态对应：按 (create_time, id) 倒序翻页（游标分页的行比较也使用这些索引），
+-- 可选 module / action 等值过滤；operator_name 是包含匹配，B-tree 索引用不上，使用三元组 GIN 索引
+CREATE INDEX idx_operation_log_create_time ON operation_log(create_time DESC, id DESC);
+CREATE INDEX idx_operation_log_module_time ON operation_log(module, create_time DESC, id DESC);
+CREATE INDEX idx_operation_log_action_time ON operation_log(action, create_time DESC, id DESC);
+CREATE INDEX idx_operation_log_operator_name_trgm ON operation_log USING gin (operator_name gin_trgm_ops);
+-- 已有数据库升级：
+-- DROP INDEX IF EXISTS idx_operation_log_user_id, idx_operation_log_operator_name, idx_operation_log_module,
+--     idx_operation_log_action, idx_operation_log_create_time;
+-- 然后执行上面的 CREATE INDEX 语句
 COMMENT ON TABLE operation_log IS '操作日志表';
+-- 已有数据库升级（未分区的旧表）：
+-- ALTER TABLE operation_log RENAME TO operation_log_legacy;
+-- 执行上面的 CREATE TABLE / 分区 / CREATE INDEX 语句（需先删除或改名旧表上的同名索引）
+-- INSERT INTO operation_log SELECT * FROM operation_log_legacy WHERE create_time >= date_trunc('month', CURRENT_DATE) - INTERVAL '1 month';
+-- SELECT setval(pg_get_serial_sequence('operation_log', 'id'), (SELECT COALESCE(MAX(id), 1) FROM operation_log_legacy));
+-- 确认无误后 DROP TABLE operation_log_legacy;
 
 -- ----------------------------
 -- 创建更新时间触发器函数
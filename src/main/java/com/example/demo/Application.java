@@ -3,6 +3,7 @@ package com.example.demo;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * SpringBoot应用程序的入口类
@@ -11,6 +12,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
  */
 @SpringBootApplication
 @EnableAsync  // 启用异步支持，用于日志异步写入
+@EnableScheduling  // 启用定时任务，用于限流计数器清理等后台维护
 public class Application {
     /**
      * 应用程序的主方法，是程序的入口点
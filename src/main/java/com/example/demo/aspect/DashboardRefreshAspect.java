@@ -0,0 +1,55 @@
+package com.example.demo.aspect;
+
+import com.example.demo.service.DashboardService;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 仪表盘快照刷新切面
+ * 订单、样品、客户、员工的写操作成功返回后请求刷新仪表盘快照（由仪表盘服务防抖合并）
+ * 处于事务中时推迟到事务提交后再请求，避免刷新读到提交前的旧数据；事务回滚则不刷新
+ */
+@Aspect
+@Component
+public class DashboardRefreshAspect {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    /**
+     * 仪表盘统计所依赖数据的服务
+     */
+    @Pointcut("execution(* com.example.demo.service.OrderService.*(..))"
+            + " || execution(* com.example.demo.service.SampleService.*(..))"
+            + " || execution(* com.example.demo.service.CustomerService.*(..))"
+            + " || execution(* com.example.demo.service.EmployeeService.*(..))")
+    public void dashboardSource() {
+    }
+
+    /**
+     * 写操作方法
+     */
+    @Pointcut("execution(* save*(..)) || execution(* create*(..)) || execution(* add*(..))"
+            + " || execution(* update*(..)) || execution(* delete*(..)) || execution(* fix*(..))")
+    public void mutation() {
+    }
+
+    @AfterReturning("dashboardSource() && mutation()")
+    public void afterMutation() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dashboardService.requestRefresh();
+                }
+            });
+        } else {
+            dashboardService.requestRefresh();
+        }
+    }
+}
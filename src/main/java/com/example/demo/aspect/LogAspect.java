@@ -4,28 +4,53 @@ import com.example.demo.annotation.Log;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.mapper.*;
 import com.example.demo.service.OperationLogService;
+import com.example.demo.util.JsonTruncator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * 操作日志AOP切面
  * 自动记录被@Log注解标记的方法的操作日志
  * 支持记录修改前后的数据对比
+ * 请求参数和新数据在目标方法执行前于请求线程序列化（记录客户端提交的原样内容，不受方法内修改影响），
+ * 原数据和响应的 JSON 序列化默认在后台线程完成
+ * 参数不先复制再交给后台序列化：限长序列化写满上限即停止，开销有上界；按属性复制对小实体反而更慢，
+ * 复制到 TokenBuffer 对大请求体没有上限。原数据必须在目标方法修改前查出，同样留在请求线程
  */
 @Aspect
 @Component
-public class LogAspect {
+public class LogAspect implements SmartInitializingSingleton {
+
+    // 请求参数、响应数据的最大长度
+    private static final int PARAMS_MAX_LENGTH = 2000;
+    // 新旧数据的最大长度
+    private static final int DATA_MAX_LENGTH = 5000;
 
     @Autowired
     private OperationLogService operationLogService;
@@ -49,6 +74,48 @@ public class LogAspect {
     @Autowired(required = false)
     private UserMapper userMapper;
 
+    @Autowired
+    private LogOverheadStats logOverheadStats;
+
+    // 是否在后台线程序列化原数据/响应（false 则在请求线程同步序列化）
+    @Value("${operation-log.async-serialize:true}")
+    private boolean asyncSerialize = true;
+
+    // 后台序列化队列容量，队列满时由请求线程自行序列化
+    @Value("${operation-log.serialize-queue-capacity:2000}")
+    private int serializeQueueCapacity = 2000;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    // 方法 -> 预计算的日志元数据
+    private final Map<Method, LogMethodDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor snapshotExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (asyncSerialize) {
+            AtomicInteger threadIndex = new AtomicInteger();
+            snapshotExecutor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(serializeQueueCapacity),
+                    r -> {
+                        Thread thread = new Thread(r, "log-snapshot-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdown();
+            snapshotExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
     /**
      * 定义切点：所有被@Log注解标记的方法
      */
@@ -58,23 +125,21 @@ public class LogAspect {
 
     /**
      * 环绕通知：记录方法执行前后的信息
+     * 参数和新数据在执行前序列化；原数据、响应只采集对象引用，JSON 序列化交给后台线程（可配置为同步）
      */
     @Around("logPointcut()")
     public Object around(ProceedingJoinPoint point) throws Throwable {
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long proceedNanos = 0;
         
         OperationLog operationLog = new OperationLog();
+        LogSnapshot snapshot = new LogSnapshot();
         Object result = null;
-        Object oldData = null;
-        Object newData = null;
         
-        // 获取注解信息
-        MethodSignature signature = (MethodSignature) point.getSignature();
-        Method method = signature.getMethod();
-        Log logAnnotation = method.getAnnotation(Log.class);
-        String action = logAnnotation.action();
-        String entityType = logAnnotation.entityType();
-        int idParamIndex = logAnnotation.idParamIndex();
+        // 获取预计算的注解信息
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        LogMethodDescriptor descriptor = getDescriptor(method);
         
         try {
             // 获取请求信息
@@ -96,89 +161,59 @@ public class LogAspect {
                 operationLog.setUserAgent(request.getHeader("User-Agent"));
                 
                 // 获取请求参数（过滤不可序列化的对象）
+                // 目标方法可能修改参数对象（回填ID、补默认值等），必须在执行前序列化；
+                // 限长序列化的开销不超过上限长度的输出，比先复制参数再交给后台线程更省
                 Object[] args = point.getArgs();
-                try {
-                    if (args != null && args.length > 0) {
-                        Object[] filteredArgs = filterNonSerializableArgs(args);
-                        String params = objectMapper.writeValueAsString(filteredArgs);
-                        if (params.length() > 2000) {
-                            params = params.substring(0, 2000) + "...";
-                        }
-                        operationLog.setRequestParams(params);
+                if (args != null && args.length > 0) {
+                    try {
+                        operationLog.setRequestParams(JsonTruncator.toJson(
+                                objectMapper, filterNonSerializableArgs(args), PARAMS_MAX_LENGTH));
+                    } catch (Exception e) {
+                        operationLog.setRequestParams("参数解析失败");
                     }
-                } catch (Exception e) {
-                    operationLog.setRequestParams("参数解析失败");
                 }
                 
-                // UPDATE/DELETE 操作：获取修改前的数据
-                if (("UPDATE".equals(action) || "DELETE".equals(action)) 
-                        && entityType != null && !entityType.isEmpty()
-                        && args != null && args.length > idParamIndex) {
+                // UPDATE/DELETE 操作：获取修改前的数据（必须在方法执行前查询，放到后台线程会与本次修改竞争）
+                if (descriptor.loadsOldData()) {
                     try {
-                        Object idParam = args[idParamIndex];
-                        Long entityId = null;
-                        if (idParam instanceof Long) {
-                            entityId = (Long) idParam;
-                        } else if (idParam instanceof Integer) {
-                            entityId = ((Integer) idParam).longValue();
-                        } else if (idParam instanceof String) {
-                            entityId = Long.parseLong((String) idParam);
-                        }
-                        
-                        if (entityId != null) {
-                            oldData = getEntityById(entityType, entityId);
-                            if (oldData != null) {
-                                String oldDataStr = objectMapper.writeValueAsString(oldData);
-                                if (oldDataStr.length() > 5000) {
-                                    oldDataStr = oldDataStr.substring(0, 5000) + "...";
-                                }
-                                operationLog.setOldData(oldDataStr);
-                            }
-                        }
+                        snapshot.oldData = descriptor.loadOldEntity(args);
                     } catch (Exception e) {
                         operationLog.setOldData("获取原数据失败: " + e.getMessage());
                     }
                 }
                 
-                // UPDATE 操作：记录新数据（从请求参数中获取）
-                if ("UPDATE".equals(action) && args != null) {
-                    try {
-                        // 通常新数据在请求体中，尝试找到实体对象
-                        for (Object arg : args) {
-                            if (arg != null && !isPrimitiveOrWrapper(arg.getClass())) {
-                                String newDataStr = objectMapper.writeValueAsString(arg);
-                                if (newDataStr.length() > 5000) {
-                                    newDataStr = newDataStr.substring(0, 5000) + "...";
-                                }
-                                operationLog.setNewData(newDataStr);
-                                break;
+                // UPDATE 操作：记录新数据（通常新数据在请求体中，取第一个实体对象），同样在执行前序列化
+                if (descriptor.capturesNewData() && args != null) {
+                    for (Object arg : args) {
+                        if (arg != null && !isPrimitiveOrWrapper(arg.getClass())) {
+                            try {
+                                operationLog.setNewData(JsonTruncator.toJson(objectMapper, arg, DATA_MAX_LENGTH));
+                            } catch (Exception e) {
+                                operationLog.setNewData("获取新数据失败: " + e.getMessage());
                             }
+                            break;
                         }
-                    } catch (Exception e) {
-                        operationLog.setNewData("获取新数据失败: " + e.getMessage());
                     }
                 }
             }
             
-            operationLog.setModule(logAnnotation.module());
-            operationLog.setAction(action);
-            operationLog.setDescription(logAnnotation.description());
-            operationLog.setMethod(signature.getDeclaringTypeName() + "." + signature.getName());
+            operationLog.setModule(descriptor.getModule());
+            operationLog.setAction(descriptor.getActionName());
+            operationLog.setDescription(descriptor.getDescription());
+            operationLog.setMethod(descriptor.getMethodName());
             
             // 执行目标方法
-            result = point.proceed();
+            long proceedStart = System.nanoTime();
+            try {
+                result = point.proceed();
+            } finally {
+                proceedNanos = System.nanoTime() - proceedStart;
+            }
             
             // 记录成功
             operationLog.setStatus(1);
-            try {
-                String responseStr = objectMapper.writeValueAsString(result);
-                if (responseStr.length() > 2000) {
-                    responseStr = responseStr.substring(0, 2000) + "...";
-                }
-                operationLog.setResponseData(responseStr);
-            } catch (Exception e) {
-                operationLog.setResponseData("响应解析失败");
-            }
+            snapshot.response = result;
+            snapshot.hasResponse = true;
             
         } catch (Throwable e) {
             // 记录失败
@@ -190,28 +225,105 @@ public class LogAspect {
             long endTime = System.currentTimeMillis();
             operationLog.setDuration(endTime - startTime);
             
-            // 异步保存日志
-            operationLogService.save(operationLog);
+            // 序列化快照并提交日志
+            submit(operationLog, snapshot);
+            logOverheadStats.record(descriptor.getMethodName(), System.nanoTime() - startNanos - proceedNanos);
         }
         
         return result;
     }
 
     /**
-     * 根据实体类型和ID获取实体数据
+     * 提交日志：后台模式下交给序列化线程池，队列满时由调用线程执行
+     */
+    private void submit(OperationLog operationLog, LogSnapshot snapshot) {
+        if (snapshotExecutor == null) {
+            serializeAndSave(operationLog, snapshot);
+            return;
+        }
+        snapshotExecutor.execute(() -> serializeAndSave(operationLog, snapshot));
+    }
+
+    /**
+     * 把原数据、响应序列化为限长 JSON 并保存日志
+     */
+    private void serializeAndSave(OperationLog operationLog, LogSnapshot snapshot) {
+        if (snapshot.oldData != null) {
+            try {
+                operationLog.setOldData(JsonTruncator.toJson(objectMapper, snapshot.oldData, DATA_MAX_LENGTH));
+            } catch (Exception e) {
+                operationLog.setOldData("获取原数据失败: " + e.getMessage());
+            }
+        }
+        if (snapshot.hasResponse) {
+            try {
+                operationLog.setResponseData(JsonTruncator.toJson(objectMapper, snapshot.response, PARAMS_MAX_LENGTH));
+            } catch (Exception e) {
+                operationLog.setResponseData("响应解析失败");
+            }
+        }
+        operationLogService.save(operationLog);
+    }
+
+    /**
+     * 待序列化的对象引用（原数据是刚查出的独立对象，响应在方法返回后不再被修改）
+     */
+    private static final class LogSnapshot {
+        private Object oldData;
+        private Object response;
+        private boolean hasResponse;
+    }
+
+    /**
+     * 启动时扫描所有控制器中被@Log标记的方法，预先构建元数据
      */
-    private Object getEntityById(String entityType, Long id) {
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (Object bean : applicationContext.getBeansWithAnnotation(Controller.class).values()) {
+            Class<?> targetClass = AopUtils.getTargetClass(bean);
+            for (Method method : ReflectionUtils.getUniqueDeclaredMethods(targetClass)) {
+                if (method.isAnnotationPresent(Log.class)) {
+                    descriptors.computeIfAbsent(method, this::describe);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取方法的日志元数据（未预热的方法首次调用时构建）
+     */
+    LogMethodDescriptor getDescriptor(Method method) {
+        LogMethodDescriptor descriptor = descriptors.get(method);
+        return descriptor != null ? descriptor : descriptors.computeIfAbsent(method, this::describe);
+    }
+
+    /**
+     * 根据方法上的@Log注解构建元数据
+     */
+    private LogMethodDescriptor describe(Method method) {
+        Log log = method.getAnnotation(Log.class);
+        String methodName = method.getDeclaringClass().getName() + "." + method.getName();
+        return new LogMethodDescriptor(log, methodName, entityLoader(log.entityType()));
+    }
+
+    /**
+     * 根据实体类型选择加载原数据的Mapper方法
+     */
+    private Function<Long, Object> entityLoader(String entityType) {
+        if (entityType == null || entityType.isEmpty()) {
+            return null;
+        }
         switch (entityType.toLowerCase()) {
             case "customer":
-                return customerMapper != null ? customerMapper.getById(id) : null;
+                return customerMapper != null ? customerMapper::getDetailById : null;
             case "sample":
-                return sampleMapper != null ? sampleMapper.selectById(id) : null;
+                return sampleMapper != null ? sampleMapper::selectById : null;
             case "order":
-                return orderMapper != null ? orderMapper.getById(id) : null;
+                return orderMapper != null ? orderMapper::getById : null;
             case "employee":
-                return employeeMapper != null ? employeeMapper.findById(id) : null;
+                return employeeMapper != null ? employeeMapper::findById : null;
             case "user":
-                return userMapper != null ? userMapper.findById(id) : null;
+                return userMapper != null ? userMapper::findById : null;
             default:
                 return null;
         }
@@ -0,0 +1,95 @@
+package com.example.demo.aspect;
+
+import com.example.demo.annotation.Log;
+
+import java.util.function.Function;
+
+/**
+ * 被@Log标记方法的预计算元数据
+ * 启动时按方法构建一次，切面热路径上只需一次 Map 查找
+ */
+final class LogMethodDescriptor {
+
+    /**
+     * 操作类型
+     */
+    enum Action {
+        CREATE, UPDATE, DELETE, OTHER;
+
+        static Action of(String action) {
+            for (Action value : values()) {
+                if (value.name().equals(action)) {
+                    return value;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    private final String module;
+    private final String actionName;
+    private final Action action;
+    private final String description;
+    private final String methodName;
+    private final int idParamIndex;
+    // 根据ID加载修改前的实体，不需要记录原数据时为 null
+    private final Function<Long, Object> entityLoader;
+
+    LogMethodDescriptor(Log log, String methodName, Function<Long, Object> entityLoader) {
+        this.module = log.module();
+        this.actionName = log.action();
+        this.action = Action.of(log.action());
+        this.description = log.description();
+        this.methodName = methodName;
+        this.idParamIndex = log.idParamIndex();
+        this.entityLoader = (action == Action.UPDATE || action == Action.DELETE) ? entityLoader : null;
+    }
+
+    String getModule() { return module; }
+    String getActionName() { return actionName; }
+    Action getAction() { return action; }
+    String getDescription() { return description; }
+    String getMethodName() { return methodName; }
+
+    /**
+     * 是否需要在方法执行前加载原数据
+     */
+    boolean loadsOldData() {
+        return entityLoader != null;
+    }
+
+    /**
+     * 是否需要记录新数据
+     */
+    boolean capturesNewData() {
+        return action == Action.UPDATE;
+    }
+
+    /**
+     * 从方法参数中取出实体ID并加载修改前的实体
+     *
+     * @return 原实体，参数中没有可识别的ID时返回 null
+     */
+    Object loadOldEntity(Object[] args) {
+        Long entityId = extractId(args);
+        return entityId != null ? entityLoader.apply(entityId) : null;
+    }
+
+    /**
+     * 从方法参数中提取实体ID（支持 Long / Integer / String）
+     */
+    Long extractId(Object[] args) {
+        if (args == null || args.length <= idParamIndex) {
+            return null;
+        }
+        Object idParam = args[idParamIndex];
+        if (idParam instanceof Long) {
+            return (Long) idParam;
+        } else if (idParam instanceof Integer) {
+            return ((Integer) idParam).longValue();
+        } else if (idParam instanceof String) {
+            return Long.parseLong((String) idParam);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.aspect;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作日志切面开销统计
+ * 按接口方法记录切面在请求线程上额外花费的时间（不含目标方法本身的执行时间），
+ * 用于对比同步序列化与后台序列化两种模式的延迟
+ */
+@Component
+public class LogOverheadStats {
+
+    private final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次切面开销
+     *
+     * @param method        方法签名
+     * @param overheadNanos 请求线程上的额外耗时（纳秒）
+     */
+    public void record(String method, long overheadNanos) {
+        stats.computeIfAbsent(method, k -> new MethodStats()).record(overheadNanos);
+    }
+
+    /**
+     * 获取各方法的调用次数、平均与最大额外耗时（毫秒）
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new TreeMap<>();
+        stats.forEach((method, s) -> result.put(method, s.toMap()));
+        return result;
+    }
+
+    /**
+     * 清空统计（切换序列化模式后重新对比）
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    private static final class MethodStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        Map<String, Object> toMap() {
+            long calls = count.sum();
+            Map<String, Object> map = new TreeMap<>();
+            map.put("count", calls);
+            map.put("avgMillis", calls == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / calls);
+            map.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            return map;
+        }
+    }
+}
@@ -1,9 +1,6 @@
 package com.example.demo.config;
 
-import com.example.demo.entity.Admin;
-import com.example.demo.entity.User;
-import com.example.demo.mapper.AdminMapper;
-import com.example.demo.mapper.UserMapper;
+import com.example.demo.util.JwtPrincipal;
 import com.example.demo.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,10 +28,7 @@ public class JwtFilter extends OncePerRequestFilter {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private AdminMapper adminMapper;
-
-    @Autowired
-    private UserMapper userMapper;
+    private PrincipalCache principalCache;
 
     // Token版本失效错误码（账号在其他设备登录）
     private static final int TOKEN_VERSION_INVALID = 4011;
@@ -44,10 +38,14 @@ public class JwtFilter extends OncePerRequestFilter {
             "/api/admin/login",
             "/api/user/login",
             "/api/auth/verify",  // Token 校验接口
-            "/api/notifications/subscribe",  // SSE推送（EventSource不支持自定义Header）
             "/sample/"  // 图片资源
     );
 
+    // 允许通过 token 查询参数认证的路径（EventSource不支持自定义Header）
+    private static final List<String> QUERY_TOKEN_PATHS = Arrays.asList(
+            "/api/notifications/subscribe"
+    );
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
@@ -67,49 +65,42 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
-        // 获取 Authorization 头
+        // 获取 Authorization 头，SSE 订阅可改用 token 查询参数
         String authHeader = request.getHeader("Authorization");
+        String token = null;
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+        } else if (QUERY_TOKEN_PATHS.stream().anyMatch(path::startsWith)) {
+            token = request.getParameter("token");
+        }
 
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (token == null || token.isEmpty()) {
             sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "未提供认证Token");
             return;
         }
 
-        String token = authHeader.substring(7);
-
         try {
-            // 验证 Token 基本有效性
-            if (!jwtUtil.validateToken(token)) {
+            // 一次解析验签得到全部 Token 信息
+            JwtPrincipal tokenPrincipal;
+            try {
+                tokenPrincipal = jwtUtil.parsePrincipal(token);
+            } catch (RuntimeException e) {
                 sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Token无效或已过期");
                 return;
             }
-
-            // 获取 Token 中的信息
-            Long userId = jwtUtil.getUserId(token);
-            String username = jwtUtil.getUsername(token);
-            String role = jwtUtil.getRole(token);
-            Integer tokenVersion = jwtUtil.getTokenVersion(token);
-
-            // 验证 Token 版本号（单点登录检查）
-            Integer dbTokenVersion = null;
-            String operatorName = null;  // 操作人姓名
-            if ("admin".equals(role)) {
-                Admin admin = adminMapper.findById(userId);
-                if (admin == null) {
-                    sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "用户不存在或已被删除");
-                    return;
-                }
-                dbTokenVersion = admin.getTokenVersion();
-                operatorName = admin.getName();
-            } else {
-                User user = userMapper.findById(userId);
-                if (user == null) {
-                    sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "用户不存在或已被删除");
-                    return;
-                }
-                dbTokenVersion = user.getTokenVersion();
-                operatorName = user.getName();
+            Long userId = tokenPrincipal.getUserId();
+            String username = tokenPrincipal.getUsername();
+            String role = tokenPrincipal.getRole();
+            Integer tokenVersion = tokenPrincipal.getTokenVersion();
+
+            // 验证 Token 版本号（单点登录检查），优先走缓存
+            PrincipalCache.CachedPrincipal principal = principalCache.get(role, userId);
+            if (principal == null) {
+                sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "用户不存在或已被删除");
+                return;
             }
+            Integer dbTokenVersion = principal.getTokenVersion();
+            String operatorName = principal.getName();  // 操作人姓名
 
             // 版本号不匹配，说明账号在其他设备登录
             if (!dbTokenVersion.equals(tokenVersion)) {
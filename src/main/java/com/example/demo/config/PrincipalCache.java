@@ -0,0 +1,166 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.Admin;
+import com.example.demo.entity.User;
+import com.example.demo.mapper.AdminMapper;
+import com.example.demo.mapper.UserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 登录主体缓存
+ * 缓存 (角色, 用户ID) -> Token版本号 + 操作人姓名，避免 JwtFilter 每个请求都查一次数据库
+ * 容量有上限（LRU淘汰）且带过期时间，登录、修改、删除用户时主动失效
+ */
+@Component
+public class PrincipalCache {
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    // 最大缓存条目数
+    @Value("${auth.principal-cache.max-size:10000}")
+    private int maxSize = 10000;
+
+    // 缓存有效期（秒）
+    @Value("${auth.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // 失效计数：加载期间发生过失效，则加载结果不写入缓存，防止旧版本号覆盖
+    private long invalidations = 0;
+
+    private Map<String, CachedPrincipal> cache;
+
+    @PostConstruct
+    public void init() {
+        // accessOrder = true，按访问顺序淘汰最久未使用的条目
+        this.cache = new LinkedHashMap<String, CachedPrincipal>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取登录主体信息，未命中时从数据库加载
+     *
+     * @param role   角色（admin/user）
+     * @param userId 用户ID
+     * @return 主体信息，用户不存在时返回 null
+     */
+    public CachedPrincipal get(String role, Long userId) {
+        String key = key(role, userId);
+        long now = System.currentTimeMillis();
+        long invalidationsBeforeLoad;
+
+        synchronized (cache) {
+            CachedPrincipal principal = cache.get(key);
+            if (principal != null) {
+                if (principal.expireAt > now) {
+                    hits.incrementAndGet();
+                    return principal;
+                }
+                // 已过期
+                cache.remove(key);
+                evictions.incrementAndGet();
+            }
+            invalidationsBeforeLoad = invalidations;
+        }
+
+        misses.incrementAndGet();
+        CachedPrincipal loaded = load(role, userId, now + ttlSeconds * 1000);
+        if (loaded != null) {
+            synchronized (cache) {
+                if (invalidations == invalidationsBeforeLoad) {
+                    cache.put(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 使指定用户的缓存失效（登录、修改、删除用户后调用）
+     */
+    public void invalidate(String role, Long userId) {
+        synchronized (cache) {
+            invalidations++;
+            cache.remove(key(role, userId));
+        }
+    }
+
+    /**
+     * 获取缓存统计信息（命中、未命中、淘汰次数）
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (cache) {
+            stats.put("size", cache.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlSeconds);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.get());
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        return stats;
+    }
+
+    /**
+     * 从数据库加载主体信息
+     */
+    private CachedPrincipal load(String role, Long userId, long expireAt) {
+        if ("admin".equals(role)) {
+            Admin admin = adminMapper.findById(userId);
+            return admin == null ? null : new CachedPrincipal(admin.getTokenVersion(), admin.getName(), expireAt);
+        }
+        User user = userMapper.findById(userId);
+        return user == null ? null : new CachedPrincipal(user.getTokenVersion(), user.getName(), expireAt);
+    }
+
+    private String key(String role, Long userId) {
+        // 与 JwtFilter 保持一致：非 admin 一律按普通用户处理
+        return ("admin".equals(role) ? "admin:" : "user:") + userId;
+    }
+
+    /**
+     * 缓存的主体信息（不可变）
+     */
+    public static final class CachedPrincipal {
+        private final Integer tokenVersion;
+        private final String name;
+        private final long expireAt;
+
+        CachedPrincipal(Integer tokenVersion, String name, long expireAt) {
+            this.tokenVersion = tokenVersion;
+            this.name = name;
+            this.expireAt = expireAt;
+        }
+
+        public Integer getTokenVersion() { return tokenVersion; }
+        public String getName() { return name; }
+    }
+}
@@ -1,35 +1,48 @@
 package com.example.demo.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import javax.annotation.PostConstruct;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 请求频率限制过滤器
- * 基于IP地址的简单限流实现
+ * 基于IP地址的滑动窗口限流，登录接口与普通接口分别使用独立策略
+ * 过期计数器由定时任务后台清理，单个请求的判断开销与IP数量无关
  */
 @Component
 public class RateLimitConfig extends OncePerRequestFilter {
 
-    // IP请求计数器：IP -> 请求次数
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    // IP请求时间戳：IP -> 窗口开始时间
-    private final Map<String, Long> requestTimestamps = new ConcurrentHashMap<>();
+    // 普通接口：每个时间窗口内最大请求数
+    @Value("${rate-limit.general.max-requests:100}")
+    private int maxRequests = 100;
+
+    // 普通接口：时间窗口（毫秒）
+    @Value("${rate-limit.general.window-ms:60000}")
+    private long timeWindow = 60000;
 
-    // 时间窗口（毫秒）
-    private static final long TIME_WINDOW = 60000; // 1分钟
-    // 每个时间窗口内最大请求数
-    private static final int MAX_REQUESTS = 100;
     // 登录接口限制（更严格）
-    private static final int MAX_LOGIN_REQUESTS = 10;
+    @Value("${rate-limit.login.max-requests:10}")
+    private int maxLoginRequests = 10;
+
+    @Value("${rate-limit.login.window-ms:60000}")
+    private long loginTimeWindow = 60000;
+
+    private SlidingWindowRateLimiter generalLimiter;
+    private SlidingWindowRateLimiter loginLimiter;
+
+    @PostConstruct
+    public void init() {
+        generalLimiter = new SlidingWindowRateLimiter(maxRequests, timeWindow);
+        loginLimiter = new SlidingWindowRateLimiter(maxLoginRequests, loginTimeWindow);
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -37,49 +50,40 @@ public class RateLimitConfig extends OncePerRequestFilter {
 
         String clientIp = getClientIp(request);
         String path = request.getRequestURI();
-        
+
         // 登录接口使用更严格的限制
         boolean isLoginRequest = path.contains("/login");
-        int maxRequests = isLoginRequest ? MAX_LOGIN_REQUESTS : MAX_REQUESTS;
-        
-        // 添加IP后缀区分不同类型的请求
-        String key = isLoginRequest ? clientIp + ":login" : clientIp;
-
-        long currentTime = System.currentTimeMillis();
-        
-        // 清理过期的计数器
-        requestTimestamps.entrySet().removeIf(entry -> 
-            currentTime - entry.getValue() > TIME_WINDOW * 2);
-        requestCounts.entrySet().removeIf(entry -> 
-            !requestTimestamps.containsKey(entry.getKey()));
-
-        // 检查是否需要重置计数器
-        Long windowStart = requestTimestamps.get(key);
-        if (windowStart == null || currentTime - windowStart > TIME_WINDOW) {
-            requestTimestamps.put(key, currentTime);
-            requestCounts.put(key, new AtomicInteger(0));
-        }
+        SlidingWindowRateLimiter limiter = isLoginRequest ? loginLimiter : generalLimiter;
 
-        // 增加请求计数
-        AtomicInteger count = requestCounts.computeIfAbsent(key, k -> new AtomicInteger(0));
-        int currentCount = count.incrementAndGet();
+        SlidingWindowRateLimiter.Result result = limiter.tryAcquire(clientIp);
+
+        // 添加限流相关响应头
+        response.setHeader("X-RateLimit-Limit", String.valueOf(result.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(result.getRemaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(result.getResetTime()));
 
         // 检查是否超过限制
-        if (currentCount > maxRequests) {
+        if (!result.isAllowed()) {
+            long retryAfterSeconds = Math.max(1, (result.getResetTime() - System.currentTimeMillis() + 999) / 1000);
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
             response.setStatus(429); // Too Many Requests
             response.setContentType("application/json;charset=UTF-8");
             response.getWriter().write("{\"success\":false,\"message\":\"请求过于频繁，请稍后再试\",\"code\":429}");
             return;
         }
 
-        // 添加限流相关响应头
-        response.setHeader("X-RateLimit-Limit", String.valueOf(maxRequests));
-        response.setHeader("X-RateLimit-Remaining", String.valueOf(Math.max(0, maxRequests - currentCount)));
-        response.setHeader("X-RateLimit-Reset", String.valueOf((windowStart != null ? windowStart : currentTime) + TIME_WINDOW));
-
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 定时清理长时间未访问的IP计数器
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void evictIdleCounters() {
+        generalLimiter.evictIdle();
+        loginLimiter.evictIdle();
+    }
+
     /**
      * 获取客户端真实IP
      */
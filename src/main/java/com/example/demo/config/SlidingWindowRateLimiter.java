@@ -0,0 +1,148 @@
+package com.example.demo.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 滑动窗口限流器（无锁）
+ * 每个 key 持有独立的原子状态（上一窗口计数 + 当前窗口计数），
+ * 按上一窗口的剩余占比加权估算滑动窗口内的请求数，单次判断为 O(1)
+ * 过期 key 由定时任务调用 evictIdle 清理，不在请求路径上扫描
+ */
+public class SlidingWindowRateLimiter {
+
+    private final int maxRequests;
+    private final long windowMillis;
+    private final Map<String, WindowCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxRequests  每个窗口内允许的最大请求数
+     * @param windowMillis 窗口长度（毫秒）
+     */
+    public SlidingWindowRateLimiter(int maxRequests, long windowMillis) {
+        this.maxRequests = maxRequests;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 尝试获取一次请求许可
+     *
+     * @param key 限流键（如客户端IP）
+     * @return 判断结果
+     */
+    public Result tryAcquire(String key) {
+        return tryAcquire(key, System.currentTimeMillis());
+    }
+
+    Result tryAcquire(String key, long now) {
+        WindowCounter counter = counters.computeIfAbsent(key, k -> new WindowCounter());
+        return counter.tryAcquire(now);
+    }
+
+    /**
+     * 清理超过两个窗口未访问的 key
+     *
+     * @return 清理的 key 数量
+     */
+    public int evictIdle() {
+        return evictIdle(System.currentTimeMillis());
+    }
+
+    int evictIdle(long now) {
+        long idleBefore = now - windowMillis * 2;
+        int removed = 0;
+        for (Map.Entry<String, WindowCounter> entry : counters.entrySet()) {
+            if (entry.getValue().lastAccess < idleBefore && counters.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 当前跟踪的 key 数量
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * 单个 key 的窗口计数器，状态整体不可变，通过 CAS 替换
+     */
+    private final class WindowCounter {
+        private final AtomicReference<State> state = new AtomicReference<>(new State(Long.MIN_VALUE, 0, 0));
+        private volatile long lastAccess;
+
+        Result tryAcquire(long now) {
+            lastAccess = now;
+            long window = now / windowMillis;
+            long resetTime = (window + 1) * windowMillis;
+            // 上一窗口在当前滑动窗口中仍占的比例
+            double previousWeight = 1.0 - (double) (now % windowMillis) / windowMillis;
+
+            while (true) {
+                State current = state.get();
+                int previousCount;
+                int currentCount;
+                if (current.window == window) {
+                    previousCount = current.previousCount;
+                    currentCount = current.currentCount;
+                } else if (current.window == window - 1) {
+                    previousCount = current.currentCount;
+                    currentCount = 0;
+                } else {
+                    previousCount = 0;
+                    currentCount = 0;
+                }
+
+                double estimated = previousCount * previousWeight + currentCount + 1;
+                if (estimated > maxRequests) {
+                    return new Result(false, maxRequests, 0, resetTime);
+                }
+                if (state.compareAndSet(current, new State(window, previousCount, currentCount + 1))) {
+                    int remaining = Math.max(0, maxRequests - (int) Math.ceil(estimated));
+                    return new Result(true, maxRequests, remaining, resetTime);
+                }
+            }
+        }
+    }
+
+    private static final class State {
+        private final long window;
+        private final int previousCount;
+        private final int currentCount;
+
+        State(long window, int previousCount, int currentCount) {
+            this.window = window;
+            this.previousCount = previousCount;
+            this.currentCount = currentCount;
+        }
+    }
+
+    /**
+     * 限流判断结果
+     */
+    public static final class Result {
+        private final boolean allowed;
+        private final int limit;
+        private final int remaining;
+        private final long resetTime;
+
+        Result(boolean allowed, int limit, int remaining, long resetTime) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetTime = resetTime;
+        }
+
+        public boolean isAllowed() { return allowed; }
+        public int getLimit() { return limit; }
+        public int getRemaining() { return remaining; }
+        public long getResetTime() { return resetTime; }
+    }
+}
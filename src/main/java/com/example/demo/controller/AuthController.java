@@ -1,10 +1,8 @@
 package com.example.demo.controller;
 
 import com.example.demo.common.ApiResponse;
-import com.example.demo.entity.Admin;
-import com.example.demo.entity.User;
-import com.example.demo.mapper.AdminMapper;
-import com.example.demo.mapper.UserMapper;
+import com.example.demo.config.PrincipalCache;
+import com.example.demo.util.JwtPrincipal;
 import com.example.demo.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -28,10 +26,7 @@ public class AuthController {
     private JwtUtil jwtUtil;
 
     @Autowired
-    private AdminMapper adminMapper;
-
-    @Autowired
-    private UserMapper userMapper;
+    private PrincipalCache principalCache;
 
     /**
      * 校验 Token 是否有效
@@ -48,32 +43,24 @@ public class AuthController {
             
             String token = authHeader.substring(7);
             
-            // 验证 Token 基本有效性
-            if (!jwtUtil.validateToken(token)) {
+            // 验证 Token 并一次取出全部信息
+            JwtPrincipal tokenPrincipal;
+            try {
+                tokenPrincipal = jwtUtil.parsePrincipal(token);
+            } catch (RuntimeException e) {
                 return ResponseEntity.ok(ApiResponse.error("Token无效或已过期"));
             }
-            
-            // 获取用户信息
-            String role = jwtUtil.getRole(token);
-            Long userId = jwtUtil.getUserId(token);
-            String username = jwtUtil.getUsername(token);
-            Integer tokenVersion = jwtUtil.getTokenVersion(token);
+            String role = tokenPrincipal.getRole();
+            Long userId = tokenPrincipal.getUserId();
+            String username = tokenPrincipal.getUsername();
+            Integer tokenVersion = tokenPrincipal.getTokenVersion();
             
             // 验证 Token 版本号（单点登录检查）
-            Integer dbTokenVersion = null;
-            if ("admin".equals(role)) {
-                Admin admin = adminMapper.findById(userId);
-                if (admin == null) {
-                    return ResponseEntity.ok(ApiResponse.error("用户不存在", 4012));
-                }
-                dbTokenVersion = admin.getTokenVersion();
-            } else {
-                User user = userMapper.findById(userId);
-                if (user == null) {
-                    return ResponseEntity.ok(ApiResponse.error("用户不存在", 4012));
-                }
-                dbTokenVersion = user.getTokenVersion();
+            PrincipalCache.CachedPrincipal principal = principalCache.get(role, userId);
+            if (principal == null) {
+                return ResponseEntity.ok(ApiResponse.error("用户不存在", 4012));
             }
+            Integer dbTokenVersion = principal.getTokenVersion();
             
             // 版本号不匹配，说明账号在其他设备登录
             if (dbTokenVersion != null && !dbTokenVersion.equals(tokenVersion)) {
@@ -95,4 +82,12 @@ public class AuthController {
             return ResponseEntity.ok(ApiResponse.error("Token校验失败: " + e.getMessage()));
         }
     }
-}
+
+    /**
+     * 获取登录主体缓存统计（命中/未命中/淘汰次数），用于观察数据库查询压力
+     */
+    @GetMapping("/principal-cache/stats")
+    public ResponseEntity<ApiResponse> getPrincipalCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(principalCache.getStats()));
+    }
+}
\ No newline at end of file
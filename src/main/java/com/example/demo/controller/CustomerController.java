@@ -3,6 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.annotation.Log;
 import com.example.demo.common.ApiResponse;
 import com.example.demo.dto.DeleteResultDTO;
+import com.example.demo.dto.CustomerSummaryDTO;
 import com.example.demo.entity.Customer;
 import com.example.demo.service.CustomerService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,6 +60,33 @@ public class CustomerController {
         return ResponseEntity.ok(ApiResponse.success(customers));
     }
 
+    /**
+     * 按公司名称关键字搜索客户（包含匹配）
+     * 
+     * @param keyword 名称关键字
+     * @param limit 最多返回数量（默认50，最大200）
+     * @return 包含匹配客户列表的响应体
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse> searchCustomers(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "50") int limit) {
+        List<Customer> customers = customerService.searchByCompanyName(keyword, limit);
+        return ResponseEntity.ok(ApiResponse.success(customers));
+    }
+
+    /**
+     * 获取客户摘要列表
+     * 只返回地址和联系人数量，适用于列表展示和下拉选择
+     * 
+     * @return 包含客户摘要列表的响应体
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse> getCustomerSummaries() {
+        List<CustomerSummaryDTO> summaries = customerService.listSummaries();
+        return ResponseEntity.ok(ApiResponse.success(summaries));
+    }
+
     /**
      * 创建新客户
      * 
@@ -1,14 +1,20 @@
 package com.example.demo.controller;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.entity.Dashboard;
 import com.example.demo.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 /**
  * 仪表盘控制器
  * 处理仪表盘数据相关的请求
@@ -28,6 +34,7 @@ public class DashboardController {
     /**
      * 获取仪表盘数据
      * 该方法返回系统的统计信息，如客户数量、订单数量、样板数量等
+     * 数据来自定时刷新的快照，Age 响应头为快照的年龄（秒）
      * 
      * @return 包含统计数据的ApiResponse对象
      */
@@ -35,6 +42,38 @@ public class DashboardController {
     public ResponseEntity<ApiResponse> getDashboard() {
         // 调用服务获取仪表盘数据
         Dashboard dashboard = dashboardService.getDashboard();
-        return ResponseEntity.ok(ApiResponse.success(dashboard));
+        long ageSeconds = Math.max(0, dashboardService.getSnapshotAgeMillis()) / 1000;
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(ageSeconds))
+                .body(ApiResponse.success(dashboard));
+    }
+
+    /**
+     * 按产品分类分页获取订单产品
+     * 仪表盘首屏只包含每个分类的前几条和总数，展开某个分类时再调用该接口加载
+     * 
+     * @param bucket 分类：pending（待生产）/ producing（生产中）/ shipping（待发货）
+     * @param after 上一页返回的 nextKey，首页不传
+     * @param limit 每页数量（默认20，最大100）
+     * @return 游标分页的订单产品
+     */
+    @GetMapping("/products/{bucket}")
+    public ResponseEntity<ApiResponse> getProducts(
+            @PathVariable String bucket,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit) {
+        CursorPageDTO<Dashboard.OrderProduct> page = dashboardService.getProducts(bucket, after, limit);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 获取仪表盘快照状态
+     * 
+     * @return 快照计算时间、年龄、刷新耗时和次数
+     */
+    @GetMapping("/status")
+    public ResponseEntity<ApiResponse> getStatus() {
+        Map<String, Object> status = dashboardService.getSnapshotStatus();
+        return ResponseEntity.ok(ApiResponse.success(status));
     }
 }
\ No newline at end of file
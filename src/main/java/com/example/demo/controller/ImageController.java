@@ -1,10 +1,15 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.ApiResponse;
+import com.example.demo.dto.ThumbnailDTO;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.service.ThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,23 +17,41 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * 图片控制器
  * 提供样品图片访问的REST API接口
- * 直接从服务器文件系统读取图片文件并返回，不使用缓存
+ * 直接从服务器文件系统读取图片文件并返回，支持HTTP缓存与断点续传
  * 支持多种图片格式，如JPG、PNG、GIF等
  */
 @RestController
 @RequestMapping("/sampleImage")
 public class ImageController {
 
+    // 带内容哈希的版本化文件名：{id}.{16位哈希}.{扩展名}
+    private static final Pattern VERSIONED_NAME = Pattern.compile("^\\d+\\.[0-9a-f]{16}\\.[A-Za-z0-9]+$");
+
+    // Tomcat sendfile 相关请求属性
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // 小文件直接写出比 sendfile 更快（与 Tomcat DefaultServlet 的默认阈值一致）
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
     /**
      * 图片上传目录路径
      * 从application.properties中注入配置的上传目录路径
@@ -36,48 +59,161 @@ public class ImageController {
     @Value("${upload.dir}")
     private String uploadDir;
 
+    /**
+     * 缩略图服务
+     * 负责缩略图的生成、缓存与失效
+     */
+    @Autowired
+    private ThumbnailService thumbnailService;
+
     /**
      * 获取指定文件名的图片资源
      * 根据文件名从文件系统中读取图片并返回
+     * 带内容哈希的文件名（如 12.3f9a0c1d2e4b5a67.jpg）内容永不改变，按 immutable 长期缓存；
+     * 旧格式文件名每次通过 ETag 重新验证。支持条件请求(304)和单区间 Range 请求(206，无法解析的 Range 忽略)，
+     * 文件内容优先交给 Tomcat sendfile 零拷贝发送，否则使用 FileChannel.transferTo
      * 
      * @param fileName 要获取的图片文件名，包含扩展名
-     * @return 包含图片资源的HTTP响应，如果图片不存在则返回404
+     * @param request  HTTP请求
+     * @param response HTTP响应，图片不存在时返回404
      */
     @GetMapping("/{fileName:.+}")
-    public ResponseEntity<Resource> getImage(@PathVariable String fileName) {
+    public void getImage(@PathVariable String fileName, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         try {
-            // 构建完整的文件路径
-            String filePath = uploadDir + fileName;
-            File file = new File(filePath);
+            // 构建完整的文件路径（拒绝路径穿越）
+            File file = resolveFile(fileName);
             
             // 检查文件是否存在
-            if (!file.exists()) {
-                return ResponseEntity.notFound().build();  // 返回404 Not Found
+            if (file == null || !file.isFile()) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);  // 返回404 Not Found
+                return;
             }
             
-            // 创建文件资源
-            Resource resource = new FileSystemResource(file);
+            long length = file.length();
+            long lastModified = file.lastModified();
+            boolean versioned = VERSIONED_NAME.matcher(fileName).matches();
+            // 版本化文件名直接用名字中的内容哈希作 ETag，文件被 touch 或复制后不变；其余按修改时间和长度
+            String etag = versioned
+                    ? "\"" + fileName.substring(fileName.indexOf('.') + 1, fileName.lastIndexOf('.')) + "\""
+                    : "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
             
-            // 设置响应头，禁用缓存
-            HttpHeaders headers = new HttpHeaders();
-            headers.setCacheControl("no-cache, no-store, must-revalidate");  // 禁止缓存
-            headers.setPragma("no-cache");  // 兼容HTTP 1.0
-            headers.setExpires(0L);  // 设置过期时间为0
+            // 设置缓存策略：版本化文件名长期缓存，其余每次协商
+            if (versioned) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+            } else {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            }
+            
+            // 条件请求：ETag / Last-Modified 未变化时直接返回304
+            if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+                return;
+            }
             
             // 根据文件扩展名设置Content-Type
-            String contentType = getContentType(fileName);
-            headers.setContentType(MediaType.parseMediaType(contentType));
+            response.setContentType(getContentType(fileName));
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
             
-            // 返回带有适当头信息的资源
-            return ResponseEntity.ok()
-                    .headers(headers)
-                    .body(resource);
+            // 解析 Range 请求头（仅支持单区间，多区间时返回完整内容）
+            // 无法解析的 Range 按 RFC 7233 忽略并返回完整内容，只有格式正确但无法满足的区间返回416
+            long start = 0;
+            long end = length - 1;
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            if (rangeHeader != null && length > 0 && isIfRangeSatisfied(request, etag, lastModified)) {
+                List<HttpRange> ranges;
+                try {
+                    ranges = HttpRange.parseRanges(rangeHeader);
+                } catch (IllegalArgumentException e) {
+                    ranges = Collections.emptyList();
+                }
+                if (ranges.size() == 1 && rangeStart(ranges.get(0), length) >= length) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                if (ranges.size() == 1) {
+                    start = rangeStart(ranges.get(0), length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+            
+            long count = end - start + 1;
+            response.setContentLengthLong(Math.max(count, 0));
+            if ("HEAD".equals(request.getMethod()) || count <= 0) {
+                return;
+            }
+            
+            // 容器支持 sendfile 时交给容器在请求结束后零拷贝发送
+            if (count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, out);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
                     
         } catch (Exception e) {
-            // 处理异常情况，返回500错误
-            return ResponseEntity.internalServerError().build();  // 返回500 Internal Server Error
+            // 处理异常情况，返回500错误（已开始输出时无法再修改状态码）
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);  // 返回500 Internal Server Error
+            }
+        }
+    }
+
+    /**
+     * If-Range 与当前 ETag / 修改时间一致时才按区间返回，否则返回完整内容
+     */
+    private boolean isIfRangeSatisfied(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 区间起点；后缀区间（bytes=-N）超过文件长度时从0开始
+     */
+    private long rangeStart(HttpRange range, long length) {
+        try {
+            return range.getRangeStart(length);
+        } catch (IllegalArgumentException e) {
+            return length;
         }
     }
+
+    /**
+     * 解析图片文件，拒绝包含路径分隔符或上级目录的文件名
+     */
+    private File resolveFile(String fileName) {
+        if (fileName.contains("/") || fileName.contains("\\") || fileName.contains("..")) {
+            return null;
+        }
+        return new File(uploadDir + fileName);
+    }
     
     /**
      * 根据文件扩展名获取对应的MIME Content-Type
@@ -88,7 +224,8 @@ public class ImageController {
      */
     private String getContentType(String fileName) {
         // 提取文件扩展名并转换为小写
-        String extension = fileName.substring(fileName.lastIndexOf(".")).toLowerCase();
+        int dot = fileName.lastIndexOf(".");
+        String extension = dot >= 0 ? fileName.substring(dot).toLowerCase() : "";
         // 根据扩展名返回对应的MIME类型
         switch (extension) {
             case ".jpg":
@@ -109,9 +246,10 @@ public class ImageController {
 
     /**
      * 获取缩略图（压缩后的图片，减少流量消耗）
+     * 缩略图预先生成并缓存，响应携带 ETag / Last-Modified，浏览器带条件请求时返回 304
      * 
      * @param fileName 图片文件名
-     * @param size 缩略图尺寸（默认80像素）
+     * @param size 缩略图尺寸（默认80像素，归并到最接近的预设尺寸）
      * @return 压缩后的缩略图
      */
     @GetMapping("/thumb/{fileName:.+}")
@@ -119,56 +257,40 @@ public class ImageController {
             @PathVariable String fileName,
             @RequestParam(defaultValue = "80") int size) {
         try {
-            String filePath = uploadDir + fileName;
-            File file = new File(filePath);
-            
-            if (!file.exists()) {
+            ThumbnailDTO thumbnail = thumbnailService.getThumbnail(fileName, size);
+            if (thumbnail == null) {
                 return ResponseEntity.notFound().build();
             }
             
-            // 读取原图
-            BufferedImage originalImage = ImageIO.read(file);
-            if (originalImage == null) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            // 计算缩放比例，保持宽高比
-            int originalWidth = originalImage.getWidth();
-            int originalHeight = originalImage.getHeight();
-            int targetWidth, targetHeight;
-            
-            if (originalWidth > originalHeight) {
-                targetWidth = size;
-                targetHeight = (int) ((double) originalHeight / originalWidth * size);
-            } else {
-                targetHeight = size;
-                targetWidth = (int) ((double) originalWidth / originalHeight * size);
-            }
-            
-            // 生成缩略图
-            BufferedImage thumbnail = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g2d = thumbnail.createGraphics();
-            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-            g2d.drawImage(originalImage, 0, 0, targetWidth, targetHeight, null);
-            g2d.dispose();
-            
-            // 转换为字节数组
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(thumbnail, "jpg", baos);
-            byte[] imageBytes = baos.toByteArray();
-            
             // 设置响应头，允许缓存缩略图
             HttpHeaders headers = new HttpHeaders();
             headers.setCacheControl("max-age=86400");  // 缓存24小时
             headers.setContentType(MediaType.IMAGE_JPEG);
-            headers.setContentLength(imageBytes.length);
+            headers.setContentLength(thumbnail.getData().length);
+            headers.setETag(thumbnail.getEtag());
+            headers.setLastModified(thumbnail.getLastModified());
             
             return ResponseEntity.ok()
                     .headers(headers)
-                    .body(new ByteArrayResource(imageBytes));
+                    .body(new ByteArrayResource(thumbnail.getData()));
                     
+        } catch (BusinessException e) {
+            // 解码并发已满，提示客户端稍后重试
+            return ResponseEntity.status(e.getCode())
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 获取缩略图缓存统计信息
+     * 
+     * @return 缓存条目数、字节数、命中与生成次数等
+     */
+    @GetMapping("/thumb-stats")
+    public ResponseEntity<ApiResponse> getThumbnailStats() {
+        return ResponseEntity.ok(ApiResponse.success(thumbnailService.getStats()));
+    }
+}
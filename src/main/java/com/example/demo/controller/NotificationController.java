@@ -1,91 +1,51 @@
 package com.example.demo.controller;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.service.impl.NotificationHub;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import javax.servlet.http.HttpServletRequest;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * SSE 实时通知控制器
- * 用于向客户端推送订单状态变更等通知
+ * 用于向客户端推送订单状态变更等通知，连接管理和发送由 NotificationHub 负责
  */
 @RestController
 @RequestMapping("/api/notifications")
 public class NotificationController {
 
-    // 存储所有连接的客户端 SSE Emitter
-    private static final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+    @Autowired
+    private NotificationHub notificationHub;
 
     /**
      * 客户端订阅通知
-     * @param userId 用户ID（可选，用于定向推送）
+     * 用户身份取自认证Token（EventSource 无法设置请求头，可通过 token 查询参数传递）
+     * 断线重连时浏览器自动携带 Last-Event-ID 头，服务端补发错过的通知（也可用 lastEventId 查询参数指定）
+     * @param topics 订阅的主题，逗号分隔（如 module:order,order:12），不传则接收全部通知
      * @return SSE Emitter
      */
     @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribe(@RequestParam(required = false, defaultValue = "anonymous") String userId) {
-        // 30分钟超时
-        SseEmitter emitter = new SseEmitter(30 * 60 * 1000L);
-        
-        String clientId = userId + "_" + System.currentTimeMillis();
-        emitters.put(clientId, emitter);
-
-        // 发送连接成功消息
-        try {
-            emitter.send(SseEmitter.event()
-                    .name("connect")
-                    .data("{\"status\":\"connected\",\"clientId\":\"" + clientId + "\"}"));
-        } catch (IOException e) {
-            emitters.remove(clientId);
-        }
-
-        // 设置回调
-        emitter.onCompletion(() -> emitters.remove(clientId));
-        emitter.onTimeout(() -> emitters.remove(clientId));
-        emitter.onError(e -> emitters.remove(clientId));
-
-        return emitter;
-    }
-
-    /**
-     * 向所有客户端广播通知
-     * @param type 通知类型（如 order_status_change）
-     * @param message 通知内容
-     */
-    public static void broadcast(String type, String message) {
-        emitters.forEach((clientId, emitter) -> {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name(type)
-                        .data(message));
-            } catch (IOException e) {
-                emitters.remove(clientId);
-            }
-        });
-    }
-
-    /**
-     * 向指定用户推送通知
-     * @param userId 用户ID前缀
-     * @param type 通知类型
-     * @param message 通知内容
-     */
-    public static void sendToUser(String userId, String type, String message) {
-        emitters.forEach((clientId, emitter) -> {
-            if (clientId.startsWith(userId + "_")) {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name(type)
-                            .data(message));
-                } catch (IOException e) {
-                    emitters.remove(clientId);
+    public SseEmitter subscribe(HttpServletRequest request,
+                                @RequestParam(required = false) String topics,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        String userKey = NotificationHub.userKey((String) request.getAttribute("role"), (Long) request.getAttribute("userId"));
+        List<String> topicList = new ArrayList<>();
+        if (topics != null) {
+            for (String topic : topics.split(",")) {
+                if (!topic.trim().isEmpty()) {
+                    topicList.add(topic.trim());
                 }
             }
-        });
+        }
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return notificationHub.subscribe(userKey, topicList, parseEventId(lastEventId));
     }
 
     /**
@@ -93,7 +53,15 @@ public class NotificationController {
      */
     @GetMapping("/connections")
     public ApiResponse getConnectionCount() {
-        return ApiResponse.success(emitters.size());
+        return ApiResponse.success(notificationHub.getConnectionCount());
+    }
+
+    /**
+     * 获取通知中心统计信息（队列深度、发送耗时、合并与丢弃数量等）
+     */
+    @GetMapping("/stats")
+    public ApiResponse getStats() {
+        return ApiResponse.success(notificationHub.getStats());
     }
 
     /**
@@ -103,7 +71,21 @@ public class NotificationController {
     public ApiResponse testNotification(@RequestBody Map<String, String> payload) {
         String type = payload.getOrDefault("type", "test");
         String message = payload.getOrDefault("message", "{\"content\":\"测试通知\"}");
-        broadcast(type, message);
-        return ApiResponse.success("通知已发送到 " + emitters.size() + " 个客户端");
+        notificationHub.broadcast(type, message);
+        return ApiResponse.success("通知已发送到 " + notificationHub.getConnectionCount() + " 个客户端");
+    }
+
+    /**
+     * 解析事件ID，格式不正确时视为没有（按新连接处理）
+     */
+    private Long parseEventId(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
@@ -1,6 +1,9 @@
 package com.example.demo.controller;
 
+import com.example.demo.aspect.LogOverheadStats;
 import com.example.demo.common.ApiResponse;
+import com.example.demo.dto.CursorPageDTO;
+import com.example.demo.dto.OperationLogSummaryDTO;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.service.OperationLogService;
 import com.github.pagehelper.PageInfo;
@@ -8,6 +11,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 /**
  * 操作日志控制器
  * 提供日志查询相关的REST API接口
@@ -19,19 +24,23 @@ public class OperationLogController {
     @Autowired
     private OperationLogService operationLogService;
 
+    @Autowired
+    private LogOverheadStats logOverheadStats;
+
     /**
      * 分页查询日志
+     * 列表只返回摘要字段，请求参数、修改前后数据等大字段通过 /api/logs/{id} 获取
      * 
      * @param pageNum  页码（默认1）
      * @param pageSize 每页数量（默认20）
-     * @return 分页日志数据
+     * @return 分页日志摘要
      */
     @GetMapping
     public ResponseEntity<ApiResponse> getLogs(
             @RequestParam(defaultValue = "1") int pageNum,
             @RequestParam(defaultValue = "20") int pageSize
     ) {
-        PageInfo<OperationLog> pageInfo = operationLogService.findByPage(pageNum, pageSize);
+        PageInfo<OperationLogSummaryDTO> pageInfo = operationLogService.findByPage(pageNum, pageSize);
         return ResponseEntity.ok(ApiResponse.success(pageInfo));
     }
 
@@ -45,7 +54,8 @@ public class OperationLogController {
      * @param endTime   结束时间
      * @param pageNum   页码
      * @param pageSize  每页数量
-     * @return 分页日志数据
+     * @param estimateTotal 是否使用估算总数（不执行 COUNT(*)，默认false）
+     * @return 分页日志摘要
      */
     @GetMapping("/search")
     public ResponseEntity<ApiResponse> searchLogs(
@@ -55,16 +65,74 @@ public class OperationLogController {
             @RequestParam(required = false) String startTime,
             @RequestParam(required = false) String endTime,
             @RequestParam(defaultValue = "1") int pageNum,
-            @RequestParam(defaultValue = "20") int pageSize
+            @RequestParam(defaultValue = "20") int pageSize,
+            @RequestParam(defaultValue = "false") boolean estimateTotal
     ) {
-        PageInfo<OperationLog> pageInfo = operationLogService.findByCondition(
-                username, module, action, startTime, endTime, pageNum, pageSize
+        PageInfo<OperationLogSummaryDTO> pageInfo = operationLogService.findByCondition(
+                username, module, action, startTime, endTime, pageNum, pageSize, estimateTotal
         );
         return ResponseEntity.ok(ApiResponse.success(pageInfo));
     }
 
     /**
-     * 查询日志详情
+     * 游标分页条件查询日志，按 (create_time, id) 倒序
+     * 翻页深度不影响查询速度，下一页使用返回的 nextKey 作为 after 参数
+     * 
+     * @param username  用户名（模糊查询）
+     * @param module    模块名称
+     * @param action    操作类型
+     * @param startTime 开始时间
+     * @param endTime   结束时间
+     * @param after     上一页返回的 nextKey，首页不传
+     * @param limit     每页数量（默认20，最大200）
+     * @param withTotal 是否返回估算总数（默认false）
+     * @return 游标分页日志摘要
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse> searchLogsByCursor(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal
+    ) {
+        CursorPageDTO<OperationLogSummaryDTO> page = operationLogService.findByCursor(
+                username, module, action, startTime, endTime, after, limit, withTotal
+        );
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 获取日志写入器统计信息（队列深度、刷新耗时、丢弃数量等）
+     * 
+     * @return 统计信息
+     */
+    @GetMapping("/writer-stats")
+    public ResponseEntity<ApiResponse> getWriterStats() {
+        Map<String, Object> stats = operationLogService.getWriterStats();
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * 获取日志切面在各接口上的额外耗时（不含业务方法本身）
+     * 
+     * @param reset 是否在返回后清空统计
+     * @return 各接口的调用次数、平均/最大额外耗时
+     */
+    @GetMapping("/aspect-stats")
+    public ResponseEntity<ApiResponse> getAspectStats(@RequestParam(defaultValue = "false") boolean reset) {
+        Map<String, Object> stats = logOverheadStats.getStats();
+        if (reset) {
+            logOverheadStats.reset();
+        }
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * 查询日志详情（包含全部字段）
      * 
      * @param id 日志ID
      * @return 日志详情
@@ -4,11 +4,13 @@ import com.example.demo.annotation.Log;
 import com.example.demo.common.ApiResponse;
 import com.example.demo.entity.Order;
 import com.example.demo.service.OrderService;
+import com.example.demo.service.impl.NotificationHub;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -30,6 +32,13 @@ public class OrderController {
     @Autowired
     private ObjectMapper objectMapper;
 
+    /**
+     * SSE 通知中心
+     * 数据变更后异步推送同步通知
+     */
+    @Autowired
+    private NotificationHub notificationHub;
+
     /**
      * 根据ID获取单个订单
      * 
@@ -96,7 +105,7 @@ public class OrderController {
                 oldStatus != null ? oldStatus : "",
                 orderJson
             );
-            NotificationController.broadcast("order_sync", message);
+            notificationHub.publish(Arrays.asList("module:order", "order:" + id), "order_sync", message, String.valueOf(id));
         } catch (Exception e) {
             // 序列化失败不影响主流程
         }
@@ -2,17 +2,23 @@ package com.example.demo.controller;
 
 import com.example.demo.annotation.Log;
 import com.example.demo.common.ApiResponse;
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.DeleteResultDTO;
+import com.example.demo.dto.SampleQueryDTO;
 import com.example.demo.entity.Sample;
 import com.example.demo.service.SampleService;
+import com.example.demo.service.impl.NotificationHub;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.pagehelper.PageInfo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -35,6 +41,13 @@ public class SampleController {
     @Autowired
     private ObjectMapper objectMapper;
 
+    /**
+     * SSE 通知中心
+     * 数据变更后异步推送同步通知
+     */
+    @Autowired
+    private NotificationHub notificationHub;
+
     /**
      * 根据ID获取单个样品信息
      * 
@@ -81,6 +94,41 @@ public class SampleController {
         return ResponseEntity.ok(ApiResponse.success(pageInfo));
     }
 
+    /**
+     * 游标分页获取样品列表，支持按别称/型号/色号前缀和客户过滤
+     * 翻页深度不影响查询速度，下一页使用返回的 nextCursor 作为 after 参数
+     * 
+     * @param query 过滤条件（alias、model、colorCode、customerId）
+     * @param after 上一页返回的 nextCursor，首页不传
+     * @param limit 每页数量（默认20，最大200）
+     * @param withTotal 是否返回近似总数（默认false）
+     * @return 游标分页样品数据
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse> getByCursor(
+            SampleQueryDTO query,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        CursorPageDTO<Sample> page = sampleService.getByCursor(query, after, limit, withTotal);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * 按过滤条件导出样品，以JSON数组流式输出，不在内存中组装完整结果
+     * 
+     * @param query 过滤条件（alias、model、colorCode、customerId）
+     * @return 流式JSON响应
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(SampleQueryDTO query) {
+        StreamingResponseBody body = out -> sampleService.exportSamples(query, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"samples.json\"")
+                .body(body);
+    }
+
     /**
      * 创建新样品，同时支持上传样品图片
      * 使用multipart/form-data格式接收数据
@@ -119,7 +167,7 @@ public class SampleController {
         try {
             String sampleJsonStr = objectMapper.writeValueAsString(updatedSample);
             String message = String.format("{\"action\":\"update\",\"sample\":%s}", sampleJsonStr);
-            NotificationController.broadcast("sample_sync", message);
+            notificationHub.publish(Arrays.asList("module:sample", "sample:" + id), "sample_sync", message, String.valueOf(id));
         } catch (Exception e) {
             // 序列化失败不影响主流程
         }
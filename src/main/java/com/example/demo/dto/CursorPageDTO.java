@@ -0,0 +1,54 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 下一页用 nextCursor 作为 after 参数请求，不依赖 OFFSET，翻页深度不影响查询速度
+ */
+public class CursorPageDTO<T> {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标（当前页最后一条记录的ID），没有更多数据时为null
+     */
+    private Long nextCursor;
+
+    /**
+     * 下一页复合游标（按时间+ID排序的列表使用），没有更多数据时为null
+     */
+    private String nextKey;
+
+    /**
+     * 是否还有更多数据
+     */
+    private boolean hasMore;
+
+    /**
+     * 近似总数（未请求时为null）
+     */
+    private Long approximateTotal;
+
+    public CursorPageDTO() {}
+
+    public CursorPageDTO(List<T> list, Long nextCursor, boolean hasMore) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<T> getList() { return list; }
+    public void setList(List<T> list) { this.list = list; }
+    public Long getNextCursor() { return nextCursor; }
+    public void setNextCursor(Long nextCursor) { this.nextCursor = nextCursor; }
+    public String getNextKey() { return nextKey; }
+    public void setNextKey(String nextKey) { this.nextKey = nextKey; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    public Long getApproximateTotal() { return approximateTotal; }
+    public void setApproximateTotal(Long approximateTotal) { this.approximateTotal = approximateTotal; }
+}
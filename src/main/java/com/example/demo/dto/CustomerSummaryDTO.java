@@ -0,0 +1,46 @@
+package com.example.demo.dto;
+
+import java.util.Date;
+
+/**
+ * 客户摘要
+ * 用于客户列表和下拉选择，只包含地址和联系人数量而不包含明细
+ */
+public class CustomerSummaryDTO {
+
+    /**
+     * 客户ID
+     */
+    private Long id;
+
+    /**
+     * 企业名称
+     */
+    private String companyName;
+
+    /**
+     * 地址数量
+     */
+    private int addressCount;
+
+    /**
+     * 联系人数量
+     */
+    private int contactCount;
+
+    /**
+     * 最后更新时间
+     */
+    private Date updateTime;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getCompanyName() { return companyName; }
+    public void setCompanyName(String companyName) { this.companyName = companyName; }
+    public int getAddressCount() { return addressCount; }
+    public void setAddressCount(int addressCount) { this.addressCount = addressCount; }
+    public int getContactCount() { return contactCount; }
+    public void setContactCount(int contactCount) { this.contactCount = contactCount; }
+    public Date getUpdateTime() { return updateTime; }
+    public void setUpdateTime(Date updateTime) { this.updateTime = updateTime; }
+}
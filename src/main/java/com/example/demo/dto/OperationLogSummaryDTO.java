@@ -0,0 +1,112 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Date;
+
+/**
+ * 操作日志摘要
+ * 用于日志列表，只包含窄列；请求参数、修改前后数据、响应数据和错误信息等大字段通过日志详情获取
+ */
+public class OperationLogSummaryDTO {
+
+    /**
+     * 日志ID
+     */
+    private Long id;
+
+    /**
+     * 操作人ID
+     */
+    private Long userId;
+
+    /**
+     * 操作人姓名
+     */
+    private String operatorName;
+
+    /**
+     * 操作人角色
+     */
+    private String role;
+
+    /**
+     * 模块名称
+     */
+    private String module;
+
+    /**
+     * 操作类型
+     */
+    private String action;
+
+    /**
+     * 操作描述
+     */
+    private String description;
+
+    /**
+     * 请求方式
+     */
+    private String requestMethod;
+
+    /**
+     * 请求地址
+     */
+    private String requestUrl;
+
+    /**
+     * IP地址
+     */
+    private String ipAddress;
+
+    /**
+     * 状态：1成功 0失败
+     */
+    private Integer status;
+
+    /**
+     * 执行时长(毫秒)
+     */
+    private Long duration;
+
+    /**
+     * 操作时间
+     */
+    private Date createTime;
+
+    /**
+     * 操作时间（微秒时间戳），只在游标分页中查询，用于生成游标，不返回给前端
+     */
+    @JsonIgnore
+    private Long createMicros;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getOperatorName() { return operatorName; }
+    public void setOperatorName(String operatorName) { this.operatorName = operatorName; }
+    public String getRole() { return role; }
+    public void setRole(String role) { this.role = role; }
+    public String getModule() { return module; }
+    public void setModule(String module) { this.module = module; }
+    public String getAction() { return action; }
+    public void setAction(String action) { this.action = action; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public String getRequestMethod() { return requestMethod; }
+    public void setRequestMethod(String requestMethod) { this.requestMethod = requestMethod; }
+    public String getRequestUrl() { return requestUrl; }
+    public void setRequestUrl(String requestUrl) { this.requestUrl = requestUrl; }
+    public String getIpAddress() { return ipAddress; }
+    public void setIpAddress(String ipAddress) { this.ipAddress = ipAddress; }
+    public Integer getStatus() { return status; }
+    public void setStatus(Integer status) { this.status = status; }
+    public Long getDuration() { return duration; }
+    public void setDuration(Long duration) { this.duration = duration; }
+    public Date getCreateTime() { return createTime; }
+    public void setCreateTime(Date createTime) { this.createTime = createTime; }
+    public Long getCreateMicros() { return createMicros; }
+    public void setCreateMicros(Long createMicros) { this.createMicros = createMicros; }
+}
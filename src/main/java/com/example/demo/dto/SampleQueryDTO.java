@@ -0,0 +1,74 @@
+package com.example.demo.dto;
+
+/**
+ * 样品列表查询条件
+ * 别称、型号、色号按前缀匹配（可使用 varchar_pattern_ops 索引），客户按ID精确匹配
+ */
+public class SampleQueryDTO {
+
+    /**
+     * 别称前缀
+     */
+    private String alias;
+
+    /**
+     * 型号前缀
+     */
+    private String model;
+
+    /**
+     * 色号前缀
+     */
+    private String colorCode;
+
+    /**
+     * 客户ID
+     */
+    private Long customerId;
+
+    public String getAlias() { return alias; }
+    public void setAlias(String alias) { this.alias = alias; }
+    public String getModel() { return model; }
+    public void setModel(String model) { this.model = model; }
+    public String getColorCode() { return colorCode; }
+    public void setColorCode(String colorCode) { this.colorCode = colorCode; }
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+
+    /**
+     * 供 Mapper 使用的 LIKE 前缀模式，用户输入中的通配符按字面匹配
+     */
+    public String getAliasPattern() { return prefixPattern(alias); }
+    public String getModelPattern() { return prefixPattern(model); }
+    public String getColorCodePattern() { return prefixPattern(colorCode); }
+
+    /**
+     * 是否没有任何过滤条件
+     */
+    public boolean isEmpty() {
+        return isBlank(alias) && isBlank(model) && isBlank(colorCode) && customerId == null;
+    }
+
+    /**
+     * 总数缓存的键
+     */
+    public String cacheKey() {
+        return trim(alias) + "\u0000" + trim(model) + "\u0000" + trim(colorCode) + "\u0000" + customerId;
+    }
+
+    private static String prefixPattern(String value) {
+        if (isBlank(value)) {
+            return null;
+        }
+        String escaped = value.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return escaped + "%";
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static String trim(String value) {
+        return isBlank(value) ? "" : value.trim();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+/**
+ * 缩略图DTO
+ * 包含缩略图字节和用于HTTP缓存校验的 ETag / Last-Modified
+ */
+public class ThumbnailDTO {
+
+    /**
+     * JPEG 图片字节
+     */
+    private final byte[] data;
+
+    /**
+     * 实体标签（由原图修改时间、大小和缩略图尺寸决定）
+     */
+    private final String etag;
+
+    /**
+     * 原图最后修改时间（毫秒时间戳）
+     */
+    private final long lastModified;
+
+    public ThumbnailDTO(byte[] data, String etag, long lastModified) {
+        this.data = data;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public byte[] getData() { return data; }
+    public String getEtag() { return etag; }
+    public long getLastModified() { return lastModified; }
+}
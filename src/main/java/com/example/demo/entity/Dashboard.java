@@ -1,8 +1,14 @@
 package com.example.demo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.List;
 import java.util.Map;
 
+/**
+ * 仪表盘数据
+ * 由仪表盘服务作为共享快照返回给所有调用方：列表和Map不可修改，setter只供计算快照时使用
+ */
 public class Dashboard {
     private Double totalPendingAmount;
     private Integer recentOrderCount;
@@ -14,6 +20,8 @@ public class Dashboard {
     private List<OrderProduct> pendingProducts;
     private List<OrderProduct> producingProducts;
     private List<OrderProduct> shippingProducts;
+    // 各产品分类的订单总数（pending/producing/shipping），列表只包含前几条
+    private Map<String, Integer> productCounts;
 
     private List<Employee> employees;
 
@@ -33,16 +41,24 @@ public class Dashboard {
     public void setProducingProducts(List<OrderProduct> producingProducts) { this.producingProducts = producingProducts; }
     public List<OrderProduct> getShippingProducts() { return shippingProducts; }
     public void setShippingProducts(List<OrderProduct> shippingProducts) { this.shippingProducts = shippingProducts; }
+    public Map<String, Integer> getProductCounts() { return productCounts; }
+    public void setProductCounts(Map<String, Integer> productCounts) { this.productCounts = productCounts; }
     public List<Employee> getEmployees() { return employees; }
     public void setEmployees(List<Employee> employees) { this.employees = employees; }
 
     public static class OrderProduct {
+        private Long id;
         private String orderNumber;
         private String model;
         private String color;
         private Integer quantity;
         private String customer;
+        // 下单时间（微秒时间戳），只用于生成分页游标，不返回给前端
+        @JsonIgnore
+        private Long createMicros;
 
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
         public String getOrderNumber() { return orderNumber; }
         public void setOrderNumber(String orderNumber) { this.orderNumber = orderNumber; }
         public String getModel() { return model; }
@@ -53,6 +69,8 @@ public class Dashboard {
         public void setQuantity(Integer quantity) { this.quantity = quantity; }
         public String getCustomer() { return customer; }
         public void setCustomer(String customer) { this.customer = customer; }
+        public Long getCreateMicros() { return createMicros; }
+        public void setCreateMicros(Long createMicros) { this.createMicros = createMicros; }
     }
 
     public static class Employee {
@@ -0,0 +1,12 @@
+package com.example.demo.entity;
+
+/**
+ * 样品图片处理状态
+ * 上传后图片在后台处理，前端可轮询该状态
+ */
+public enum ImageStatus {
+    NONE,        // 无图片
+    PROCESSING,  // 后台处理中
+    READY,       // 处理完成，可访问
+    FAILED       // 处理失败（格式不合法等）
+}
@@ -0,0 +1,46 @@
+package com.example.demo.entity;
+
+/**
+ * 仪表盘产品分类
+ * 每个分类对应一组订单状态，前端按分类分页加载产品列表
+ */
+public enum ProductBucket {
+    PENDING("pending", "PENDING"),                          // 待生产
+    PRODUCING("producing", "IN_PROGRESS", "PRODUCING"),     // 生产中
+    SHIPPING("shipping", "SHIPPED", "READY_TO_SHIP");       // 待发货
+
+    private final String key;
+    private final String[] statuses;
+
+    ProductBucket(String key, String... statuses) {
+        this.key = key;
+        this.statuses = statuses;
+    }
+
+    public String getKey() { return key; }
+    public String[] getStatuses() { return statuses.clone(); }
+
+    /**
+     * 判断订单状态是否属于该分类
+     */
+    public boolean contains(String status) {
+        for (String s : statuses) {
+            if (s.equalsIgnoreCase(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 根据路径中的分类名查找，不存在时返回null
+     */
+    public static ProductBucket fromKey(String key) {
+        for (ProductBucket bucket : values()) {
+            if (bucket.key.equalsIgnoreCase(key)) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+}
@@ -11,6 +11,7 @@ public class Sample {
     private String model;
     private String colorCode;
     private String image;
+    private ImageStatus imageStatus;
     private Integer stock;
     private BigDecimal unitPrice;
     private Date createTime;
@@ -30,6 +31,8 @@ public class Sample {
     public void setColorCode(String colorCode) { this.colorCode = colorCode; }
     public String getImage() { return image; }
     public void setImage(String image) { this.image = image; }
+    public ImageStatus getImageStatus() { return imageStatus; }
+    public void setImageStatus(ImageStatus imageStatus) { this.imageStatus = imageStatus; }
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
     public BigDecimal getUnitPrice() { return unitPrice; }
@@ -4,12 +4,17 @@ import com.example.demo.entity.Admin;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
 @Mapper
 public interface AdminMapper {
     Admin findByUsername(String username);
     
     Admin findById(Long id);
     
+    // 所有管理员姓名（构建操作人内存索引）
+    List<String> selectNames();
+    
     // 更新 token 版本号
     int updateTokenVersion(@Param("id") Long id, @Param("tokenVersion") Integer tokenVersion);
 }
\ No newline at end of file
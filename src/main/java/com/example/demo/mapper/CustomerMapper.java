@@ -1,5 +1,6 @@
 package com.example.demo.mapper;
 
+import com.example.demo.dto.CustomerSummaryDTO;
 import com.example.demo.entity.Customer;
 import com.example.demo.entity.CustomerAddress;
 import com.example.demo.entity.CustomerContact;
@@ -11,15 +12,36 @@ import java.util.List;
 @Mapper
 public interface CustomerMapper {
     Customer getById(@Param("id") Long id);
-    List<Customer> listByCompanyName(@Param("companyName") String companyName);
+    // 客户及其地址、联系人（客户一行，地址、联系人各按客户ID查询一次）
+    Customer getDetailById(@Param("id") Long id);
+    // 名称包含匹配（pattern 为 LIKE 模式）；ids 不为null时改为按ID查询（内存索引已匹配）
+    List<Customer> listByCompanyName(@Param("pattern") String pattern, @Param("ids") Long[] ids, @Param("limit") int limit);
+    // 所有客户的ID和名称（构建内存索引）
+    List<Customer> selectNames();
     int insert(Customer customer);
     int update(Customer customer);
     int delete(@Param("id") Long id);
     List<CustomerAddress> getAddressesByCustomerId(@Param("customerId") Long customerId);
+    // 一次查询多个客户的地址
+    List<CustomerAddress> getAddressesByCustomerIds(@Param("customerIds") Long[] customerIds);
     int insertAddress(CustomerAddress address);
+    // 多行插入地址，回填ID
+    int insertAddresses(@Param("list") List<CustomerAddress> addresses);
+    // 批量更新指定客户的地址
+    int updateAddresses(@Param("customerId") Long customerId, @Param("list") List<CustomerAddress> addresses);
+    int deleteAddressesByIds(@Param("customerId") Long customerId, @Param("ids") Long[] ids);
     int deleteAddressesByCustomerId(@Param("customerId") Long customerId);
     List<CustomerContact> getContactsByCustomerId(@Param("customerId") Long customerId);
+    // 一次查询多个客户的联系人
+    List<CustomerContact> getContactsByCustomerIds(@Param("customerIds") Long[] customerIds);
     int insertContact(CustomerContact contact);
+    // 多行插入联系人，回填ID
+    int insertContacts(@Param("list") List<CustomerContact> contacts);
+    // 批量更新指定客户的联系人
+    int updateContacts(@Param("customerId") Long customerId, @Param("list") List<CustomerContact> contacts);
+    int deleteContactsByIds(@Param("customerId") Long customerId, @Param("ids") Long[] ids);
     int deleteContactsByCustomerId(@Param("customerId") Long customerId);
     List<Customer> selectAll();
-}
\ No newline at end of file
+    // 客户摘要列表（只含地址和联系人数量）
+    List<CustomerSummaryDTO> selectSummaries();
+}
@@ -2,6 +2,7 @@ package com.example.demo.mapper;
 
 import com.example.demo.entity.Dashboard;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -23,14 +24,9 @@ public interface DashboardMapper {
     // 获取订单状态分布
     List<Map<String, Object>> getOrderStatusDistribution();
 
-    // 获取待生产订单产品
-    List<Dashboard.OrderProduct> getPendingProducts();
-
-    // 获取生产中订单产品
-    List<Dashboard.OrderProduct> getProducingProducts();
-
-    // 获取待发货订单产品
-    List<Dashboard.OrderProduct> getShippingProducts();
+    // 按订单状态分页获取订单产品（afterMicros、afterId 为上一页最后一条订单的下单时间微秒时间戳和ID，首页为null）
+    List<Dashboard.OrderProduct> getProducts(@Param("statuses") String[] statuses, @Param("afterMicros") Long afterMicros,
+                                             @Param("afterId") Long afterId, @Param("limit") int limit);
 
     // 获取员工通讯录
     List<Dashboard.Employee> getEmployees();
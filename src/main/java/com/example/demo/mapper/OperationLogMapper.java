@@ -1,5 +1,6 @@
 package com.example.demo.mapper;
 
+import com.example.demo.dto.OperationLogSummaryDTO;
 import com.example.demo.entity.OperationLog;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -18,15 +19,53 @@ public interface OperationLogMapper {
     int insert(OperationLog log);
 
     /**
-     * 查询所有日志（分页由PageHelper处理）
+     * 批量插入日志记录（多行INSERT）
      */
-    List<OperationLog> selectAll();
+    int insertBatch(@Param("list") List<OperationLog> logs);
 
     /**
-     * 根据条件查询日志
+     * 查询所有日志摘要（分页由PageHelper处理）
      */
-    List<OperationLog> selectByCondition(
+    List<OperationLogSummaryDTO> selectAll();
+
+    /**
+     * 根据条件查询日志摘要，startTime 必填（按时间裁剪分区）
+     * operatorName 为包含匹配的 LIKE 模式；operatorNames 不为null时改为按这些姓名等值匹配（内存索引已匹配）
+     */
+    List<OperationLogSummaryDTO> selectByCondition(
+            @Param("operatorName") String operatorName,
+            @Param("operatorNames") String[] operatorNames,
+            @Param("module") String module,
+            @Param("action") String action,
+            @Param("startTime") String startTime,
+            @Param("endTime") String endTime
+    );
+
+    /**
+     * 按 (create_time, id) 游标查询日志摘要，条件同 selectByCondition
+     *
+     * @param afterMicros 上一页最后一条的创建时间（微秒时间戳），首页为null
+     * @param afterId     上一页最后一条的ID，首页为null
+     * @param limit       查询条数
+     */
+    List<OperationLogSummaryDTO> selectCursorPage(
+            @Param("operatorName") String operatorName,
+            @Param("operatorNames") String[] operatorNames,
+            @Param("module") String module,
+            @Param("action") String action,
+            @Param("startTime") String startTime,
+            @Param("endTime") String endTime,
+            @Param("afterMicros") Long afterMicros,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit
+    );
+
+    /**
+     * 条件查询的执行计划（JSON），用于读取估算行数
+     */
+    String explainCountByCondition(
             @Param("operatorName") String operatorName,
+            @Param("operatorNames") String[] operatorNames,
             @Param("module") String module,
             @Param("action") String action,
             @Param("startTime") String startTime,
@@ -34,7 +73,7 @@ public interface OperationLogMapper {
     );
 
     /**
-     * 根据ID查询日志详情
+     * 根据ID查询日志详情（包含全部字段）
      */
     OperationLog selectById(@Param("id") Long id);
 
@@ -52,4 +91,38 @@ public interface OperationLogMapper {
      * 根据操作类型删除日志
      */
     int deleteByAction(@Param("action") String action);
+
+    // ==================== 分区维护 ====================
+
+    /**
+     * operation_log 是否为分区表（未升级的旧库为普通表）
+     */
+    boolean isPartitioned();
+
+    /**
+     * 查询 operation_log 的所有分区表名
+     */
+    List<String> selectPartitionNames();
+
+    /**
+     * 创建分区 [from, to)，已存在时忽略
+     */
+    void createPartition(@Param("name") String name, @Param("from") String from, @Param("to") String to);
+
+    /**
+     * 分区的估算行数（pg_class.reltuples，不扫描分区；未 ANALYZE 过时为0）
+     */
+    long estimatePartitionRows(@Param("name") String name);
+
+    /**
+     * 把分区从 operation_log 上摘除（成为独立的表）
+     *
+     * @param concurrently 使用 DETACH ... CONCURRENTLY（PostgreSQL 14+，不能有兜底分区）
+     */
+    void detachPartition(@Param("name") String name, @Param("concurrently") boolean concurrently);
+
+    /**
+     * 删除表（已摘除的分区）
+     */
+    void dropTable(@Param("name") String name);
 }
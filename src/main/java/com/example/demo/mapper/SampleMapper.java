@@ -1,8 +1,11 @@
 package com.example.demo.mapper;
 
+import com.example.demo.dto.SampleQueryDTO;
+import com.example.demo.entity.ImageStatus;
 import com.example.demo.entity.Sample;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 
@@ -14,6 +17,23 @@ public interface SampleMapper {
 
     int update(Sample sample);
 
+    /**
+     * 写入处理完成的图片路径和状态
+     *
+     * @return 仅包含ID和被替换的旧图片路径；样品不存在时返回null
+     */
+    Sample updateImage(@Param("id") Long id, @Param("image") String image, @Param("imageStatus") ImageStatus imageStatus);
+
+    /**
+     * 更新图片处理状态
+     */
+    int updateImageStatus(@Param("id") Long id, @Param("imageStatus") ImageStatus imageStatus);
+
+    /**
+     * 把处理中的图片状态标记为失败（应用重启后调用）
+     */
+    int failStaleProcessing();
+
     void delete(@Param("id") Long id);
 
     List<Sample> findByNullCustomerId();
@@ -21,6 +41,26 @@ public interface SampleMapper {
     int updateCustomerId(@Param("id") Long id, @Param("customerId") Long customerId);
 
     List<Sample> selectAll();
+
+    /**
+     * 游标分页查询，按ID倒序返回ID小于 after 的最多 limit 条记录
+     */
+    List<Sample> selectPage(@Param("query") SampleQueryDTO query, @Param("after") Long after, @Param("limit") int limit);
+
+    /**
+     * 按查询条件统计精确数量
+     */
+    long countByQuery(@Param("query") SampleQueryDTO query);
+
+    /**
+     * 读取表统计信息中的估算行数，未分析过时返回负数
+     */
+    Long estimateCount();
+
+    /**
+     * 按查询条件流式读取（需在事务内消费）
+     */
+    Cursor<Sample> selectForExport(@Param("query") SampleQueryDTO query);
     
     /**
      * 根据客户ID查询样板数量
@@ -11,6 +11,7 @@ public interface UserMapper {
     User findById(Long id);  // 根据ID查询
     User findByUsername(String username);
     List<User> findAll();
+    List<String> selectNames(); // 所有用户姓名（构建操作人内存索引）
     int insertUser(User user); // 新增用户
     int updateUser(User user); // 修改用户信息
     int deleteUser(Long id); // 删除用户
@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CustomerSummaryDTO;
 import com.example.demo.dto.DeleteResultDTO;
 import com.example.demo.entity.Customer;
 import java.util.List;
@@ -26,6 +27,22 @@ public interface CustomerService {
      */
     List<Customer> listByCompanyName();
 
+    /**
+     * 按公司名称关键字（包含匹配）搜索客户，含地址和联系人
+     * 
+     * @param keyword 名称关键字
+     * @param limit 最多返回数量
+     * @return 匹配的客户列表（按公司名称排序）
+     */
+    List<Customer> searchByCompanyName(String keyword, int limit);
+
+    /**
+     * 获取客户摘要列表（只含地址和联系人数量）
+     * 
+     * @return 客户摘要列表
+     */
+    List<CustomerSummaryDTO> listSummaries();
+
     /**
      * 保存新客户信息
      * 
@@ -1,7 +1,10 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.entity.Dashboard;
 
+import java.util.Map;
+
 /**
  * 仪表盘服务接口
  * 提供系统概览数据相关的业务逻辑
@@ -12,8 +15,39 @@ public interface DashboardService {
     /**
      * 获取系统仪表盘数据
      * 包括客户数量、样品数量、订单数量等系统概览数据
+     * 返回的是所有调用方共享的快照，调用方不得调用其setter或修改其中的产品、员工对象
      * 
-     * @return 仪表盘数据对象
+     * @return 仪表盘数据对象（只读）
      */
     Dashboard getDashboard();
+
+    /**
+     * 按产品分类分页获取订单产品（实时查询，不走快照）
+     * 
+     * @param bucket 分类：pending / producing / shipping
+     * @param after 上一页返回的 nextKey（"下单时间微秒时间戳_ID"），首页为null
+     * @param limit 每页数量
+     * @return 游标分页数据
+     */
+    CursorPageDTO<Dashboard.OrderProduct> getProducts(String bucket, String after, int limit);
+
+    /**
+     * 获取当前快照的年龄
+     * 
+     * @return 距离快照计算完成的毫秒数，尚未计算时返回-1
+     */
+    long getSnapshotAgeMillis();
+
+    /**
+     * 请求刷新快照
+     * 业务数据变更后调用，短时间内的多次请求合并为一次刷新
+     */
+    void requestRefresh();
+
+    /**
+     * 获取快照状态（计算时间、年龄、刷新耗时和次数）
+     * 
+     * @return 快照状态
+     */
+    Map<String, Object> getSnapshotStatus();
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.demo.service;
 
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * 文件处理服务接口
@@ -12,14 +13,26 @@ public interface FileService {
     
     /**
      * 保存上传的文件到服务器
+     * 实际文件名会在扩展名前加入内容哈希
      * 
      * @param file 上传的文件对象
-     * @param fileName 保存的文件名
+     * @param fileName 保存的基础文件名
      * @return 保存后的文件访问路径
      * @throws IOException 文件操作异常
      */
     String saveFile(MultipartFile file, String fileName) throws IOException;
     
+    /**
+     * 将本地文件移动到上传目录保存
+     * 文件名规则与上传文件相同
+     * 
+     * @param source 本地文件路径，保存成功后源文件被移走
+     * @param fileName 保存的基础文件名
+     * @return 保存后的文件访问路径
+     * @throws IOException 文件操作异常
+     */
+    String saveFile(Path source, String fileName) throws IOException;
+    
     /**
      * 删除服务器上的文件
      * 
@@ -0,0 +1,37 @@
+package com.example.demo.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 样品图片后台处理服务接口
+ * 上传请求只负责把图片落到暂存目录，校验、清理元数据、缩放、生成缩略图和入库都在后台完成
+ */
+public interface ImageProcessingService {
+
+    /**
+     * 把上传的图片移动到暂存目录（不在内存中缓冲整个文件）
+     *
+     * @param image 上传的图片
+     * @return 暂存文件路径
+     * @throws IOException 文件操作异常
+     */
+    Path stage(MultipartFile image) throws IOException;
+
+    /**
+     * 提交后台处理，完成后更新样品的图片路径和处理状态
+     *
+     * @param sampleId 样品ID
+     * @param staged   暂存文件路径，处理结束后删除
+     */
+    void process(Long sampleId, Path staged);
+
+    /**
+     * 删除暂存文件（样品入库失败时调用）
+     *
+     * @param staged 暂存文件路径
+     */
+    void discard(Path staged);
+}
@@ -1,8 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPageDTO;
+import com.example.demo.dto.OperationLogSummaryDTO;
 import com.example.demo.entity.OperationLog;
 import com.github.pagehelper.PageInfo;
 
+import java.util.Map;
+
 /**
  * 操作日志服务接口
  */
@@ -14,25 +18,46 @@ public interface OperationLogService {
     void save(OperationLog log);
 
     /**
-     * 分页查询日志
+     * 分页查询日志摘要
      */
-    PageInfo<OperationLog> findByPage(int pageNum, int pageSize);
+    PageInfo<OperationLogSummaryDTO> findByPage(int pageNum, int pageSize);
 
     /**
-     * 条件分页查询日志
+     * 条件分页查询日志摘要
+     *
+     * @param estimateTotal 为true时不执行 COUNT(*)，总数使用执行计划的估算值
      */
-    PageInfo<OperationLog> findByCondition(
+    PageInfo<OperationLogSummaryDTO> findByCondition(
             String username,
             String module,
             String action,
             String startTime,
             String endTime,
             int pageNum,
-            int pageSize
+            int pageSize,
+            boolean estimateTotal
     );
 
     /**
-     * 根据ID查询日志详情
+     * 游标分页条件查询日志摘要，按 (create_time, id) 倒序
+     *
+     * @param after     上一页返回的 nextKey，首页为null
+     * @param limit     每页数量
+     * @param withTotal 是否返回估算总数
+     */
+    CursorPageDTO<OperationLogSummaryDTO> findByCursor(
+            String username,
+            String module,
+            String action,
+            String startTime,
+            String endTime,
+            String after,
+            int limit,
+            boolean withTotal
+    );
+
+    /**
+     * 根据ID查询日志详情（包含请求参数、修改前后数据等大字段）
      */
     OperationLog findById(Long id);
 
@@ -45,4 +70,9 @@ public interface OperationLogService {
      * 清除所有登录日志
      */
     int cleanLoginLogs();
+
+    /**
+     * 获取日志批量写入器的统计信息
+     */
+    Map<String, Object> getWriterStats();
 }
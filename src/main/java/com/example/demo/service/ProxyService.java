@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 第三方API代理服务接口
+ * 所有调用都是异步的，不占用请求线程等待上游响应；
+ * 上游超时、并发超限、返回错误状态码时返回的 Future 以 BusinessException 失败
+ */
+public interface ProxyService {
+
+    /**
+     * 获取实时天气（高德），按城市缓存
+     *
+     * @param city 城市编码，为null时使用默认城市
+     * @return 上游返回的JSON
+     */
+    CompletableFuture<Map<String, Object>> getWeather(String city);
+
+    /**
+     * 获取日历信息，按日期缓存
+     *
+     * @param date 日期，为null时为当天
+     * @return 上游返回的JSON
+     */
+    CompletableFuture<Map<String, Object>> getCalendar(String date);
+
+    /**
+     * 获取百度OCR的access_token
+     * 有效期内直接返回缓存的token，到期前在后台提前刷新
+     *
+     * @return access_token
+     */
+    CompletableFuture<String> getOcrToken();
+
+    /**
+     * 百度OCR文字识别（高精度版）
+     *
+     * @param image 图片的Base64编码
+     * @return 上游返回的JSON
+     */
+    CompletableFuture<Map<String, Object>> recognize(String image);
+
+    /**
+     * 获取各上游的调用统计（进行中、被拒绝、失败数量）和缓存命中率
+     */
+    Map<String, Object> getStats();
+}
@@ -1,10 +1,14 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.DeleteResultDTO;
+import com.example.demo.dto.SampleQueryDTO;
 import com.example.demo.entity.Sample;
 import com.github.pagehelper.PageInfo;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -29,6 +33,25 @@ public interface SampleService {
      */
     PageInfo<Sample> getByPage(int pageNum, int pageSize);
 
+    /**
+     * 游标分页获取样品列表
+     * 
+     * @param query 过滤条件
+     * @param after 上一页最后一条记录的ID，为null时从第一页开始
+     * @param limit 每页数量
+     * @param withTotal 是否返回近似总数
+     * @return 游标分页数据
+     */
+    CursorPageDTO<Sample> getByCursor(SampleQueryDTO query, Long after, int limit, boolean withTotal);
+
+    /**
+     * 按过滤条件把样品以JSON数组流式写出
+     * 
+     * @param query 过滤条件
+     * @param out 输出流
+     */
+    void exportSamples(SampleQueryDTO query, OutputStream out) throws IOException;
+
     /**
      * 根据ID获取样品详细信息
      * 
@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ThumbnailDTO;
+
+import java.util.Map;
+
+/**
+ * 缩略图服务接口
+ * 负责缩略图的生成、持久化、内存缓存与失效
+ */
+public interface ThumbnailService {
+
+    /**
+     * 获取指定图片的缩略图
+     * 请求尺寸会归并到最接近的预设尺寸
+     *
+     * @param fileName 原图文件名
+     * @param size     请求的缩略图尺寸（像素）
+     * @return 缩略图，原图不存在或无法解码时返回 null
+     */
+    ThumbnailDTO getThumbnail(String fileName, int size);
+
+    /**
+     * 同步生成所有预设尺寸的缩略图（已生成且未过期时跳过）
+     *
+     * @param fileName 原图文件名
+     * @return 是否生成成功
+     */
+    boolean generate(String fileName);
+
+    /**
+     * 异步预生成所有预设尺寸的缩略图（上传图片后调用）
+     *
+     * @param fileName 原图文件名
+     */
+    void pregenerate(String fileName);
+
+    /**
+     * 使指定图片的所有缩略图失效（删除磁盘文件和内存缓存）
+     *
+     * @param fileName 原图文件名
+     */
+    void invalidate(String fileName);
+
+    /**
+     * 获取缓存统计信息
+     */
+    Map<String, Object> getStats();
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.config.PrincipalCache;
 import com.example.demo.entity.Admin;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.mapper.AdminMapper;
@@ -33,6 +34,13 @@ public class AdminLoginServiceImpl implements AdminLoginService {
     @Autowired
     private OperationLogService operationLogService;
 
+    /**
+     * 登录主体缓存
+     * 版本号或用户信息变化后需要主动失效
+     */
+    @Autowired
+    private PrincipalCache principalCache;
+
     /**
      * 管理员登录验证实现
      * 根据用户名查询管理员，验证密码是否匹配
@@ -59,6 +67,7 @@ public class AdminLoginServiceImpl implements AdminLoginService {
         // 更新 tokenVersion（单点登录：每次登录生成新版本号，旧 token 失效）
         Integer newTokenVersion = (admin.getTokenVersion() != null ? admin.getTokenVersion() : 0) + 1;
         adminMapper.updateTokenVersion(admin.getId(), newTokenVersion);
+        principalCache.invalidate("admin", admin.getId());
 
         // 生成 JWT Token（包含新版本号）
         String token = jwtUtil.generateToken(admin.getId(), admin.getUsername(), "admin", newTokenVersion);
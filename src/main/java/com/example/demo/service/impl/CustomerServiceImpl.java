@@ -1,5 +1,6 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dto.CustomerSummaryDTO;
 import com.example.demo.dto.DeleteResultDTO;
 import com.example.demo.entity.*;
 import com.example.demo.exception.BusinessException;
@@ -11,7 +12,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * 客户服务实现类
@@ -20,6 +25,11 @@ import java.util.List;
  */
 @Service
 public class CustomerServiceImpl implements CustomerService {
+
+    /**
+     * 关联数据批量写入时每条语句的最大行数
+     */
+    private static final int BATCH_SIZE = 500;
     
     /**
      * 客户数据访问对象
@@ -42,35 +52,115 @@ public class CustomerServiceImpl implements CustomerService {
     @Autowired
     private SampleMapper sampleMapper;
 
+    /**
+     * 名称子串搜索（pg_trgm 或内存 n-gram 索引）
+     */
+    @Autowired
+    private SubstringSearchIndex substringSearchIndex;
+
+    /**
+     * 名称搜索每次最多返回的客户数量
+     */
+    private static final int MAX_SEARCH_SIZE = 200;
+
     /**
      * 根据ID获取客户详细信息
-     * 包括客户基本信息、地址信息和联系人信息
+     * 包括客户基本信息、地址信息和联系人信息（客户、地址、联系人各一条按ID的查询）
      *
      * @param id 客户ID
      * @return 客户对象，如果不存在则返回null
      */
     @Override
     public Customer getById(Long id) {
-        // 获取客户基本信息
-        Customer customer = customerMapper.getById(id);
+        Customer customer = customerMapper.getDetailById(id);
         if (customer != null) {
-            // 加载客户的地址列表
-            customer.setAddresses(customerMapper.getAddressesByCustomerId(id));
-            // 加载客户的联系人列表
-            customer.setContacts(customerMapper.getContactsByCustomerId(id));
+            // 没有关联数据时返回空列表而不是null
+            if (customer.getAddresses() == null) {
+                customer.setAddresses(new ArrayList<>());
+            }
+            if (customer.getContacts() == null) {
+                customer.setContacts(new ArrayList<>());
+            }
         }
         return customer;
     }
 
     /**
      * 获取所有客户列表（按公司名称排序）
+     * 地址和联系人各用一条批量查询加载，总共3条SQL，与客户数量无关
      *
      * @return 排序后的客户列表
      */
     @Override
     public List<Customer> listByCompanyName() {
-        // 查询所有客户并按公司名称排序
-        return customerMapper.selectAll();
+        return attachDetails(customerMapper.selectAll());
+    }
+
+    /**
+     * 按公司名称关键字搜索客户
+     * 默认由数据库 pg_trgm 索引执行 LIKE '%关键字%'；内存索引模式下先在内存中匹配出客户ID再按主键查询
+     *
+     * @param keyword 名称关键字
+     * @param limit 最多返回数量
+     * @return 匹配的客户列表
+     */
+    @Override
+    public List<Customer> searchByCompanyName(String keyword, int limit) {
+        String pattern = SubstringSearchIndex.containsPattern(keyword);
+        if (pattern == null) {
+            throw new BusinessException("搜索关键字不能为空");
+        }
+        int size = Math.max(1, Math.min(limit, MAX_SEARCH_SIZE));
+        Long[] ids = null;
+        if (substringSearchIndex.isMemoryMode()) {
+            ids = substringSearchIndex.matchCustomerIds(keyword);
+            if (ids.length == 0) {
+                return new ArrayList<>();
+            }
+        }
+        return attachDetails(customerMapper.listByCompanyName(pattern, ids, size));
+    }
+
+    /**
+     * 为客户列表填充地址和联系人
+     * 地址和联系人各用一条批量查询加载，与客户数量无关
+     */
+    private List<Customer> attachDetails(List<Customer> customers) {
+        if (customers.isEmpty()) {
+            return customers;
+        }
+
+        Map<Long, Customer> byId = new HashMap<>(customers.size() * 2);
+        for (Customer customer : customers) {
+            customer.setAddresses(new ArrayList<>());
+            customer.setContacts(new ArrayList<>());
+            byId.put(customer.getId(), customer);
+        }
+        Long[] ids = byId.keySet().toArray(new Long[0]);
+
+        for (CustomerAddress address : customerMapper.getAddressesByCustomerIds(ids)) {
+            Customer customer = byId.get(address.getCustomerId());
+            if (customer != null) {
+                customer.getAddresses().add(address);
+            }
+        }
+        for (CustomerContact contact : customerMapper.getContactsByCustomerIds(ids)) {
+            Customer customer = byId.get(contact.getCustomerId());
+            if (customer != null) {
+                customer.getContacts().add(contact);
+            }
+        }
+        return customers;
+    }
+
+    /**
+     * 获取客户摘要列表（不含地址和联系人明细）
+     *
+     * @return 客户摘要列表
+     */
+    @Override
+    public List<CustomerSummaryDTO> listSummaries() {
+        return customerMapper.selectSummaries();
     }
 
     /**
@@ -85,6 +175,7 @@ public class CustomerServiceImpl implements CustomerService {
     public Customer save(Customer customer) {
         // 新客户，执行插入操作
         customerMapper.insert(customer);
+        substringSearchIndex.invalidateCustomers();
         Long customerId = customer.getId();
         // 保存客户的关联数据（地址和联系人）
         saveCustomerDetails(customer, customerId);
@@ -93,7 +184,8 @@ public class CustomerServiceImpl implements CustomerService {
 
     /**
      * 更新现有客户信息
-     * 更新客户基本信息，并替换其所有地址和联系人
+     * 地址和联系人按ID与已有数据比对，只对新增、修改、删除的行执行批量语句，
+     * 未变化的行不做任何写入
      *
      * @param customer 更新后的客户对象
      * @return 更新后的客户对象
@@ -104,19 +196,22 @@ public class CustomerServiceImpl implements CustomerService {
         if (customer.getId() == null) {
             throw new BusinessException("客户ID不能为空");
         }
-        // 检查客户是否存在
-        Customer existing = customerMapper.getById(customer.getId());
+        // 检查客户是否存在，同时取出已有的地址和联系人用于比对
+        Customer existing = customerMapper.getDetailById(customer.getId());
         if (existing == null) {
             throw new BusinessException("客户不存在", 404);
         }
-        // 更新客户基本信息
-        customerMapper.update(customer);
         Long customerId = customer.getId();
-        // 先删除旧的关联数据
-        customerMapper.deleteAddressesByCustomerId(customerId);
-        customerMapper.deleteContactsByCustomerId(customerId);
-        // 保存新的关联数据
-        saveCustomerDetails(customer, customerId);
+        boolean nameChanged = !Objects.equals(existing.getCompanyName(), customer.getCompanyName());
+        boolean addressesChanged = mergeAddresses(customerId, existing.getAddresses(), customer.getAddresses());
+        boolean contactsChanged = mergeContacts(customerId, existing.getContacts(), customer.getContacts());
+        // 名称或任一关联数据有写入时更新客户行，由触发器刷新 update_time；全部未变化时跳过
+        if (nameChanged || addressesChanged || contactsChanged) {
+            customerMapper.update(customer);
+        }
+        if (nameChanged) {
+            substringSearchIndex.invalidateCustomers();
+        }
         return getById(customerId);
     }
 
@@ -148,6 +243,7 @@ public class CustomerServiceImpl implements CustomerService {
         customerMapper.deleteContactsByCustomerId(id);
         // 删除客户基本信息
         customerMapper.delete(id);
+        substringSearchIndex.invalidateCustomers();
         
         String description = sampleCount > 0 
             ? sampleCount + "个关联样品已转为无客户状态"
@@ -157,7 +253,7 @@ public class CustomerServiceImpl implements CustomerService {
 
     /**
      * 保存客户的地址和联系人信息
-     * 私有辅助方法，用于插入客户的关联数据
+     * 私有辅助方法，用多行INSERT插入客户的关联数据
      *
      * @param customer 客户对象，包含地址和联系人列表
      * @param customerId 客户ID
@@ -167,16 +263,112 @@ public class CustomerServiceImpl implements CustomerService {
         if (customer.getAddresses() != null) {
             for (CustomerAddress address : customer.getAddresses()) {
                 address.setCustomerId(customerId);
-                customerMapper.insertAddress(address);
             }
+            insertAddresses(customer.getAddresses());
         }
         // 保存客户联系人列表
         if (customer.getContacts() != null) {
             for (CustomerContact contact : customer.getContacts()) {
                 contact.setCustomerId(customerId);
-                customerMapper.insertContact(contact);
             }
+            insertContacts(customer.getContacts());
+        }
+    }
+
+    /**
+     * 比对并合并客户地址：ID为空或不属于该客户的视为新增，内容变化的更新，未提交的删除
+     *
+     * @return 是否写入了任何地址行
+     */
+    private boolean mergeAddresses(Long customerId, List<CustomerAddress> stored, List<CustomerAddress> incoming) {
+        Map<Long, CustomerAddress> storedById = new HashMap<>();
+        if (stored != null) {
+            for (CustomerAddress address : stored) {
+                storedById.put(address.getId(), address);
+            }
+        }
+        List<CustomerAddress> inserts = new ArrayList<>();
+        List<CustomerAddress> updates = new ArrayList<>();
+        if (incoming != null) {
+            for (CustomerAddress address : incoming) {
+                address.setCustomerId(customerId);
+                CustomerAddress old = address.getId() != null ? storedById.remove(address.getId()) : null;
+                if (old == null) {
+                    address.setId(null);
+                    inserts.add(address);
+                } else if (!Objects.equals(old.getAddress(), address.getAddress())) {
+                    updates.add(address);
+                }
+            }
+        }
+        if (!storedById.isEmpty()) {
+            customerMapper.deleteAddressesByIds(customerId, storedById.keySet().toArray(new Long[0]));
+        }
+        for (List<CustomerAddress> chunk : chunks(updates)) {
+            customerMapper.updateAddresses(customerId, chunk);
+        }
+        insertAddresses(inserts);
+        return !storedById.isEmpty() || !updates.isEmpty() || !inserts.isEmpty();
+    }
+
+    /**
+     * 比对并合并客户联系人，规则同地址
+     *
+     * @return 是否写入了任何联系人行
+     */
+    private boolean mergeContacts(Long customerId, List<CustomerContact> stored, List<CustomerContact> incoming) {
+        Map<Long, CustomerContact> storedById = new HashMap<>();
+        if (stored != null) {
+            for (CustomerContact contact : stored) {
+                storedById.put(contact.getId(), contact);
+            }
+        }
+        List<CustomerContact> inserts = new ArrayList<>();
+        List<CustomerContact> updates = new ArrayList<>();
+        if (incoming != null) {
+            for (CustomerContact contact : incoming) {
+                contact.setCustomerId(customerId);
+                CustomerContact old = contact.getId() != null ? storedById.remove(contact.getId()) : null;
+                if (old == null) {
+                    contact.setId(null);
+                    inserts.add(contact);
+                } else if (!Objects.equals(old.getContactName(), contact.getContactName())
+                        || !Objects.equals(old.getPhone(), contact.getPhone())) {
+                    updates.add(contact);
+                }
+            }
+        }
+        if (!storedById.isEmpty()) {
+            customerMapper.deleteContactsByIds(customerId, storedById.keySet().toArray(new Long[0]));
+        }
+        for (List<CustomerContact> chunk : chunks(updates)) {
+            customerMapper.updateContacts(customerId, chunk);
+        }
+        insertContacts(inserts);
+        return !storedById.isEmpty() || !updates.isEmpty() || !inserts.isEmpty();
+    }
+
+    private void insertAddresses(List<CustomerAddress> addresses) {
+        for (List<CustomerAddress> chunk : chunks(addresses)) {
+            customerMapper.insertAddresses(chunk);
+        }
+    }
+
+    private void insertContacts(List<CustomerContact> contacts) {
+        for (List<CustomerContact> chunk : chunks(contacts)) {
+            customerMapper.insertContacts(chunk);
+        }
+    }
+
+    /**
+     * 按批大小切分，避免单条语句的绑定参数过多
+     */
+    private static <T> List<List<T>> chunks(List<T> list) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += BATCH_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + BATCH_SIZE, list.size())));
         }
+        return chunks;
     }
 
     /**
@@ -1,24 +1,80 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.entity.Dashboard;
+import com.example.demo.entity.ProductBucket;
+import com.example.demo.exception.BusinessException;
 import com.example.demo.mapper.DashboardMapper;
 import com.example.demo.service.DashboardService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * 仪表盘服务实现类
  * 实现DashboardService接口，提供系统概览数据相关的业务逻辑
  * 负责整合各类统计数据，为前端展示提供数据支持
+ * 统计结果作为不可变快照缓存，所有请求共享同一份快照；
+ * 快照按固定间隔刷新，订单/样品/客户/员工变更后经防抖合并再刷新一次；
+ * 计算快照时各项统计查询在专用有界线程池上并行执行，单项超时或失败时降级
  */
 @Service
 public class DashboardServiceImpl implements DashboardService {
 
+    private static final Logger logger = LoggerFactory.getLogger(DashboardServiceImpl.class);
+
+    // 一次计算包含的查询项数
+    private static final int QUERY_COUNT = 9;
+
+    // 按分类分页时每页最大数量
+    private static final int MAX_PRODUCT_PAGE_SIZE = 100;
+
+    /**
+     * 一次计算出的仪表盘数据及其计算时间
+     */
+    private static final class Snapshot {
+        private final Dashboard dashboard;
+        // 按状态分组的原始订单数，查询降级时沿用
+        private final List<Map<String, Object>> statusCounts;
+        private final long computedAt;
+        private final long durationMillis;
+        private final List<String> degradedSections;
+
+        Snapshot(Dashboard dashboard, List<Map<String, Object>> statusCounts, long computedAt,
+                 long durationMillis, List<String> degradedSections) {
+            this.dashboard = dashboard;
+            this.statusCounts = statusCounts;
+            this.computedAt = computedAt;
+            this.durationMillis = durationMillis;
+            this.degradedSections = degradedSections;
+        }
+    }
+
     /**
      * 仪表盘数据访问对象
      * 用于从数据库中查询各类统计数据
@@ -26,44 +82,340 @@ public class DashboardServiceImpl implements DashboardService {
     @Autowired
     private DashboardMapper dashboardMapper;
 
+    // 数据变更后等待多久再刷新（毫秒），期间的多次变更合并为一次刷新
+    @Value("${dashboard.debounce-ms:2000}")
+    private long debounceMs = 2000;
+
+    // 是否并行执行各项统计查询（false 则在刷新线程上依次执行）
+    @Value("${dashboard.parallel-queries:true}")
+    private boolean parallelQueries = true;
+
+    // 并行查询线程数（每个线程占用一个数据库连接）
+    // 少于查询项数时其余查询排队等待，排队时间不计入单项超时，刷新总耗时最多约为 ⌈9/线程数⌉ 个超时时间；
+    // 设为 9 可全部同时执行，但刷新期间会占用 9 个连接
+    @Value("${dashboard.query-threads:4}")
+    private int queryThreads = 4;
+
+    // 单项查询超时（配置为秒，这里换算成毫秒，从开始执行时计时），超时后该项使用降级数据；
+    // 同一配置也是 DashboardMapper.xml 的语句超时，被放弃的查询由数据库取消并归还连接
+    @Value("#{${dashboard.query-timeout-seconds:3} * 1000}")
+    private long queryTimeoutMs = 3000;
+
+    // 仪表盘快照中每个产品分类展示的条数
+    @Value("${dashboard.products-top-n:5}")
+    private int productsTopN = 5;
+
+    private volatile Snapshot snapshot;
+
+    private final Object refreshLock = new Object();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong failedRefreshCount = new AtomicLong();
+
+    private ScheduledExecutorService debouncer;
+    private ThreadPoolExecutor queryExecutor;
+
+    @PostConstruct
+    public void init() {
+        debouncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dashboard-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadIndex = new AtomicInteger();
+        queryExecutor = new ThreadPoolExecutor(queryThreads, queryThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUERY_COUNT * 2),
+                r -> {
+                    Thread thread = new Thread(r, "dashboard-query-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        queryExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        debouncer.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+
     /**
      * 获取系统仪表盘数据
-     * 整合各类统计数据，包括待处理金额、近期订单数量、客户数量、样品数量、
-     * 订单状态分布、待处理产品、生产中产品、待发货产品以及员工通讯录
+     * 直接返回当前快照，只有首次访问时才同步计算
+     * 所有调用方共享同一个快照对象，其中的列表和Map均不可修改
      *
-     * @return 包含全部仪表盘数据的Dashboard对象
+     * @return 包含全部仪表盘数据的Dashboard对象（只读）
      */
     @Override
     public Dashboard getDashboard() {
-        Dashboard dashboard = new Dashboard();
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (refreshLock) {
+                current = snapshot;
+                if (current == null) {
+                    current = refresh();
+                }
+            }
+        }
+        return current.dashboard;
+    }
 
-        // 获取顶部数据卡片信息
-        dashboard.setTotalPendingAmount(dashboardMapper.getTotalPendingAmount().doubleValue());  // 待处理金额
-        dashboard.setRecentOrderCount(dashboardMapper.getRecentOrderCount());  // 近期订单数量
-        dashboard.setTotalCustomerCount(dashboardMapper.getTotalCustomerCount());  // 总客户数量
-        dashboard.setTotalSampleCount(dashboardMapper.getTotalSampleCount());  // 总样品数量
+    @Override
+    public long getSnapshotAgeMillis() {
+        Snapshot current = snapshot;
+        return current == null ? -1 : System.currentTimeMillis() - current.computedAt;
+    }
 
-        // 获取订单状态分布数据并转换状态名称为中文
-        List<Map<String, Object>> statusDistribution = dashboardMapper.getOrderStatusDistribution();
-        List<Map<String, Object>> formattedStatus = statusDistribution.stream()
+    @Override
+    public void requestRefresh() {
+        // 已有待执行的刷新时直接合并
+        if (refreshPending.compareAndSet(false, true)) {
+            debouncer.schedule(() -> {
+                // 先清除标记，刷新期间发生的变更会再安排一次刷新
+                refreshPending.set(false);
+                refreshQuietly();
+            }, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getSnapshotStatus() {
+        Snapshot current = snapshot;
+        Map<String, Object> status = new HashMap<>();
+        status.put("computedAt", current == null ? null : current.computedAt);
+        status.put("ageMillis", getSnapshotAgeMillis());
+        status.put("lastRefreshMillis", current == null ? null : current.durationMillis);
+        status.put("degradedSections", current == null ? Collections.emptyList() : current.degradedSections);
+        status.put("refreshCount", refreshCount.get());
+        status.put("failedRefreshCount", failedRefreshCount.get());
+        status.put("refreshPending", refreshPending.get());
+        return status;
+    }
+
+    /**
+     * 定时刷新快照，兜底数据库中未经过本服务的变更
+     */
+    @Scheduled(fixedDelayString = "${dashboard.refresh-interval-ms:60000}",
+            initialDelayString = "${dashboard.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        refreshQuietly();
+    }
+
+    /**
+     * 刷新失败时保留旧快照
+     */
+    private void refreshQuietly() {
+        try {
+            synchronized (refreshLock) {
+                refresh();
+            }
+        } catch (Exception e) {
+            failedRefreshCount.incrementAndGet();
+            logger.warn("刷新仪表盘快照失败，继续使用旧数据", e);
+        }
+    }
+
+    /**
+     * 重新计算并发布快照（调用方持有 refreshLock）
+     */
+    private Snapshot refresh() {
+        Snapshot next = compute(System.currentTimeMillis());
+        snapshot = next;
+        refreshCount.incrementAndGet();
+        return next;
+    }
+
+    /**
+     * 计算仪表盘数据
+     * 整合各类统计数据，包括待处理金额、近期订单数量、客户数量、样品数量、
+     * 订单状态分布、待处理产品、生产中产品、待发货产品以及员工通讯录
+     * 各项查询互相独立：并行模式下同时提交到查询线程池，总耗时取决于最慢的一项；
+     * 单项失败或超时时使用上一次快照中的值（没有则为空值），并记录到降级列表
+     */
+    private Snapshot compute(long start) {
+        Snapshot last = snapshot;
+        Dashboard previous = last != null ? last.dashboard : null;
+        List<String> degraded = Collections.synchronizedList(new ArrayList<>());
+        Executor executor = parallelQueries ? queryExecutor : Runnable::run;
+
+        // 顶部数据卡片信息：待处理金额、近期订单数量、总客户数量、总样品数量
+        CompletableFuture<Double> pendingAmount = query("totalPendingAmount", executor, degraded,
+                () -> dashboardMapper.getTotalPendingAmount().doubleValue(),
+                previous != null ? previous.getTotalPendingAmount() : Double.valueOf(0));
+        CompletableFuture<Integer> recentOrders = query("recentOrderCount", executor, degraded,
+                dashboardMapper::getRecentOrderCount,
+                previous != null ? previous.getRecentOrderCount() : Integer.valueOf(0));
+        CompletableFuture<Integer> customers = query("totalCustomerCount", executor, degraded,
+                dashboardMapper::getTotalCustomerCount,
+                previous != null ? previous.getTotalCustomerCount() : Integer.valueOf(0));
+        CompletableFuture<Integer> samples = query("totalSampleCount", executor, degraded,
+                dashboardMapper::getTotalSampleCount,
+                previous != null ? previous.getTotalSampleCount() : Integer.valueOf(0));
+
+        // 订单状态分布（按状态分组的一条查询，同时用于各产品分类的计数）
+        CompletableFuture<List<Map<String, Object>>> statusCounts = query("statusDistribution", executor, degraded,
+                dashboardMapper::getOrderStatusDistribution,
+                last != null ? last.statusCounts : Collections.emptyList());
+
+        // 各类状态的产品列表只取前几条，完整列表通过分类接口分页加载（快照由所有请求共享，列表只读）
+        CompletableFuture<List<Dashboard.OrderProduct>> pendingProducts = query("pendingProducts", executor, degraded,
+                () -> topProducts(ProductBucket.PENDING),
+                previous != null ? previous.getPendingProducts() : Collections.emptyList());
+        CompletableFuture<List<Dashboard.OrderProduct>> producingProducts = query("producingProducts", executor, degraded,
+                () -> topProducts(ProductBucket.PRODUCING),
+                previous != null ? previous.getProducingProducts() : Collections.emptyList());
+        CompletableFuture<List<Dashboard.OrderProduct>> shippingProducts = query("shippingProducts", executor, degraded,
+                () -> topProducts(ProductBucket.SHIPPING),
+                previous != null ? previous.getShippingProducts() : Collections.emptyList());
+        CompletableFuture<List<Dashboard.Employee>> employees = query("employees", executor, degraded,
+                () -> Collections.unmodifiableList(dashboardMapper.getEmployees()),
+                previous != null ? previous.getEmployees() : Collections.emptyList());
+
+        // 每一项都会在开始执行后的超时内完成（成功或降级），数据库语句超时保证线程不会一直被占用，这里的等待有上限
+        CompletableFuture.allOf(pendingAmount, recentOrders, customers, samples, statusCounts,
+                pendingProducts, producingProducts, shippingProducts, employees).join();
+        if (degraded.size() == QUERY_COUNT) {
+            throw new BusinessException("仪表盘数据加载失败", 503);
+        }
+
+        Dashboard dashboard = new Dashboard();
+        dashboard.setTotalPendingAmount(pendingAmount.join());  // 待处理金额
+        dashboard.setRecentOrderCount(recentOrders.join());  // 近期订单数量
+        dashboard.setTotalCustomerCount(customers.join());  // 总客户数量
+        dashboard.setTotalSampleCount(samples.join());  // 总样品数量
+        // 订单状态分布，状态名称转换为中文
+        List<Map<String, Object>> formattedStatus = statusCounts.join().stream()
             .map(item -> {
                 Map<String, Object> newItem = new HashMap<>();
                 newItem.put("name", convertStatusName(item.get("name").toString()));  // 转换状态名称
                 newItem.put("value", item.get("value"));  // 保持值不变
-                return newItem;
+                return Collections.unmodifiableMap(newItem);
             })
             .collect(Collectors.toList());
-        dashboard.setStatusDistribution(formattedStatus);
+        dashboard.setStatusDistribution(Collections.unmodifiableList(formattedStatus));
+        dashboard.setProductCounts(Collections.unmodifiableMap(bucketCounts(statusCounts.join())));
+        dashboard.setPendingProducts(pendingProducts.join());  // 待生产产品
+        dashboard.setProducingProducts(producingProducts.join());  // 生产中产品
+        dashboard.setShippingProducts(shippingProducts.join());  // 待发货产品
+        dashboard.setEmployees(employees.join());
+
+        long end = System.currentTimeMillis();
+        List<String> degradedSections;
+        synchronized (degraded) {
+            degradedSections = Collections.unmodifiableList(new ArrayList<>(degraded));
+        }
+        return new Snapshot(dashboard, statusCounts.join(), end, end - start, degradedSections);
+    }
+
+    @Override
+    public CursorPageDTO<Dashboard.OrderProduct> getProducts(String bucketKey, String after, int limit) {
+        ProductBucket bucket = ProductBucket.fromKey(bucketKey);
+        if (bucket == null) {
+            throw new BusinessException("未知的产品分类: " + bucketKey, 404);
+        }
+        long[] cursor = parseCursor(after);
+        int size = Math.max(1, Math.min(limit, MAX_PRODUCT_PAGE_SIZE));
+        List<Dashboard.OrderProduct> list = dashboardMapper.getProducts(bucket.getStatuses(),
+                cursor != null ? cursor[0] : null, cursor != null ? cursor[1] : null, size + 1);
+        boolean hasMore = list.size() > size;
+        if (hasMore) {
+            list = list.subList(0, size);
+        }
+        Dashboard.OrderProduct last = hasMore ? list.get(list.size() - 1) : null;
+        CursorPageDTO<Dashboard.OrderProduct> page = new CursorPageDTO<>(list, last != null ? last.getId() : null, hasMore);
+        if (last != null) {
+            page.setNextKey(last.getCreateMicros() + "_" + last.getId());
+        }
+        return page;
+    }
 
-        // 获取各类状态的产品列表
-        dashboard.setPendingProducts(dashboardMapper.getPendingProducts());  // 待生产产品
-        dashboard.setProducingProducts(dashboardMapper.getProducingProducts());  // 生产中产品
-        dashboard.setShippingProducts(dashboardMapper.getShippingProducts());  // 待发货产品
+    /**
+     * 解析游标 "微秒时间戳_ID"，为空时返回null
+     */
+    private static long[] parseCursor(String after) {
+        if (after == null || after.trim().isEmpty()) {
+            return null;
+        }
+        String[] parts = after.trim().split("_");
+        try {
+            if (parts.length == 2) {
+                return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+            }
+        } catch (NumberFormatException e) {
+            // 按格式错误处理
+        }
+        throw new BusinessException("游标格式不正确，请使用上一页返回的 nextKey");
+    }
 
-        // 获取员工通讯录
-        dashboard.setEmployees(dashboardMapper.getEmployees());
+    /**
+     * 取某个分类最新的几条产品，用于首屏展示
+     */
+    private List<Dashboard.OrderProduct> topProducts(ProductBucket bucket) {
+        return Collections.unmodifiableList(dashboardMapper.getProducts(bucket.getStatuses(), null, null, productsTopN));
+    }
+
+    /**
+     * 把按状态分组的订单数汇总为各产品分类的数量
+     */
+    private Map<String, Integer> bucketCounts(List<Map<String, Object>> statusCounts) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (ProductBucket bucket : ProductBucket.values()) {
+            counts.put(bucket.getKey(), 0);
+        }
+        for (Map<String, Object> item : statusCounts) {
+            Object name = item.get("name");
+            Object value = item.get("value");
+            if (name == null || !(value instanceof Number)) {
+                continue;
+            }
+            for (ProductBucket bucket : ProductBucket.values()) {
+                if (bucket.contains(name.toString())) {
+                    counts.merge(bucket.getKey(), ((Number) value).intValue(), Integer::sum);
+                }
+            }
+        }
+        return counts;
+    }
 
-        return dashboard;
+    /**
+     * 提交一项查询；失败、被线程池拒绝或开始执行后超过 queryTimeoutMs 时以 fallback 完成
+     * 超时从查询线程开始执行时计时，在队列中等待线程的时间不计入
+     * 结果、失败和超时三者只有先到的一个生效，降级项在完成前登记，保证 join 返回后降级列表已完整
+     */
+    private <T> CompletableFuture<T> query(String name, Executor executor, List<String> degraded,
+                                           Supplier<T> supplier, T fallback) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean settled = new AtomicBoolean();
+        Runnable timeout = () -> {
+            if (settled.compareAndSet(false, true)) {
+                logger.warn("仪表盘查询 {} 超过 {} 毫秒，使用降级数据", name, queryTimeoutMs);
+                degraded.add(name);
+                result.complete(fallback);
+            }
+        };
+        try {
+            CompletableFuture.supplyAsync(() -> {
+                CompletableFuture.delayedExecutor(queryTimeoutMs, TimeUnit.MILLISECONDS).execute(timeout);
+                return supplier.get();
+            }, executor).whenComplete((value, error) -> {
+                if (!settled.compareAndSet(false, true)) {
+                    return;
+                }
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    logger.warn("仪表盘查询 {} 失败，使用降级数据", name, error);
+                    degraded.add(name);
+                    result.complete(fallback);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            settled.set(true);
+            logger.warn("仪表盘查询 {} 被拒绝（查询线程池已满），使用降级数据", name);
+            degraded.add(name);
+            result.complete(fallback);
+        }
+        return result;
     }
 
     /**
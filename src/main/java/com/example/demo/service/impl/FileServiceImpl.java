@@ -1,12 +1,22 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.service.FileService;
+import com.example.demo.service.ThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 /**
  * 文件处理服务实现类
@@ -16,6 +26,9 @@ import java.io.IOException;
 @Service
 public class FileServiceImpl implements FileService {
 
+    // 文件名中内容哈希的长度（十六进制字符数）
+    private static final int HASH_LENGTH = 16;
+
     /**
      * 文件上传目录路径
      * 从application.properties中注入配置的上传目录路径
@@ -23,28 +36,73 @@ public class FileServiceImpl implements FileService {
     @Value("${upload.dir}")
     private String uploadDir;
 
+    /**
+     * 缩略图服务
+     * 删除原图时同步清理对应的缩略图
+     */
+    @Autowired
+    private ThumbnailService thumbnailService;
+
     /**
      * 保存上传的文件到服务器
-     * 将MultipartFile对象保存到指定的文件系统路径
+     * 边写临时文件边计算内容哈希，再原子重命名为 {基础名}.{哈希}{扩展名}，
+     * 同一文件名的内容永不改变，浏览器可以长期缓存
      *
      * @param file 上传的文件对象
-     * @param fileName 保存的文件名
-     * @return 保存后的文件访问URL路径
+     * @param fileName 保存的基础文件名（如 12.jpg）
+     * @return 保存后的文件访问URL路径（文件名包含内容哈希）
      * @throws IOException 文件读写过程中可能发生的异常
      */
     @Override
     public String saveFile(MultipartFile file, String fileName) throws IOException {
-        // 创建目标文件对象
         // 确保上传目录存在，不存在则创建
-        File dir = new File(uploadDir);
-        if (!dir.exists()) {
-            dir.mkdirs();
+        Path dir = Paths.get(uploadDir);
+        Files.createDirectories(dir);
+        
+        // 写入临时文件并计算哈希
+        Path temp = Files.createTempFile(dir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newDigest();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return moveVersioned(temp, fileName, digest.digest());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 将本地文件（如后台处理后的图片）移动到上传目录
+     * 文件名规则与上传文件相同，源文件应位于上传目录所在的文件系统以保证原子重命名
+     *
+     * @param source 本地文件，成功后被移走
+     * @param fileName 保存的基础文件名（如 12.jpg）
+     * @return 保存后的文件访问URL路径（文件名包含内容哈希）
+     * @throws IOException 文件读写过程中可能发生的异常
+     */
+    @Override
+    public String saveFile(Path source, String fileName) throws IOException {
+        Files.createDirectories(Paths.get(uploadDir));
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(source), digest)) {
+            byte[] buffer = new byte[8192];
+            while (in.read(buffer) != -1) {
+                // 只为计算哈希
+            }
         }
-        File dest = new File(uploadDir + fileName);
-        // 将上传的文件保存到目标位置
-        file.transferTo(dest);
+        return moveVersioned(source, fileName, digest.digest());
+    }
+
+    /**
+     * 原子重命名到带内容哈希的最终文件名
+     */
+    private String moveVersioned(Path source, String fileName, byte[] hash) throws IOException {
+        String versionedName = versionedFileName(fileName, hash);
+        Files.move(source, Paths.get(uploadDir).resolve(versionedName),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         // 返回文件的访问URL路径
-        return "/sampleImage/" + fileName;
+        return "/sampleImage/" + versionedName;
     }
 
     /**
@@ -62,7 +120,10 @@ public class FileServiceImpl implements FileService {
         }
         
         // 将URL路径转换为物理文件路径
-        String physicalPath = uploadDir + filePath.replace("/sampleImage/", "");
+        String fileName = filePath.replace("/sampleImage/", "");
+        String physicalPath = uploadDir + fileName;
+        // 清理缩略图（磁盘文件与内存缓存）
+        thumbnailService.invalidate(fileName);
         // 创建文件对象
         File file = new File(physicalPath);
         // 检查文件是否存在并尝试删除
@@ -85,4 +146,26 @@ public class FileServiceImpl implements FileService {
         // 使用实体ID加扩展名作为新文件名
         return id + extension;
     }
-} 
\ No newline at end of file
+
+    /**
+     * 在扩展名前插入内容哈希的前16位十六进制字符
+     */
+    private String versionedFileName(String fileName, byte[] hash) {
+        StringBuilder hex = new StringBuilder(HASH_LENGTH);
+        for (int i = 0; i < HASH_LENGTH / 2; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0
+                ? fileName.substring(0, dot) + "." + hex + fileName.substring(dot)
+                : fileName + "." + hex;
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.ImageStatus;
+import com.example.demo.entity.Sample;
+import com.example.demo.mapper.SampleMapper;
+import com.example.demo.service.FileService;
+import com.example.demo.service.ImageProcessingService;
+import com.example.demo.service.ThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 样品图片后台处理服务实现类
+ * 处理流程：校验文件头 -> 按 EXIF 方向摆正 -> 缩小超大原图 -> 重新编码（去除 EXIF/GPS 等元数据）
+ * -> 带内容哈希原子写入上传目录 -> 生成缩略图 -> 一条 UPDATE 写入图片路径和状态
+ * GIF（可能是动图）和 WebP（JDK 无解码器）只校验文件头，原样保存
+ */
+@Service
+public class ImageProcessingServiceImpl implements ImageProcessingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageProcessingServiceImpl.class);
+
+    // 暂存子目录（与上传目录同一文件系统，保证原子重命名）
+    private static final String STAGING_DIR = "staging";
+
+    /**
+     * 根据文件头识别的图片类型
+     */
+    enum ImageType {
+        JPEG("jpg", "jpeg", true),
+        PNG("png", "png", true),
+        BMP("bmp", "bmp", true),
+        GIF("gif", null, false),
+        WEBP("webp", null, false);
+
+        private final String extension;
+        private final String format;
+        private final boolean reencode;
+
+        ImageType(String extension, String format, boolean reencode) {
+            this.extension = extension;
+            this.format = format;
+            this.reencode = reencode;
+        }
+    }
+
+    @Autowired
+    private SampleMapper sampleMapper;
+
+    @Autowired
+    private FileService fileService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    // 原图最长边上限（像素），超过时缩小
+    @Value("${image.max-dimension:2048}")
+    private int maxDimension = 2048;
+
+    // 重新编码 JPEG 的质量
+    @Value("${image.jpeg-quality:0.9}")
+    private float jpegQuality = 0.9f;
+
+    // 后台处理线程数
+    @Value("${image.pipeline-threads:2}")
+    private int pipelineThreads = 2;
+
+    // 后台处理队列容量，队列满时由上传请求线程自行处理
+    @Value("${image.pipeline-queue-capacity:100}")
+    private int pipelineQueueCapacity = 100;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(pipelineThreads, pipelineThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(pipelineQueueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "image-pipeline-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 启动时清理上次未完成的暂存文件，并把对应样品标记为处理失败
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterrupted() {
+        try {
+            int failed = sampleMapper.failStaleProcessing();
+            if (failed > 0) {
+                logger.warn("{} 个样品图片在上次运行中未处理完成，已标记为失败", failed);
+            }
+            Path staging = stagingDir();
+            if (Files.isDirectory(staging)) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(staging)) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("清理未完成的图片处理失败", e);
+        }
+    }
+
+    @Override
+    public Path stage(MultipartFile image) throws IOException {
+        Path staging = stagingDir();
+        Files.createDirectories(staging);
+        Path target = staging.resolve(UUID.randomUUID() + ".upload");
+        // 容器已把请求体写入磁盘临时文件，transferTo(File) 在同一文件系统上为重命名而非复制
+        image.transferTo(target.toFile());
+        return target;
+    }
+
+    @Override
+    public void process(Long sampleId, Path staged) {
+        executor.execute(() -> runPipeline(sampleId, staged));
+    }
+
+    @Override
+    public void discard(Path staged) {
+        if (staged == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(staged);
+        } catch (IOException e) {
+            logger.warn("删除暂存文件失败: {}", staged, e);
+        }
+    }
+
+    /**
+     * 执行完整处理流程，任何一步失败都把样品状态置为 FAILED
+     */
+    void runPipeline(Long sampleId, Path staged) {
+        Path processed = null;
+        try {
+            ImageType type = detectType(staged);
+            if (type == null) {
+                throw new IOException("文件内容不是支持的图片格式");
+            }
+            processed = type.reencode ? normalize(staged, type) : staged;
+
+            String imagePath = fileService.saveFile(processed, sampleId + "." + type.extension);
+            String storedName = imagePath.substring(imagePath.lastIndexOf('/') + 1);
+            try {
+                thumbnailService.generate(storedName);
+            } catch (Exception e) {
+                // 缩略图可在首次访问时再生成
+                logger.warn("生成缩略图失败: {}", storedName, e);
+            }
+
+            Sample replaced = sampleMapper.updateImage(sampleId, imagePath, ImageStatus.READY);
+            if (replaced == null) {
+                // 处理期间样品已被删除
+                fileService.deleteFile(imagePath);
+            } else if (replaced.getImage() != null && !replaced.getImage().equals(imagePath)) {
+                fileService.deleteFile(replaced.getImage());
+            }
+        } catch (Exception e) {
+            logger.warn("样品 {} 图片处理失败", sampleId, e);
+            try {
+                sampleMapper.updateImageStatus(sampleId, ImageStatus.FAILED);
+            } catch (Exception ex) {
+                logger.error("更新样品 {} 图片状态失败", sampleId, ex);
+            }
+        } finally {
+            discard(staged);
+            if (processed != null && !processed.equals(staged)) {
+                discard(processed);
+            }
+        }
+    }
+
+    /**
+     * 根据文件头（魔数）识别图片类型，不信任客户端声明的 Content-Type 和扩展名
+     */
+    ImageType detectType(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (read >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return ImageType.JPEG;
+        }
+        if (read >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G'
+                && header[4] == 0x0D && header[5] == 0x0A && header[6] == 0x1A && header[7] == 0x0A) {
+            return ImageType.PNG;
+        }
+        if (read >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8'
+                && (header[4] == '7' || header[4] == '9') && header[5] == 'a') {
+            return ImageType.GIF;
+        }
+        if (read >= 2 && header[0] == 'B' && header[1] == 'M') {
+            return ImageType.BMP;
+        }
+        if (read >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return ImageType.WEBP;
+        }
+        return null;
+    }
+
+    /**
+     * 解码、摆正、缩小并重新编码，输出不含元数据的新文件
+     */
+    private Path normalize(Path staged, ImageType type) throws IOException {
+        int orientation = type == ImageType.JPEG ? readExifOrientation(staged) : 1;
+        BufferedImage image = decode(staged);
+        if (image == null) {
+            throw new IOException("图片无法解码");
+        }
+        image = applyOrientation(image, orientation);
+        image = downscale(image, type);
+
+        Path output = staged.resolveSibling(staged.getFileName() + "." + type.extension);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(type.format).next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(output.toFile())) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (type == ImageType.JPEG) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+            }
+            // 不传入元数据，EXIF/GPS/文本块等全部丢弃
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output;
+    }
+
+    /**
+     * 解码图片；超大原图按比例降采样读取，避免整张解码占用大量堆内存
+     */
+    private BufferedImage decode(Path file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int factor = Math.max(1, longest / maxDimension);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 最长边超过上限时等比缩小
+     */
+    private BufferedImage downscale(BufferedImage image, ImageType type) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int longest = Math.max(width, height);
+        if (longest <= maxDimension) {
+            return image;
+        }
+        double ratio = (double) maxDimension / longest;
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        BufferedImage scaled = new BufferedImage(targetWidth, targetHeight, imageType(image, type));
+        Graphics2D g2d = scaled.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(image, 0, 0, targetWidth, targetHeight, null);
+        g2d.dispose();
+        return scaled;
+    }
+
+    /**
+     * 按 EXIF Orientation 摆正图片（元数据被去除后方向信息会丢失，必须先应用到像素上）
+     */
+    private BufferedImage applyOrientation(BufferedImage image, int orientation) {
+        if (orientation < 2 || orientation > 8) {
+            return image;
+        }
+        int w = image.getWidth();
+        int h = image.getHeight();
+        boolean swap = orientation >= 5;
+        AffineTransform transform = new AffineTransform();
+        switch (orientation) {
+            case 2: // 水平翻转
+                transform.scale(-1, 1);
+                transform.translate(-w, 0);
+                break;
+            case 3: // 旋转180度
+                transform.translate(w, h);
+                transform.rotate(Math.PI);
+                break;
+            case 4: // 垂直翻转
+                transform.scale(1, -1);
+                transform.translate(0, -h);
+                break;
+            case 5: // 沿主对角线翻转
+                transform.rotate(-Math.PI / 2);
+                transform.scale(-1, 1);
+                break;
+            case 6: // 顺时针旋转90度
+                transform.translate(h, 0);
+                transform.rotate(Math.PI / 2);
+                break;
+            case 7: // 沿副对角线翻转
+                transform.scale(-1, 1);
+                transform.translate(-h, w);
+                transform.rotate(3 * Math.PI / 2);
+                break;
+            default: // 8: 逆时针旋转90度
+                transform.translate(0, w);
+                transform.rotate(3 * Math.PI / 2);
+                break;
+        }
+        BufferedImage rotated = new BufferedImage(swap ? h : w, swap ? w : h, imageType(image, ImageType.JPEG));
+        Graphics2D g2d = rotated.createGraphics();
+        g2d.drawImage(image, transform, null);
+        g2d.dispose();
+        return rotated;
+    }
+
+    private int imageType(BufferedImage image, ImageType type) {
+        if (type == ImageType.PNG && image.getColorModel().hasAlpha()) {
+            return BufferedImage.TYPE_INT_ARGB;
+        }
+        return BufferedImage.TYPE_INT_RGB;
+    }
+
+    /**
+     * 从 JPEG 的 APP1(Exif) 段读取 Orientation 标签，没有时返回1
+     */
+    int readExifOrientation(Path file) throws IOException {
+        byte[] data;
+        try (InputStream in = Files.newInputStream(file)) {
+            data = in.readNBytes(128 * 1024);
+        }
+        int pos = 2;  // 跳过 SOI
+        while (pos + 4 <= data.length && (data[pos] & 0xFF) == 0xFF) {
+            int marker = data[pos + 1] & 0xFF;
+            int length = ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            if (marker == 0xDA || length < 2) {
+                break;  // 图像数据开始，后面不再有元数据段
+            }
+            int segment = pos + 4;
+            if (marker == 0xE1 && segment + 14 <= data.length && data[segment] == 'E' && data[segment + 1] == 'x'
+                    && data[segment + 2] == 'i' && data[segment + 3] == 'f') {
+                return parseTiffOrientation(data, segment + 6, Math.min(data.length, pos + 2 + length));
+            }
+            pos += 2 + length;
+        }
+        return 1;
+    }
+
+    private int parseTiffOrientation(byte[] data, int tiff, int limit) {
+        boolean littleEndian = data[tiff] == 'I';
+        int ifd = tiff + readInt(data, tiff + 4, littleEndian);
+        if (ifd + 2 > limit) {
+            return 1;
+        }
+        int entries = readShort(data, ifd, littleEndian);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > limit) {
+                break;
+            }
+            if (readShort(data, entry, littleEndian) == 0x0112) {
+                return readShort(data, entry + 8, littleEndian);
+            }
+        }
+        return 1;
+    }
+
+    private int readShort(byte[] data, int offset, boolean littleEndian) {
+        int b0 = data[offset] & 0xFF;
+        int b1 = data[offset + 1] & 0xFF;
+        return littleEndian ? (b1 << 8) | b0 : (b0 << 8) | b1;
+    }
+
+    private int readInt(byte[] data, int offset, boolean littleEndian) {
+        int high = readShort(data, offset + (littleEndian ? 2 : 0), littleEndian);
+        int low = readShort(data, offset + (littleEndian ? 0 : 2), littleEndian);
+        return (high << 16) | low;
+    }
+
+    private Path stagingDir() {
+        return Paths.get(uploadDir, STAGING_DIR);
+    }
+}
@@ -0,0 +1,698 @@
+package com.example.demo.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SSE 通知中心
+ * 每个订阅者有自己的有界发送队列，发布通知只入队不发送，由少量发送线程异步写出，
+ * 慢连接或已断开的连接不会阻塞发布通知的请求线程，也不会拖慢其他订阅者
+ * 同一合并键（如同一订单的 order_sync）尚未发出的通知只保留最新一条，并移到队尾，保证按事件ID递增的顺序发出
+ * 连接按用户和主题建立索引，定向推送只访问目标用户的连接；定时心跳用于发现并清理已断开的连接
+ * 发送卡住的连接被心跳移除时，其发送线程仍阻塞在写操作上，发送线程池临时补充一个线程顶替它，
+ * 阻塞的写操作返回（对端关闭或 TCP 超时）后再收回，卡住的连接再多也不会让其他连接收不到通知
+ * 每条通知分配递增的事件ID并保存在有界的最近事件队列中，客户端带 Last-Event-ID 重连时补发错过的通知，
+ * 错过的通知已不在队列中（或太多）时发送 resync 事件，由客户端重新加载完整数据；
+ * 队列满丢弃通知时同样在队尾追加 resync 事件，被丢弃的通知不会悄悄丢失
+ */
+@Component
+public class NotificationHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationHub.class);
+
+    // 每个订阅者一次连续发送的最大条数，发完后让出发送线程，避免一个订阅者占满线程
+    private static final int DRAIN_BATCH = 32;
+
+    // 心跳（SSE 注释行，客户端 EventSource 会忽略）
+    private static final Message HEARTBEAT = new Message(0, null, "heartbeat");
+
+    // 待发送队列中 resync 事件的键，不占用队列容量
+    private static final Object RESYNC_KEY = "resync";
+
+    /**
+     * 订阅者队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST,  // 丢弃最旧的通知（累计丢弃过多时断开）
+        DISCONNECT    // 直接断开连接，由客户端重连后重新同步
+    }
+
+    // 每个订阅者的待发送队列容量
+    @Value("${notification.queue-capacity:100}")
+    private int queueCapacity = 100;
+
+    // 发送线程数
+    @Value("${notification.sender-threads:2}")
+    private int senderThreads = 2;
+
+    @Value("${notification.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    // DROP_OLDEST 策略下单个订阅者累计丢弃达到该数量即断开
+    @Value("${notification.max-dropped:50}")
+    private int maxDropped = 50;
+
+    // 保留的最近事件数量（用于断线重连补发）
+    @Value("${notification.replay-capacity:1000}")
+    private int replayCapacity = 1000;
+
+    // SSE 连接超时时间（毫秒）
+    @Value("${notification.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs = 30 * 60 * 1000L;
+
+    // 单次发送超过该时间视为连接已失效（对端不再读取），心跳时清理（毫秒）
+    @Value("${notification.stall-timeout-ms:60000}")
+    private long stallTimeoutMs = 60000;
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    // 用户 → 该用户的所有连接
+    private final Map<String, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    // 主题 → 订阅了该主题的连接
+    private final Map<String, Set<Subscriber>> byTopic = new ConcurrentHashMap<>();
+    // 未指定主题的连接，接收所有主题的通知
+    private final Set<Subscriber> allTopics = ConcurrentHashMap.newKeySet();
+    private final AtomicLong clientSequence = new AtomicLong();
+    // 最近事件，按ID递增；由自身加锁保护，ID分配和入队在同一把锁内完成
+    private final ArrayDeque<Event> recentEvents = new ArrayDeque<>();
+    // 以启动时间为起点，重启后的事件ID仍大于重启前的（客户端据此判断需要全量同步）
+    private long latestEventId = System.currentTimeMillis() * 1000;
+    private ThreadPoolExecutor sender;
+
+    // 统计指标
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+    private final AtomicLong disconnected = new AtomicLong();
+    private final AtomicLong reaped = new AtomicLong();
+    private final AtomicLong heartbeats = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong totalSendNanos = new AtomicLong();
+    private volatile long maxSendNanos;
+
+    /**
+     * 待发送的通知（id 为0时不带事件ID，type 为null时作为注释行发送）
+     */
+    private static final class Message {
+        private final long id;
+        private final String type;
+        private final String data;
+
+        Message(long id, String type, String data) {
+            this.id = id;
+            this.type = type;
+            this.data = data;
+        }
+    }
+
+    /**
+     * 已发布的事件及其投递范围，用于重连补发
+     */
+    private static final class Event {
+        private final Message message;
+        private final Object coalesceKey;
+        // 定向推送的用户，为null时按主题投递
+        private final String userId;
+        // 所属主题，为null时投递给所有连接
+        private final Collection<String> topics;
+
+        Event(Message message, Object coalesceKey, String userId, Collection<String> topics) {
+            this.message = message;
+            this.coalesceKey = coalesceKey;
+            this.userId = userId;
+            this.topics = topics;
+        }
+
+        boolean matches(Subscriber subscriber) {
+            if (userId != null) {
+                return userId.equals(subscriber.userId);
+            }
+            if (topics == null || subscriber.topics.isEmpty()) {
+                return true;
+            }
+            for (String topic : topics) {
+                if (subscriber.topics.contains(topic)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 一个 SSE 连接及其待发送队列
+     */
+    private static final class Subscriber {
+        private final String clientId;
+        private final String userId;
+        private final Set<String> topics;
+        private final SseEmitter emitter;
+        // 登记时已补发到的事件ID，之后实时推送中ID不大于它的通知不再重复入队
+        private final long replayedUpTo;
+        // 待发送队列：键为合并键（无合并键时为通知本身），同键覆盖时移到队尾；由 this 加锁保护
+        private final LinkedHashMap<Object, Message> pending = new LinkedHashMap<>();
+        // 是否已有发送任务在处理该订阅者，保证同一连接同一时刻只有一个线程在写
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private int droppedCount;
+        private volatile boolean closed;
+        private volatile boolean completed;
+        // 当前这次发送的开始时间（纳秒），未在发送时为0
+        private volatile long sendStartedAt;
+        // 发送卡住被移除时为其补充了发送线程，写操作返回后收回
+        private final AtomicBoolean compensated = new AtomicBoolean();
+
+        Subscriber(String clientId, String userId, Set<String> topics, SseEmitter emitter, long replayedUpTo) {
+            this.clientId = clientId;
+            this.userId = userId;
+            this.topics = topics;
+            this.emitter = emitter;
+            this.replayedUpTo = replayedUpTo;
+        }
+
+        synchronized Message poll() {
+            Iterator<Message> it = pending.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            Message message = it.next();
+            it.remove();
+            return message;
+        }
+
+        synchronized boolean hasPending() {
+            return !pending.isEmpty();
+        }
+
+        synchronized int depth() {
+            return pending.size();
+        }
+
+        synchronized void clear() {
+            pending.clear();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        // 同一订阅者同一时刻最多一个发送任务，任务数不超过连接数
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "notification-sender-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * 用户在通知中心中的标识（管理员和普通用户ID可能重复，需带上角色）
+     */
+    public static String userKey(String role, Long userId) {
+        return role + ":" + userId;
+    }
+
+    /**
+     * 创建一个 SSE 订阅
+     *
+     * @param userId 用户标识（见 {@link #userKey}，用于定向推送）
+     * @param topics 订阅的主题（如 order:12、module:sample），为空时接收所有主题
+     * @param lastEventId 客户端收到的最后一个事件ID（重连时），为null时不补发
+     * @return SSE Emitter
+     */
+    public SseEmitter subscribe(String userId, Collection<String> topics, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        register(userId, topics, lastEventId, emitter);
+        return emitter;
+    }
+
+    /**
+     * 登记一个连接，排队发送连接成功消息和需要补发的通知
+     * 补发和加入索引在事件锁内完成，与并发发布的通知既不遗漏也不重复
+     *
+     * @return 客户端ID
+     */
+    String register(String userId, Collection<String> topics, Long lastEventId, SseEmitter emitter) {
+        String clientId = userId + "_" + clientSequence.incrementAndGet();
+        Set<String> topicSet = topics == null ? Collections.emptySet() : Collections.unmodifiableSet(new HashSet<>(topics));
+        Message connect = new Message(0, "connect",
+                "{\"status\":\"connected\",\"clientId\":\"" + clientId + "\"}");
+        Subscriber subscriber;
+        synchronized (recentEvents) {
+            subscriber = new Subscriber(clientId, userId, topicSet, emitter, latestEventId);
+            enqueue(subscriber, null, connect);
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.put(clientId, subscriber);
+            addToIndex(byUser, userId, subscriber);
+            if (topicSet.isEmpty()) {
+                allTopics.add(subscriber);
+            } else {
+                for (String topic : topicSet) {
+                    addToIndex(byTopic, topic, subscriber);
+                }
+            }
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        return clientId;
+    }
+
+    /**
+     * 补发 lastEventId 之后该连接应收到的通知；无法完整补发时改为发送 resync 事件
+     * 调用方持有事件锁
+     */
+    private void replay(Subscriber subscriber, long lastEventId) {
+        if (lastEventId >= latestEventId) {
+            // 没有错过任何通知（ID比当前还大说明来自其他实例，同样无法补发）
+            if (lastEventId > latestEventId) {
+                sendResync(subscriber);
+            }
+            return;
+        }
+        Event oldest = recentEvents.peekFirst();
+        if (oldest == null || oldest.message.id > lastEventId + 1) {
+            sendResync(subscriber);
+            return;
+        }
+        List<Event> missed = new ArrayList<>();
+        for (Event event : recentEvents) {
+            if (event.message.id > lastEventId && event.matches(subscriber)) {
+                missed.add(event);
+            }
+        }
+        // 连接成功消息已占一个位置，超出队列容量的补发会被丢弃，不如直接全量同步
+        if (missed.size() >= queueCapacity) {
+            sendResync(subscriber);
+            return;
+        }
+        for (Event event : missed) {
+            enqueue(subscriber, event.coalesceKey, event.message);
+        }
+        replayed.addAndGet(missed.size());
+    }
+
+    private void sendResync(Subscriber subscriber) {
+        resyncs.incrementAndGet();
+        enqueue(subscriber, RESYNC_KEY, new Message(latestEventId, "resync", "{\"reason\":\"events_expired\"}"));
+    }
+
+    /**
+     * 分配事件ID并记录到最近事件队列
+     */
+    private Message record(String type, String data, Object coalesceKey, String userId, Collection<String> topics) {
+        published.incrementAndGet();
+        synchronized (recentEvents) {
+            Message message = new Message(++latestEventId, type, data);
+            if (recentEvents.size() >= replayCapacity) {
+                recentEvents.pollFirst();
+            }
+            recentEvents.addLast(new Event(message, coalesceKey, userId, topics));
+            return message;
+        }
+    }
+
+    /**
+     * 向所有客户端广播通知
+     *
+     * @param type 通知类型（如 order_sync）
+     * @param data 通知内容
+     */
+    public void broadcast(String type, String data) {
+        broadcast(type, data, null);
+    }
+
+    /**
+     * 向所有客户端广播通知，同一合并键尚未发出的旧通知会被新通知替换
+     *
+     * @param type 通知类型
+     * @param data 通知内容
+     * @param coalesceKey 合并键（如 "order:1"），为null时不合并
+     */
+    public void broadcast(String type, String data, String coalesceKey) {
+        Object key = coalesceKey != null ? type + ":" + coalesceKey : null;
+        Message message = record(type, data, key, null, null);
+        for (Subscriber subscriber : subscribers.values()) {
+            deliver(subscriber, key, message);
+        }
+    }
+
+    /**
+     * 向订阅了任一主题的连接（以及未指定主题的连接）推送通知，每个连接最多收到一次
+     *
+     * @param topics 通知所属主题（如 module:order 和 order:12）
+     * @param type 通知类型
+     * @param data 通知内容
+     * @param coalesceKey 合并键，为null时不合并
+     */
+    public void publish(Collection<String> topics, String type, String data, String coalesceKey) {
+        Object key = coalesceKey != null ? type + ":" + coalesceKey : null;
+        Message message = record(type, data, key, null, new ArrayList<>(topics));
+        for (Subscriber subscriber : allTopics) {
+            deliver(subscriber, key, message);
+        }
+        // 指定了主题的连接不在 allTopics 中；同时订阅多个主题的连接只推送一次
+        Set<Subscriber> delivered = topics.size() > 1 ? new HashSet<>() : null;
+        for (String topic : topics) {
+            Set<Subscriber> targets = byTopic.get(topic);
+            if (targets == null) {
+                continue;
+            }
+            for (Subscriber subscriber : targets) {
+                if (delivered == null || delivered.add(subscriber)) {
+                    deliver(subscriber, key, message);
+                }
+            }
+        }
+    }
+
+    /**
+     * 向指定用户的所有连接推送通知
+     *
+     * @param userId 用户标识（见 {@link #userKey}）
+     * @param type 通知类型
+     * @param data 通知内容
+     */
+    public void sendToUser(String userId, String type, String data) {
+        Message message = record(type, data, null, userId, null);
+        Set<Subscriber> targets = byUser.get(userId);
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            deliver(subscriber, null, message);
+        }
+    }
+
+    /**
+     * 定时心跳：向空闲连接发送注释行，写失败的连接在发送线程中清理；
+     * 发送卡住超过 stall-timeout-ms 的连接（对端不再读取）直接移除，并为阻塞的发送线程补充一个线程
+     */
+    @Scheduled(fixedDelayString = "${notification.heartbeat-interval-ms:25000}",
+            initialDelayString = "${notification.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long stallNanos = TimeUnit.MILLISECONDS.toNanos(stallTimeoutMs);
+        for (Subscriber subscriber : subscribers.values()) {
+            long startedAt = subscriber.sendStartedAt;
+            if (startedAt != 0 && now - startedAt > stallNanos) {
+                logger.warn("SSE 连接 {} 发送超时，移除连接", subscriber.clientId);
+                if (remove(subscriber)) {
+                    reaped.incrementAndGet();
+                    compensate(subscriber, startedAt);
+                }
+                continue;
+            }
+            if (!subscriber.hasPending()) {
+                heartbeats.incrementAndGet();
+                enqueue(subscriber, HEARTBEAT, HEARTBEAT);
+            }
+        }
+    }
+
+    /**
+     * 为卡在写操作上的发送线程补充一个线程
+     * 补充后再确认写操作仍未返回，已返回时由这里收回（与 send 的 finally 只有一方能收回）
+     */
+    private void compensate(Subscriber subscriber, long startedAt) {
+        resizeSender(1);
+        subscriber.compensated.set(true);
+        if (subscriber.sendStartedAt != startedAt && subscriber.compensated.compareAndSet(true, false)) {
+            resizeSender(-1);
+        }
+    }
+
+    /**
+     * 调整发送线程数（核心数与最大数相同；增大时先调最大数，减小时先调核心数）
+     * 增加的线程立即处理排队中的发送任务，减少的线程在空闲时退出
+     */
+    private void resizeSender(int delta) {
+        synchronized (sender) {
+            int size = sender.getCorePoolSize() + delta;
+            if (delta > 0) {
+                sender.setMaximumPoolSize(size);
+                sender.setCorePoolSize(size);
+            } else {
+                sender.setCorePoolSize(size);
+                sender.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    /**
+     * 当前连接数
+     */
+    public int getConnectionCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 获取通知中心统计信息（连接数、队列深度、发送耗时、合并与丢弃数量等）
+     */
+    public Map<String, Object> getStats() {
+        int totalDepth = 0;
+        int maxDepth = 0;
+        for (Subscriber subscriber : subscribers.values()) {
+            int depth = subscriber.depth();
+            totalDepth += depth;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        long sentCount = sent.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("connections", subscribers.size());
+        stats.put("users", byUser.size());
+        stats.put("topics", byTopic.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("totalQueueDepth", totalDepth);
+        stats.put("maxQueueDepth", maxDepth);
+        stats.put("senderActiveThreads", sender.getActiveCount());
+        stats.put("senderPoolSize", sender.getCorePoolSize());
+        stats.put("published", published.get());
+        stats.put("sent", sentCount);
+        stats.put("coalesced", coalesced.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failedSends", failedSends.get());
+        stats.put("disconnected", disconnected.get());
+        stats.put("reaped", reaped.get());
+        stats.put("heartbeats", heartbeats.get());
+        stats.put("replayed", replayed.get());
+        stats.put("resyncs", resyncs.get());
+        synchronized (recentEvents) {
+            stats.put("recentEvents", recentEvents.size());
+            stats.put("latestEventId", latestEventId);
+        }
+        stats.put("avgSendMillis", sentCount == 0 ? 0.0 : totalSendNanos.get() / 1_000_000.0 / sentCount);
+        stats.put("maxSendMillis", maxSendNanos / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * 实时推送入队，跳过登记时已经补发过的通知
+     */
+    private void deliver(Subscriber subscriber, Object coalesceKey, Message message) {
+        if (message.id > subscriber.replayedUpTo) {
+            enqueue(subscriber, coalesceKey, message);
+        }
+    }
+
+    /**
+     * 通知入队（不阻塞），队列满时按策略处理
+     */
+    private void enqueue(Subscriber subscriber, Object coalesceKey, Message message) {
+        if (subscriber.closed) {
+            return;
+        }
+        boolean overflow = false;
+        synchronized (subscriber) {
+            if (coalesceKey != null && subscriber.pending.remove(coalesceKey) != null) {
+                // 移到队尾而不是原位覆盖：客户端按最后收到的事件ID补发，发送顺序必须与ID顺序一致
+                subscriber.pending.put(coalesceKey, message);
+                coalesced.incrementAndGet();
+            } else {
+                Message resync = subscriber.pending.get(RESYNC_KEY);
+                boolean dropOldest = false;
+                if (subscriber.pending.size() - (resync != null ? 1 : 0) >= queueCapacity) {
+                    if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                        overflow = true;
+                    } else {
+                        Iterator<Object> it = subscriber.pending.keySet().iterator();
+                        if (it.next() == RESYNC_KEY) {
+                            it.next();
+                        }
+                        it.remove();
+                        dropped.incrementAndGet();
+                        overflow = ++subscriber.droppedCount >= maxDropped;
+                        dropOldest = true;
+                    }
+                }
+                if (!overflow) {
+                    subscriber.pending.put(coalesceKey != null ? coalesceKey : message, message);
+                    if (dropOldest) {
+                        // 被丢弃的通知无法补发，resync 始终排在最后一条通知之后，ID与其相同
+                        if (resync == null) {
+                            resyncs.incrementAndGet();
+                        } else {
+                            subscriber.pending.remove(RESYNC_KEY);
+                        }
+                        subscriber.pending.put(RESYNC_KEY,
+                                new Message(message.id, "resync", "{\"reason\":\"events_dropped\"}"));
+                    }
+                }
+            }
+        }
+        if (overflow) {
+            logger.warn("SSE 连接 {} 消费过慢，断开连接", subscriber.clientId);
+            disconnect(subscriber);
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    /**
+     * 为订阅者安排一次发送任务（已有任务在处理时不重复安排）
+     */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * 在发送线程中写出订阅者队列中的通知；连接已关闭时在这里结束 SSE 响应
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            for (int i = 0; i < DRAIN_BATCH && !subscriber.closed; i++) {
+                Message message = subscriber.poll();
+                if (message == null) {
+                    break;
+                }
+                send(subscriber, message);
+            }
+            if (subscriber.closed && !subscriber.completed) {
+                subscriber.completed = true;
+                try {
+                    subscriber.emitter.complete();
+                } catch (Exception e) {
+                    // 连接已不可用
+                }
+            }
+        } finally {
+            subscriber.scheduled.set(false);
+            if (subscriber.closed ? !subscriber.completed : subscriber.hasPending()) {
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, Message message) {
+        long start = System.nanoTime();
+        subscriber.sendStartedAt = start;
+        try {
+            if (message.type == null) {
+                subscriber.emitter.send(SseEmitter.event().comment(message.data));
+            } else {
+                SseEmitter.SseEventBuilder event = SseEmitter.event().name(message.type).data(message.data);
+                if (message.id != 0) {
+                    event.id(String.valueOf(message.id));
+                }
+                subscriber.emitter.send(event);
+                sent.incrementAndGet();
+            }
+        } catch (Exception e) {
+            failedSends.incrementAndGet();
+            disconnect(subscriber);
+        } finally {
+            subscriber.sendStartedAt = 0;
+            if (subscriber.compensated.compareAndSet(true, false)) {
+                resizeSender(-1);
+            }
+            long elapsed = System.nanoTime() - start;
+            totalSendNanos.addAndGet(elapsed);
+            if (elapsed > maxSendNanos) {
+                maxSendNanos = elapsed;
+            }
+        }
+    }
+
+    /**
+     * 主动断开连接：立即停止入队，SSE 响应由发送线程结束，调用方不会被正在进行的写操作阻塞
+     */
+    private void disconnect(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            disconnected.incrementAndGet();
+        }
+        schedule(subscriber);
+    }
+
+    /**
+     * 移除连接并清空其队列
+     *
+     * @return 是否由本次调用移除
+     */
+    private boolean remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscriber.clear();
+        removeFromIndex(byUser, subscriber.userId, subscriber);
+        allTopics.remove(subscriber);
+        for (String topic : subscriber.topics) {
+            removeFromIndex(byTopic, topic, subscriber);
+        }
+        return subscribers.remove(subscriber.clientId, subscriber);
+    }
+
+    private static void addToIndex(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber) {
+        index.compute(key, (k, set) -> {
+            Set<Subscriber> result = set != null ? set : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+    }
+
+    private static void removeFromIndex(Map<String, Set<Subscriber>> index, String key, Subscriber subscriber) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.mapper.OperationLogMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * 操作日志分区维护
+ * operation_log 按 create_time 每月一个范围分区，分区名为 operation_log_pYYYYMM
+ * <ul>
+ *   <li>定时创建当月及之后若干个月的分区，写入不会落到兜底分区</li>
+ *   <li>清理旧日志时把整月都早于截止日期的分区摘除后删除，不产生大量 DELETE 的锁、WAL 和表膨胀；
+ *       保留粒度为整月，截止日期所在月份的分区会保留到整月过期</li>
+ *   <li>配置 archive-detached=true 时只摘除不删除，留给归档处理</li>
+ *   <li>普通摘除会短暂对 operation_log 加排它锁（日志写入有缓冲队列，只会延迟落库）；
+ *       PostgreSQL 14+ 且删除了兜底分区时可配置 detach-concurrently=true 避免阻塞日志查询和写入</li>
+ * </ul>
+ * 未升级为分区表的旧库仍按日期 DELETE
+ */
+@Component
+public class OperationLogPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationLogPartitionManager.class);
+
+    private static final String PARTITION_PREFIX = "operation_log_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private OperationLogMapper operationLogMapper;
+
+    // 提前创建的月份数（不含当月）
+    @Value("${operation-log.partition.months-ahead:3}")
+    private int monthsAhead = 3;
+
+    // 自动清理时保留的天数，0 表示不自动清理
+    @Value("${operation-log.retention-days:0}")
+    private int retentionDays = 0;
+
+    // 过期分区只摘除、不删除
+    @Value("${operation-log.partition.archive-detached:false}")
+    private boolean archiveDetached = false;
+
+    // 使用 DETACH PARTITION ... CONCURRENTLY（需要 PostgreSQL 14+，且 operation_log 没有兜底分区）
+    @Value("${operation-log.partition.detach-concurrently:false}")
+    private boolean detachConcurrently = false;
+
+    /**
+     * 定时维护：启动后立即执行一次，之后按间隔执行
+     */
+    @Scheduled(fixedDelayString = "${operation-log.partition.check-interval-ms:21600000}")
+    public void maintain() {
+        try {
+            ensurePartitions(LocalDate.now());
+            if (retentionDays > 0) {
+                dropBefore(LocalDate.now().minusDays(retentionDays));
+            }
+        } catch (Exception e) {
+            logger.warn("操作日志分区维护失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 创建 today 所在月份及之后 monthsAhead 个月的分区
+     *
+     * @return 本次新建的分区数量；不是分区表时返回0
+     */
+    public int ensurePartitions(LocalDate today) {
+        if (!operationLogMapper.isPartitioned()) {
+            return 0;
+        }
+        List<String> existing = operationLogMapper.selectPartitionNames();
+        YearMonth current = YearMonth.from(today);
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            if (existing.contains(name)) {
+                continue;
+            }
+            operationLogMapper.createPartition(name, month.atDay(1).toString(), month.plusMonths(1).atDay(1).toString());
+            logger.info("已创建操作日志分区 {}", name);
+            created++;
+        }
+        return created;
+    }
+
+    /**
+     * 清理截止日期之前的日志
+     * 分区表：摘除并删除整月早于 cutoff 的分区；普通表：按日期 DELETE
+     *
+     * @return 清理的日志条数（分区表为统计信息中的估算值，不为了计数扫描整个分区）
+     */
+    public int dropBefore(LocalDate cutoff) {
+        if (!operationLogMapper.isPartitioned()) {
+            return operationLogMapper.deleteByDate(cutoff.toString());
+        }
+        long removed = 0;
+        for (String name : operationLogMapper.selectPartitionNames()) {
+            YearMonth month = monthOf(name);
+            // 分区上界（下月1日）不晚于截止日期，说明整个分区都已过期
+            if (month == null || month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                continue;
+            }
+            long rows = operationLogMapper.estimatePartitionRows(name);
+            operationLogMapper.detachPartition(name, detachConcurrently);
+            if (!archiveDetached) {
+                operationLogMapper.dropTable(name);
+            }
+            logger.info("已{}操作日志分区 {}（约 {} 条）", archiveDetached ? "摘除" : "删除", name, rows);
+            removed += rows;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, removed);
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    /**
+     * 从分区名解析月份，不是按月命名的分区（如兜底分区）返回null
+     */
+    static YearMonth monthOf(String partitionName) {
+        if (partitionName == null || !partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
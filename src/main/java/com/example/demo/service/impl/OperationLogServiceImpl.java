@@ -1,17 +1,28 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dto.CursorPageDTO;
+import com.example.demo.dto.OperationLogSummaryDTO;
 import com.example.demo.entity.OperationLog;
+import com.example.demo.exception.BusinessException;
 import com.example.demo.mapper.OperationLogMapper;
 import com.example.demo.service.OperationLogService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 操作日志服务实现类
@@ -19,17 +30,41 @@ import java.util.List;
 @Service
 public class OperationLogServiceImpl implements OperationLogService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OperationLogServiceImpl.class);
+
+    /**
+     * 游标分页每页最大数量
+     */
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private OperationLogMapper operationLogMapper;
 
+    @Autowired
+    private OperationLogWriter operationLogWriter;
+
+    @Autowired
+    private OperationLogPartitionManager partitionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SubstringSearchIndex substringSearchIndex;
+
+    // 条件查询未指定开始时间时，默认查询结束时间（或当前时间）之前的天数
+    @Value("${operation-log.search-default-days:30}")
+    private int searchDefaultDays = 30;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
     /**
-     * 异步保存日志，不影响主业务
+     * 提交到批量写入队列，不阻塞主业务
      */
     @Override
-    @Async
     public void save(OperationLog log) {
         try {
-            operationLogMapper.insert(log);
+            operationLogWriter.submit(log);
         } catch (Exception e) {
             // 日志保存失败不影响主业务
             e.printStackTrace();
@@ -37,27 +72,85 @@ public class OperationLogServiceImpl implements OperationLogService {
     }
 
     @Override
-    public PageInfo<OperationLog> findByPage(int pageNum, int pageSize) {
+    public PageInfo<OperationLogSummaryDTO> findByPage(int pageNum, int pageSize) {
         PageHelper.startPage(pageNum, pageSize);
-        List<OperationLog> list = operationLogMapper.selectAll();
+        List<OperationLogSummaryDTO> list = operationLogMapper.selectAll();
         return new PageInfo<>(list);
     }
 
     @Override
-    public PageInfo<OperationLog> findByCondition(
+    public PageInfo<OperationLogSummaryDTO> findByCondition(
             String username,
             String module,
             String action,
             String startTime,
             String endTime,
             int pageNum,
-            int pageSize
+            int pageSize,
+            boolean estimateTotal
     ) {
-        PageHelper.startPage(pageNum, pageSize);
-        List<OperationLog> list = operationLogMapper.selectByCondition(
-                username, module, action, startTime, endTime
+        String[] range = timeRange(startTime, endTime);
+        OperatorFilter operator = operatorFilter(username);
+        if (operator.matchesNothing()) {
+            return new PageInfo<>(new ArrayList<>());
+        }
+        // 估算总数时不执行 COUNT(*)，总数取执行计划中的估算行数
+        PageHelper.startPage(pageNum, pageSize, !estimateTotal);
+        List<OperationLogSummaryDTO> list = operationLogMapper.selectByCondition(
+                operator.pattern, operator.names, module, action, range[0], range[1]
         );
-        return new PageInfo<>(list);
+        PageInfo<OperationLogSummaryDTO> pageInfo = new PageInfo<>(list);
+        if (estimateTotal) {
+            long total = estimateCount(operator, module, action, range[0], range[1]);
+            // 估算值可能小于已经翻到的位置，至少保证当前页可见
+            total = Math.max(total, (long) (pageNum - 1) * pageSize + list.size());
+            pageInfo.setTotal(total);
+            pageInfo.setPages(pageSize > 0 ? (int) ((total + pageSize - 1) / pageSize) : 0);
+            pageInfo.setHasNextPage(pageNum < pageInfo.getPages());
+            pageInfo.setIsLastPage(!pageInfo.isHasNextPage());
+        }
+        return pageInfo;
+    }
+
+    /**
+     * 游标分页条件查询日志
+     * 按 (create_time, id) 倒序，多查一条用于判断是否还有下一页，不执行 COUNT(*)
+     */
+    @Override
+    public CursorPageDTO<OperationLogSummaryDTO> findByCursor(
+            String username,
+            String module,
+            String action,
+            String startTime,
+            String endTime,
+            String after,
+            int limit,
+            boolean withTotal
+    ) {
+        String[] range = timeRange(startTime, endTime);
+        long[] cursor = parseCursor(after);
+        OperatorFilter operator = operatorFilter(username);
+        if (operator.matchesNothing()) {
+            return new CursorPageDTO<>(new ArrayList<>(), null, false);
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<OperationLogSummaryDTO> list = operationLogMapper.selectCursorPage(
+                operator.pattern, operator.names, module, action, range[0], range[1],
+                cursor != null ? cursor[0] : null, cursor != null ? cursor[1] : null, size + 1
+        );
+        boolean hasMore = list.size() > size;
+        if (hasMore) {
+            list = list.subList(0, size);
+        }
+        OperationLogSummaryDTO last = hasMore ? list.get(list.size() - 1) : null;
+        CursorPageDTO<OperationLogSummaryDTO> page = new CursorPageDTO<>(list, last != null ? last.getId() : null, hasMore);
+        if (last != null) {
+            page.setNextKey(last.getCreateMicros() + "_" + last.getId());
+        }
+        if (withTotal) {
+            page.setApproximateTotal(estimateCount(operator, module, action, range[0], range[1]));
+        }
+        return page;
     }
 
     @Override
@@ -65,15 +158,115 @@ public class OperationLogServiceImpl implements OperationLogService {
         return operationLogMapper.selectById(id);
     }
 
+    /**
+     * 按整月分区清理，见 {@link OperationLogPartitionManager#dropBefore}
+     */
     @Override
     public int cleanOldLogs(int days) {
-        LocalDate date = LocalDate.now().minusDays(days);
-        String dateStr = date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        return operationLogMapper.deleteByDate(dateStr);
+        return partitionManager.dropBefore(LocalDate.now().minusDays(days));
     }
 
     @Override
     public int cleanLoginLogs() {
         return operationLogMapper.deleteByAction("LOGIN");
     }
+
+    @Override
+    public Map<String, Object> getWriterStats() {
+        return operationLogWriter.getStats();
+    }
+
+    /**
+     * 查询的时间范围 [开始, 结束]，总是带上时间下限，查询只扫描范围内的月份分区
+     * 未指定开始时间时取结束时间（或当前时间）之前 searchDefaultDays 天
+     */
+    private String[] timeRange(String startTime, String endTime) {
+        LocalDateTime end = parseTime(endTime, true);
+        LocalDateTime start = parseTime(startTime, false);
+        if (start == null) {
+            start = (end != null ? end : LocalDateTime.now()).minusDays(searchDefaultDays);
+        }
+        return new String[]{start.format(TIME_FORMAT), end != null ? end.format(TIME_FORMAT) : null};
+    }
+
+    /**
+     * 按执行计划估算满足条件的行数（表统计信息由 ANALYZE/autovacuum 维护），失败时返回0
+     */
+    private long estimateCount(OperatorFilter operator, String module, String action, String startTime, String endTime) {
+        try {
+            String plan = operationLogMapper.explainCountByCondition(
+                    operator.pattern, operator.names, module, action, startTime, endTime);
+            JsonNode rows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            return rows.isNumber() ? rows.asLong() : 0;
+        } catch (Exception e) {
+            logger.warn("估算操作日志数量失败: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 操作人过滤条件：默认为包含匹配的 LIKE 模式（pg_trgm 索引）；
+     * 内存索引模式下先匹配出操作人姓名，SQL 中按姓名等值匹配
+     */
+    private OperatorFilter operatorFilter(String username) {
+        String pattern = SubstringSearchIndex.containsPattern(username);
+        if (pattern == null || !substringSearchIndex.isMemoryMode()) {
+            return new OperatorFilter(pattern, null);
+        }
+        return new OperatorFilter(pattern, substringSearchIndex.matchOperatorNames(username));
+    }
+
+    private static final class OperatorFilter {
+        private final String pattern;
+        private final String[] names;
+
+        OperatorFilter(String pattern, String[] names) {
+            this.pattern = pattern;
+            this.names = names;
+        }
+
+        /**
+         * 内存索引中没有匹配的操作人，不必查询数据库
+         */
+        boolean matchesNothing() {
+            return names != null && names.length == 0;
+        }
+    }
+
+    /**
+     * 解析游标 "微秒时间戳_ID"，为空时返回null
+     */
+    private static long[] parseCursor(String after) {
+        if (after == null || after.trim().isEmpty()) {
+            return null;
+        }
+        String[] parts = after.trim().split("_");
+        try {
+            if (parts.length == 2) {
+                return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+            }
+        } catch (NumberFormatException e) {
+            // 按格式错误处理
+        }
+        throw new BusinessException("游标格式不正确，请使用上一页返回的 nextKey");
+    }
+
+    /**
+     * 解析查询时间，支持 yyyy-MM-dd 和 yyyy-MM-dd HH:mm:ss
+     * 只有日期的结束时间保持原来的含义（当天 00:00:00）
+     */
+    private static LocalDateTime parseTime(String value, boolean end) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String text = value.trim().replace('T', ' ');
+        try {
+            if (text.length() <= 10) {
+                return LocalDate.parse(text).atStartOfDay();
+            }
+            return LocalDateTime.parse(text.length() == 16 ? text + ":00" : text, TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new BusinessException((end ? "结束" : "开始") + "时间格式不正确，应为 yyyy-MM-dd 或 yyyy-MM-dd HH:mm:ss");
+        }
+    }
 }
@@ -0,0 +1,313 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.OperationLog;
+import com.example.demo.mapper.OperationLogMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 操作日志批量写入器
+ * 日志先进入有界缓冲队列，由单个后台线程按数量或时间批量写入数据库（多行INSERT）
+ * 队列满时按配置的溢出策略处理：阻塞等待 / 丢弃最旧 / 落盘到本地文件
+ * 应用关闭时会把队列中剩余的日志全部写完
+ */
+@Component
+public class OperationLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationLogWriter.class);
+
+    // operation_log 写入列数，用于限制单条 INSERT 的参数个数（PostgreSQL 上限 32767）
+    private static final int INSERT_COLUMNS = 19;
+
+    // 空闲时的最长等待时间，保证关闭时后台线程能及时退出
+    private static final long IDLE_POLL_MILLIS = 200;
+
+    /**
+     * 队列满时的溢出策略
+     */
+    public enum OverflowPolicy {
+        BLOCK,        // 阻塞等待（超过等待时间仍无空间则丢弃）
+        DROP_OLDEST,  // 丢弃最旧的日志
+        SPILL         // 写入本地文件
+    }
+
+    @Autowired
+    private OperationLogMapper operationLogMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 缓冲队列容量
+    @Value("${operation-log.buffer-capacity:10000}")
+    private int capacity = 10000;
+
+    // 每批最多写入条数
+    @Value("${operation-log.batch-size:200}")
+    private int batchSize = 200;
+
+    // 最长刷新间隔（毫秒）
+    @Value("${operation-log.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+
+    @Value("${operation-log.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+
+    // BLOCK 策略下的最长等待时间（毫秒）
+    @Value("${operation-log.block-timeout-ms:500}")
+    private long blockTimeoutMs = 500;
+
+    // SPILL 策略下的落盘文件
+    @Value("${operation-log.spill-file:logs/operation-log-spill.jsonl}")
+    private String spillFile = "logs/operation-log-spill.jsonl";
+
+    private BlockingQueue<OperationLog> buffer;
+    private Thread drainer;
+    private volatile boolean running;
+
+    // 统计指标
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    @PostConstruct
+    public void start() {
+        batchSize = Math.max(1, Math.min(batchSize, 32767 / INSERT_COLUMNS));
+        buffer = new ArrayBlockingQueue<>(capacity);
+        running = true;
+        drainer = new Thread(this::drainLoop, "operation-log-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * 应用关闭时停止后台线程，并把剩余日志写完
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            drainer.join(Math.max(5000, flushIntervalMs * 2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 后台线程未能及时退出时，由当前线程兜底写完
+        List<OperationLog> remaining = new ArrayList<>();
+        while (buffer.drainTo(remaining, batchSize) > 0) {
+            flush(remaining);
+            remaining.clear();
+        }
+    }
+
+    /**
+     * 提交一条日志（不等待写库）
+     *
+     * @param log 操作日志
+     */
+    public void submit(OperationLog log) {
+        // 批量写入有延迟，在提交时记录实际发生时间
+        if (log.getCreateTime() == null) {
+            log.setCreateTime(new Date());
+        }
+        if (buffer.offer(log)) {
+            enqueued.incrementAndGet();
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (buffer.offer(log, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        enqueued.incrementAndGet();
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.incrementAndGet();
+                break;
+            case SPILL:
+                spill(Collections.singletonList(log));
+                break;
+            case DROP_OLDEST:
+            default:
+                while (!buffer.offer(log)) {
+                    if (buffer.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                enqueued.incrementAndGet();
+                break;
+        }
+    }
+
+    /**
+     * 获取写入器统计信息（队列深度、刷新耗时、丢弃数量等）
+     */
+    public Map<String, Object> getStats() {
+        long flushes = flushCount.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", buffer.size());
+        stats.put("capacity", capacity);
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("enqueued", enqueued.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("spilled", spilled.get());
+        stats.put("flushCount", flushes);
+        stats.put("failedFlushCount", failedFlushCount.get());
+        stats.put("avgFlushMillis", flushes == 0 ? 0.0 : totalFlushNanos.get() / 1_000_000.0 / flushes);
+        stats.put("lastFlushMillis", lastFlushNanos / 1_000_000.0);
+        stats.put("maxFlushMillis", maxFlushNanos / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * 后台写入循环：攒够一批或到达刷新间隔即写库
+     */
+    private void drainLoop() {
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                OperationLog first = buffer.poll(Math.min(flushIntervalMs, IDLE_POLL_MILLIS), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    if (buffer.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long waitNanos = deadline - System.nanoTime();
+                    if (waitNanos <= 0 || !running) {
+                        break;
+                    }
+                    OperationLog next = buffer.poll(
+                            Math.min(waitNanos, TimeUnit.MILLISECONDS.toNanos(IDLE_POLL_MILLIS)), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } catch (Exception e) {
+                logger.error("操作日志写入线程异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 批量写库；整批失败时逐条重试，只把仍然失败的日志按策略落盘或计入丢弃
+     * （一条超长字段等坏数据不会连累同批的其他日志）
+     */
+    private void flush(List<OperationLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            operationLogMapper.insertBatch(batch);
+            written.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedFlushCount.incrementAndGet();
+            logger.warn("批量写入操作日志失败，改为逐条写入，共 {} 条: {}", batch.size(), e.getMessage());
+            List<OperationLog> failed = insertEach(batch);
+            if (!failed.isEmpty()) {
+                if (overflowPolicy == OverflowPolicy.SPILL) {
+                    spill(failed);
+                } else {
+                    dropped.addAndGet(failed.size());
+                }
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            flushCount.incrementAndGet();
+            totalFlushNanos.addAndGet(elapsed);
+            lastFlushNanos = elapsed;
+            if (elapsed > maxFlushNanos) {
+                maxFlushNanos = elapsed;
+            }
+        }
+    }
+
+    /**
+     * 逐条写库
+     *
+     * @return 写入失败的日志
+     */
+    private List<OperationLog> insertEach(List<OperationLog> batch) {
+        List<OperationLog> failed = new ArrayList<>();
+        Exception lastError = null;
+        for (OperationLog log : batch) {
+            try {
+                operationLogMapper.insert(log);
+                written.incrementAndGet();
+            } catch (Exception e) {
+                failed.add(log);
+                lastError = e;
+            }
+        }
+        if (!failed.isEmpty()) {
+            logger.error("逐条写入操作日志仍有 {} 条失败", failed.size(), lastError);
+        }
+        return failed;
+    }
+
+    /**
+     * 把日志以 JSON Lines 格式追加到本地文件
+     */
+    private synchronized void spill(List<OperationLog> logs) {
+        Path path = Paths.get(spillFile);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (OperationLog log : logs) {
+                    writer.write(objectMapper.writeValueAsString(log));
+                    writer.newLine();
+                }
+            }
+            spilled.addAndGet(logs.size());
+        } catch (IOException e) {
+            logger.error("操作日志落盘失败，丢弃 {} 条", logs.size(), e);
+            dropped.addAndGet(logs.size());
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.exception.BusinessException;
+import com.example.demo.service.ProxyService;
+import com.example.demo.util.AsyncTtlCache;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 第三方API代理服务实现
+ * 使用共享的 java.net.http.HttpClient：连接池复用 keep-alive 连接，避免每次调用重新握手；
+ * 连接和读取都有超时；每个上游有独立的并发上限，超出时立即失败而不是排队，
+ * 一个上游变慢不会耗尽其他上游的连接和服务端线程
+ * 天气按城市、日历按日期缓存：过期后先返回旧数据并在后台刷新，同一个键同时只请求一次上游，上游失败的结果短暂缓存
+ * （HTTP 200 但响应体中状态为失败的同样算失败；本地并发上限的拒绝不缓存）
+ * 百度OCR的access_token读取不加锁；到期前在后台提前刷新，并发的刷新合并为一次请求
+ */
+@Service
+public class ProxyServiceImpl implements ProxyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyServiceImpl.class);
+
+    private static final TypeReference<Map<String, Object>> JSON_MAP = new TypeReference<Map<String, Object>>() {};
+
+    // 日历上游按北京时间计算“当天”
+    private static final ZoneId CALENDAR_ZONE = ZoneId.of("Asia/Shanghai");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 百度OCR配置
+    @Value("${baidu.ocr.ak:}")
+    private String baiduOcrAk = "";
+
+    @Value("${baidu.ocr.sk:}")
+    private String baiduOcrSk = "";
+
+    @Value("${baidu.ocr.token-url:https://aip.baidubce.com/oauth/2.0/token}")
+    private String baiduTokenUrl = "https://aip.baidubce.com/oauth/2.0/token";
+
+    @Value("${baidu.ocr.recognize-url:https://aip.baidubce.com/rest/2.0/ocr/v1/accurate_basic}")
+    private String baiduRecognizeUrl = "https://aip.baidubce.com/rest/2.0/ocr/v1/accurate_basic";
+
+    // access_token 到期前多久开始在后台刷新（毫秒）
+    @Value("${baidu.ocr.token-refresh-ahead-ms:3600000}")
+    private long tokenRefreshAheadMs = 3600000;
+
+    // 高德天气配置
+    @Value("${amap.weather.key:}")
+    private String amapWeatherKey = "";
+
+    @Value("${amap.weather.city:440300}")
+    private String amapCityCode = "440300";
+
+    @Value("${amap.weather.url:https://restapi.amap.com/v3/weather/weatherInfo}")
+    private String amapWeatherUrl = "https://restapi.amap.com/v3/weather/weatherInfo";
+
+    // 日历API配置
+    @Value("${calendar.api.id:}")
+    private String calendarApiId = "";
+
+    @Value("${calendar.api.key:}")
+    private String calendarApiKey = "";
+
+    @Value("${calendar.api.url:https://cn.apihz.cn/api/time/getday.php}")
+    private String calendarApiUrl = "https://cn.apihz.cn/api/time/getday.php";
+
+    // 建立连接超时（毫秒）
+    @Value("${proxy.connect-timeout-ms:3000}")
+    private long connectTimeoutMs = 3000;
+
+    // 等待上游响应超时（毫秒）；OCR识别耗时较长，单独配置
+    @Value("${proxy.read-timeout-ms:5000}")
+    private long readTimeoutMs = 5000;
+
+    @Value("${proxy.ocr-timeout-ms:15000}")
+    private long ocrTimeoutMs = 15000;
+
+    // 每个上游同时进行中的请求上限
+    @Value("${proxy.max-concurrent-per-upstream:20}")
+    private int maxConcurrentPerUpstream = 20;
+
+    // 天气缓存（按城市）：新鲜期、过期后仍可返回旧值的时长（毫秒）
+    @Value("${proxy.cache.weather-ttl-ms:600000}")
+    private long weatherTtlMs = 600000;
+
+    @Value("${proxy.cache.weather-stale-ms:3600000}")
+    private long weatherStaleMs = 3600000;
+
+    // 日历缓存（按日期）
+    @Value("${proxy.cache.calendar-ttl-ms:21600000}")
+    private long calendarTtlMs = 21600000;
+
+    @Value("${proxy.cache.calendar-stale-ms:86400000}")
+    private long calendarStaleMs = 86400000;
+
+    // 上游失败结果的缓存时长（毫秒）
+    @Value("${proxy.cache.error-ttl-ms:30000}")
+    private long errorTtlMs = 30000;
+
+    @Value("${proxy.cache.max-entries:1000}")
+    private int cacheMaxEntries = 1000;
+
+    private HttpClient httpClient;
+    private AsyncTtlCache<String, Map<String, Object>> weatherCache;
+    private AsyncTtlCache<String, Map<String, Object>> calendarCache;
+    private Upstream weather;
+    private Upstream calendar;
+    private Upstream baiduOauth;
+    private Upstream baiduOcr;
+
+    // 当前的百度OCR access_token（不可变，整体替换），读取不加锁
+    private final AtomicReference<AccessToken> ocrToken = new AtomicReference<>();
+
+    // 进行中的 access_token 刷新，同一时刻最多一个
+    private final AtomicReference<CompletableFuture<AccessToken>> ocrTokenRefresh = new AtomicReference<>();
+
+    /**
+     * 百度OCR的access_token及其过期时间、开始刷新时间（不可变）
+     */
+    private static final class AccessToken {
+        private final String value;
+        private final long expireTime;
+        private final long refreshTime;
+
+        AccessToken(String value, long expireTime, long refreshTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+            this.refreshTime = refreshTime;
+        }
+    }
+
+    /**
+     * 上游并发已达上限时的本地拒绝：不代表上游故障，不做失败缓存
+     */
+    private static final class UpstreamBusyException extends BusinessException {
+        UpstreamBusyException() {
+            super("上游服务繁忙，请稍后再试", 503);
+        }
+    }
+
+    /**
+     * 一个上游服务的并发控制和调用统计
+     */
+    private static final class Upstream {
+        private final String name;
+        private final Semaphore permits;
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong timedOut = new AtomicLong();
+
+        Upstream(String name, int maxConcurrent) {
+            this.name = name;
+            this.permits = new Semaphore(maxConcurrent);
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        weather = new Upstream("weather", maxConcurrentPerUpstream);
+        calendar = new Upstream("calendar", maxConcurrentPerUpstream);
+        baiduOauth = new Upstream("baiduOauth", maxConcurrentPerUpstream);
+        baiduOcr = new Upstream("baiduOcr", maxConcurrentPerUpstream);
+        weatherCache = new AsyncTtlCache<>(weatherTtlMs, weatherStaleMs, errorTtlMs, cacheMaxEntries,
+                error -> !(error instanceof UpstreamBusyException));
+        calendarCache = new AsyncTtlCache<>(calendarTtlMs, calendarStaleMs, errorTtlMs, cacheMaxEntries,
+                error -> !(error instanceof UpstreamBusyException));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> getWeather(String city) {
+        String cityCode = city != null ? city : amapCityCode;
+        return weatherCache.get(cityCode, this::fetchWeather);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> getCalendar(String date) {
+        // 不传日期时上游返回当天（北京时间），按实际日期缓存，跨天后自然换键
+        String key = date != null ? date : "today:" + LocalDate.now(CALENDAR_ZONE);
+        return calendarCache.get(key, k -> fetchCalendar(date));
+    }
+
+    private CompletableFuture<Map<String, Object>> fetchWeather(String cityCode) {
+        URI uri = UriComponentsBuilder
+                .fromHttpUrl(amapWeatherUrl)
+                .queryParam("key", amapWeatherKey)
+                .queryParam("city", cityCode)
+                .queryParam("extensions", "base")
+                .build()
+                .encode()
+                .toUri();
+        // 高德的 key 错误、超出配额等以 HTTP 200 返回，status 为 "0"，info 为原因
+        return send(weather, HttpRequest.newBuilder(uri).timeout(Duration.ofMillis(readTimeoutMs)).GET().build())
+                .thenApply(body -> checkBody(weather, body, "status", "1", "info"));
+    }
+
+    private CompletableFuture<Map<String, Object>> fetchCalendar(String date) {
+        UriComponentsBuilder builder = UriComponentsBuilder
+                .fromHttpUrl(calendarApiUrl)
+                .queryParam("id", calendarApiId)
+                .queryParam("key", calendarApiKey);
+        if (date != null) {
+            builder.queryParam("date", date);
+        }
+        URI uri = builder.build().encode().toUri();
+        // 日历接口出错时响应体中的 code 不为200，msg 为原因
+        return send(calendar, HttpRequest.newBuilder(uri).timeout(Duration.ofMillis(readTimeoutMs)).GET().build())
+                .thenApply(body -> checkBody(calendar, body, "code", "200", "msg"));
+    }
+
+    /**
+     * 检查响应体中的业务状态，失败时抛出异常（由缓存按失败结果短暂缓存，而不是当作正常数据长期缓存）
+     */
+    private Map<String, Object> checkBody(Upstream upstream, Map<String, Object> body,
+                                          String statusField, String okStatus, String messageField) {
+        if (!okStatus.equals(String.valueOf(body.get(statusField)))) {
+            upstream.failed.incrementAndGet();
+            logger.warn("上游服务 {} 返回错误: {}={}, {}", upstream.name, statusField, body.get(statusField),
+                    body.get(messageField));
+            throw new BusinessException("上游服务返回错误: " + body.get(messageField), 502);
+        }
+        return Collections.unmodifiableMap(body);
+    }
+
+    @Override
+    public CompletableFuture<String> getOcrToken() {
+        AccessToken current = ocrToken.get();
+        long now = System.currentTimeMillis();
+        if (current != null && now < current.expireTime) {
+            // 已进入刷新窗口时在后台刷新，本次仍返回当前token，不等待
+            if (now >= current.refreshTime) {
+                refreshOcrToken();
+            }
+            return CompletableFuture.completedFuture(current.value);
+        }
+        return refreshOcrToken().thenApply(token -> token.value);
+    }
+
+    /**
+     * 定时检查 access_token，进入刷新窗口后主动刷新，避免空闲一段时间后的首个请求等待换取token
+     * 从未获取过token时不刷新
+     */
+    @Scheduled(fixedDelayString = "${baidu.ocr.token-check-interval-ms:60000}",
+            initialDelayString = "${baidu.ocr.token-check-interval-ms:60000}")
+    public void refreshOcrTokenIfNeeded() {
+        AccessToken current = ocrToken.get();
+        if (current != null && System.currentTimeMillis() >= current.refreshTime) {
+            refreshOcrToken();
+        }
+    }
+
+    /**
+     * 刷新 access_token；已有刷新在进行时直接返回它的 Future
+     */
+    private CompletableFuture<AccessToken> refreshOcrToken() {
+        while (true) {
+            CompletableFuture<AccessToken> inFlight = ocrTokenRefresh.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<AccessToken> promise = new CompletableFuture<>();
+            if (!ocrTokenRefresh.compareAndSet(null, promise)) {
+                continue;
+            }
+            // 抢到刷新权之前可能刚有一次刷新完成，此时不再重复请求
+            AccessToken latest = ocrToken.get();
+            if (latest != null && System.currentTimeMillis() < latest.refreshTime) {
+                ocrTokenRefresh.compareAndSet(promise, null);
+                promise.complete(latest);
+                return promise;
+            }
+            fetchOcrToken().whenComplete((token, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause == null) {
+                    ocrToken.set(token);
+                } else {
+                    onOcrTokenRefreshFailed(cause);
+                }
+                // 先更新token再清除进行中的标记，之后的请求一定能看到新token
+                ocrTokenRefresh.compareAndSet(promise, null);
+                if (cause == null) {
+                    promise.complete(token);
+                } else {
+                    promise.completeExceptionally(cause);
+                }
+            });
+            return promise;
+        }
+    }
+
+    /**
+     * 刷新失败：当前token仍有效时继续使用，并推迟下次刷新，避免每个请求都去重试
+     */
+    private void onOcrTokenRefreshFailed(Throwable cause) {
+        logger.warn("刷新百度access_token失败: {}", cause.getMessage());
+        AccessToken current = ocrToken.get();
+        long now = System.currentTimeMillis();
+        if (current != null && now < current.expireTime) {
+            long retryTime = Math.min(now + errorTtlMs, current.expireTime);
+            ocrToken.compareAndSet(current, new AccessToken(current.value, current.expireTime, retryTime));
+        }
+    }
+
+    private CompletableFuture<AccessToken> fetchOcrToken() {
+        URI uri = UriComponentsBuilder
+                .fromHttpUrl(baiduTokenUrl)
+                .queryParam("grant_type", "client_credentials")
+                .queryParam("client_id", baiduOcrAk)
+                .queryParam("client_secret", baiduOcrSk)
+                .build()
+                .encode()
+                .toUri();
+        return send(baiduOauth, HttpRequest.newBuilder(uri).timeout(Duration.ofMillis(readTimeoutMs)).GET().build())
+                .thenApply(body -> {
+                    Object token = body.get("access_token");
+                    if (token == null) {
+                        throw new BusinessException("获取百度access_token失败", 502);
+                    }
+                    // 设置过期时间（提前5分钟过期），再提前 tokenRefreshAheadMs 开始刷新
+                    Object expiresIn = body.getOrDefault("expires_in", 2592000);
+                    long expiresInSeconds = expiresIn instanceof Number ? ((Number) expiresIn).longValue() : 2592000;
+                    long now = System.currentTimeMillis();
+                    long expireTime = now + (expiresInSeconds - 300) * 1000L;
+                    long refreshTime = Math.max(now, expireTime - tokenRefreshAheadMs);
+                    return new AccessToken(token.toString(), expireTime, refreshTime);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> recognize(String image) {
+        return getOcrToken().thenCompose(token -> {
+            URI uri = UriComponentsBuilder
+                    .fromHttpUrl(baiduRecognizeUrl)
+                    .queryParam("access_token", token)
+                    .build()
+                    .encode()
+                    .toUri();
+            String body = "image=" + URLEncoder.encode(image, StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(ocrTimeoutMs))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            return send(baiduOcr, request);
+        });
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Upstream upstream : new Upstream[]{weather, calendar, baiduOauth, baiduOcr}) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("inFlight", maxConcurrentPerUpstream - upstream.permits.availablePermits());
+            item.put("maxConcurrent", maxConcurrentPerUpstream);
+            item.put("requests", upstream.requests.get());
+            item.put("rejected", upstream.rejected.get());
+            item.put("failed", upstream.failed.get());
+            item.put("timedOut", upstream.timedOut.get());
+            stats.put(upstream.name, item);
+        }
+        stats.put("weatherCache", weatherCache.getStats());
+        stats.put("calendarCache", calendarCache.getStats());
+
+        AccessToken token = ocrToken.get();
+        Map<String, Object> tokenStats = new HashMap<>();
+        tokenStats.put("valid", token != null && System.currentTimeMillis() < token.expireTime);
+        tokenStats.put("expireTime", token != null ? token.expireTime : null);
+        tokenStats.put("refreshTime", token != null ? token.refreshTime : null);
+        tokenStats.put("refreshing", ocrTokenRefresh.get() != null);
+        stats.put("ocrToken", tokenStats);
+        return stats;
+    }
+
+    /**
+     * 异步发送请求并解析JSON响应，受上游并发上限约束
+     */
+    private CompletableFuture<Map<String, Object>> send(Upstream upstream, HttpRequest request) {
+        if (!upstream.permits.tryAcquire()) {
+            upstream.rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new UpstreamBusyException());
+        }
+        upstream.requests.incrementAndGet();
+        CompletableFuture<HttpResponse<byte[]>> call;
+        try {
+            call = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            upstream.permits.release();
+            upstream.failed.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+        return call.handle((response, error) -> {
+            upstream.permits.release();
+            if (error != null) {
+                throw new CompletionException(translate(upstream, error));
+            }
+            if (response.statusCode() >= 400) {
+                upstream.failed.incrementAndGet();
+                throw new CompletionException(new BusinessException("上游服务返回状态码 " + response.statusCode(), 502));
+            }
+            try {
+                return objectMapper.readValue(response.body(), JSON_MAP);
+            } catch (IOException e) {
+                upstream.failed.incrementAndGet();
+                throw new CompletionException(new BusinessException("上游服务返回的数据无法解析", 502));
+            }
+        });
+    }
+
+    /**
+     * 把网络异常转换为业务异常
+     */
+    private BusinessException translate(Upstream upstream, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof HttpTimeoutException) {
+            upstream.timedOut.incrementAndGet();
+            return new BusinessException("请求上游服务超时", 504);
+        }
+        upstream.failed.incrementAndGet();
+        if (cause instanceof ConnectException) {
+            return new BusinessException("无法连接上游服务", 502);
+        }
+        logger.warn("调用上游服务 {} 失败: {}", upstream.name, cause.toString());
+        return new BusinessException("调用上游服务失败: " + cause.getMessage(), 502);
+    }
+}
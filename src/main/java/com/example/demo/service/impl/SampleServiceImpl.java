@@ -1,6 +1,9 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.DeleteResultDTO;
+import com.example.demo.dto.SampleQueryDTO;
+import com.example.demo.entity.ImageStatus;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.entity.Sample;
 import com.example.demo.entity.Order;
@@ -10,10 +13,15 @@ import com.example.demo.mapper.OrderMapper;
 import com.example.demo.service.OperationLogService;
 import com.example.demo.service.SampleService;
 import com.example.demo.service.FileService;
+import com.example.demo.service.ImageProcessingService;
+import com.example.demo.util.JsonTruncator;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -21,10 +29,15 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 样品服务实现类
@@ -48,6 +61,16 @@ public class SampleServiceImpl implements SampleService {
         "jpg", "jpeg", "png", "gif", "webp", "bmp"
     ));
 
+    /**
+     * 游标分页每页最大数量
+     */
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * 总数缓存的最大条目数（按过滤条件区分）
+     */
+    private static final int COUNT_CACHE_MAX_ENTRIES = 256;
+
     /**
      * 样品数据访问对象
      * 用于对样品数据进行CRUD操作
@@ -76,9 +99,23 @@ public class SampleServiceImpl implements SampleService {
     @Autowired
     private FileService fileService;
 
+    /**
+     * 图片后台处理服务
+     * 上传的图片在后台完成校验、处理和入库
+     */
+    @Autowired
+    private ImageProcessingService imageProcessingService;
+
     @Autowired
     private OperationLogService operationLogService;
 
+    // 近似总数缓存有效期（毫秒）
+    @Value("${sample.count-cache-ttl-ms:60000}")
+    private long countCacheTtlMs = 60000;
+
+    // 过滤条件 -> {总数, 过期时间}
+    private final Map<String, long[]> countCache = new ConcurrentHashMap<>();
+
     /**
      * 获取所有样品信息
      *
@@ -104,6 +141,74 @@ public class SampleServiceImpl implements SampleService {
         return new PageInfo<>(list);
     }
 
+    /**
+     * 游标分页获取样品列表
+     * 多查一条用于判断是否还有下一页，避免额外的 COUNT 查询
+     */
+    @Override
+    public CursorPageDTO<Sample> getByCursor(SampleQueryDTO query, Long after, int limit, boolean withTotal) {
+        SampleQueryDTO filter = query != null ? query : new SampleQueryDTO();
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Sample> list = sampleMapper.selectPage(filter, after, size + 1);
+        boolean hasMore = list.size() > size;
+        if (hasMore) {
+            list = list.subList(0, size);
+        }
+        Long nextCursor = hasMore ? list.get(list.size() - 1).getId() : null;
+        CursorPageDTO<Sample> page = new CursorPageDTO<>(list, nextCursor, hasMore);
+        if (withTotal) {
+            page.setApproximateTotal(approximateTotal(filter));
+        }
+        return page;
+    }
+
+    /**
+     * 流式导出，结果集通过数据库游标分批读取，逐条写入响应
+     * 在只读事务中执行，PostgreSQL 驱动只有在非自动提交模式下才会按 fetchSize 分批
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportSamples(SampleQueryDTO query, OutputStream out) throws IOException {
+        SampleQueryDTO filter = query != null ? query : new SampleQueryDTO();
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Cursor<Sample> cursor = sampleMapper.selectForExport(filter)) {
+            generator.writeStartArray();
+            for (Sample sample : cursor) {
+                generator.writeObject(sample);
+            }
+            generator.writeEndArray();
+        } finally {
+            generator.close();
+        }
+    }
+
+    /**
+     * 近似总数：无过滤条件时读表统计信息，有过滤条件时精确统计；结果按条件缓存一段时间
+     */
+    private long approximateTotal(SampleQueryDTO query) {
+        String key = query.cacheKey();
+        long now = System.currentTimeMillis();
+        long[] cached = countCache.get(key);
+        if (cached != null && cached[1] > now) {
+            return cached[0];
+        }
+
+        long total;
+        Long estimate = query.isEmpty() ? sampleMapper.estimateCount() : null;
+        if (estimate != null && estimate >= 0) {
+            total = estimate;
+        } else {
+            total = sampleMapper.countByQuery(query);
+        }
+
+        if (countCache.size() >= COUNT_CACHE_MAX_ENTRIES) {
+            countCache.clear();
+        }
+        countCache.put(key, new long[]{total, now + countCacheTtlMs});
+        return total;
+    }
+
     /**
      * 根据ID获取样品详细信息
      *
@@ -125,6 +230,9 @@ public class SampleServiceImpl implements SampleService {
     @Override
     @Transactional
     public Long save(Sample sample) {
+        if (sample.getImageStatus() == null) {
+            sample.setImageStatus(sample.getImage() != null ? ImageStatus.READY : ImageStatus.NONE);
+        }
         // 插入样品记录并返回生成的ID
         sampleMapper.insert(sample);
         return sample.getId();
@@ -195,11 +303,7 @@ public class SampleServiceImpl implements SampleService {
 
             // 记录被删除的订单数据
             try {
-                String oldDataStr = objectMapper.writeValueAsString(order);
-                if (oldDataStr.length() > 5000) {
-                    oldDataStr = oldDataStr.substring(0, 5000) + "...";
-                }
-                log.setOldData(oldDataStr);
+                log.setOldData(JsonTruncator.toJson(objectMapper, order, 5000));
             } catch (Exception e) {
                 log.setOldData("序列化失败");
             }
@@ -257,12 +361,14 @@ public class SampleServiceImpl implements SampleService {
 
     /**
      * 创建新样品，同时处理图片上传
+     * 图片先落到暂存目录，样品只执行一条 INSERT（状态为 PROCESSING），
+     * 图片的校验、处理和入库由后台流水线完成，数据库连接不再在磁盘 I/O 期间被占用
      *
-     * @return 创建后的样品对象
+     * @return 创建后的样品对象（重新查询，包含关联的客户名称和数据库默认值）
      */
     @Override
-    @Transactional
     public Sample createSample(String sampleJson, MultipartFile image) {
+        Path staged = null;
         try {
             Sample sample = objectMapper.readValue(sampleJson, Sample.class);
             
@@ -271,34 +377,35 @@ public class SampleServiceImpl implements SampleService {
                 if (validationError != null) {
                     throw new BusinessException(validationError);
                 }
+                staged = imageProcessingService.stage(image);
+                sample.setImage(null);
+                sample.setImageStatus(ImageStatus.PROCESSING);
             }
             
             Long id = save(sample);
             
-            if (image != null && !image.isEmpty()) {
-                String fileName = fileService.generateFileName(image.getOriginalFilename(), id);
-                String imagePath = fileService.saveFile(image, fileName);
-                sample.setId(id);
-                sample.setImage(imagePath);
-                update(sample);
+            if (staged != null) {
+                imageProcessingService.process(id, staged);
             }
-            
             return getById(id);
         } catch (BusinessException e) {
+            imageProcessingService.discard(staged);
             throw e;
         } catch (Exception e) {
+            imageProcessingService.discard(staged);
             throw new BusinessException("创建样品失败：" + e.getMessage(), e);
         }
     }
 
     /**
      * 更新现有样品信息，同时处理图片上传
+     * 上传新图片时保留旧图片直到后台处理完成，由流水线替换并删除旧图片
      *
      * @return 更新后的样品对象
      */
     @Override
-    @Transactional
     public Sample updateSample(Long id, String sampleJson, MultipartFile image) {
+        Path staged = null;
         try {
             Sample sample = objectMapper.readValue(sampleJson, Sample.class);
             sample.setId(id);
@@ -310,29 +417,31 @@ public class SampleServiceImpl implements SampleService {
                 }
                 
                 Sample existingSample = getById(id);
-                if (existingSample != null && existingSample.getImage() != null) {
-                    fileService.deleteFile(existingSample.getImage());
-                }
-                
-                String fileName = fileService.generateFileName(image.getOriginalFilename(), id);
-                String imagePath = fileService.saveFile(image, fileName);
-                sample.setImage(imagePath);
+                staged = imageProcessingService.stage(image);
+                sample.setImage(existingSample != null ? existingSample.getImage() : null);
+                sample.setImageStatus(ImageStatus.PROCESSING);
             } else if (image != null && image.isEmpty()) {
                 Sample existingSample = getById(id);
                 if (existingSample != null && existingSample.getImage() != null) {
                     fileService.deleteFile(existingSample.getImage());
                 }
                 sample.setImage(null);
+                sample.setImageStatus(ImageStatus.NONE);
             }
             
             boolean result = update(sample);
             if (!result) {
                 throw new BusinessException("样品更新失败");
             }
+            if (staged != null) {
+                imageProcessingService.process(id, staged);
+            }
             return getById(id);
         } catch (BusinessException e) {
+            imageProcessingService.discard(staged);
             throw e;
         } catch (Exception e) {
+            imageProcessingService.discard(staged);
             throw new BusinessException("更新样品失败：" + e.getMessage(), e);
         }
     }
@@ -367,6 +476,7 @@ public class SampleServiceImpl implements SampleService {
         }
         
         existingSample.setImage(null);
+        existingSample.setImageStatus(ImageStatus.NONE);
         boolean updated = update(existingSample);
         if (!updated) {
             throw new BusinessException("更新数据库失败");
@@ -0,0 +1,178 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.Customer;
+import com.example.demo.mapper.AdminMapper;
+import com.example.demo.mapper.CustomerMapper;
+import com.example.demo.mapper.UserMapper;
+import com.example.demo.util.NgramIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * 客户名称、操作人姓名的子串搜索
+ * <ul>
+ *   <li>TRGM（默认）：直接在SQL中使用 LIKE '%关键字%'，由 pg_trgm 的 GIN 索引加速</li>
+ *   <li>MEMORY：没有 pg_trgm 扩展的小规模部署使用，在内存 n-gram 索引中查出匹配的客户ID / 操作人姓名，
+ *       SQL 改为按主键或等值条件查询；索引按间隔整体重建，客户增删改后立即失效；
+ *       操作人索引取自管理员和用户表的姓名（日志中的操作人姓名来自登录账号），已删除或改名账号在旧日志中的姓名不在索引中</li>
+ * </ul>
+ */
+@Component
+public class SubstringSearchIndex {
+
+    /**
+     * 子串搜索方式
+     */
+    public enum Mode {
+        TRGM,   // 数据库 pg_trgm 索引
+        MEMORY  // 内存 n-gram 索引
+    }
+
+    // 内存索引的片段长度：中文名称较短，用2比3的召回更好
+    private static final int GRAM_SIZE = 2;
+
+    @Autowired
+    private CustomerMapper customerMapper;
+
+    @Autowired
+    private AdminMapper adminMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${search.substring-mode:TRGM}")
+    private Mode mode = Mode.TRGM;
+
+    // 内存索引的重建间隔（毫秒）
+    @Value("${search.memory-refresh-ms:300000}")
+    private long refreshMs = 300000;
+
+    // 一次搜索最多匹配的客户 / 操作人数量
+    @Value("${search.memory-max-matches:1000}")
+    private int maxMatches = 1000;
+
+    private volatile NgramIndex<Long> customerIndex;
+    private volatile long customerIndexTime;
+
+    // 客户数据版本：每次变更加1，重建期间发生的变更会让刚建好的索引立即过期
+    private volatile long customerVersion;
+    private volatile long customerIndexVersion;
+
+    private volatile NgramIndex<String> operatorIndex;
+    private volatile long operatorIndexTime;
+
+    // 客户索引、客户数据版本的锁；操作人索引单独加锁，两者的重建互不阻塞
+    private final Object customerLock = new Object();
+    private final Object operatorLock = new Object();
+
+    /**
+     * 是否使用内存索引
+     */
+    public boolean isMemoryMode() {
+        return mode == Mode.MEMORY;
+    }
+
+    /**
+     * 名称包含关键字的客户ID（内存索引）
+     */
+    public Long[] matchCustomerIds(String keyword) {
+        return customerIndex().search(keyword.trim(), maxMatches).toArray(new Long[0]);
+    }
+
+    /**
+     * 姓名包含关键字的操作人（内存索引）
+     */
+    public String[] matchOperatorNames(String keyword) {
+        return operatorIndex().search(keyword.trim(), maxMatches).toArray(new String[0]);
+    }
+
+    /**
+     * 客户数据变更后调用，下次搜索时重建客户索引
+     * 在事务中调用时等提交后再失效，避免重建时读到未提交前的数据
+     */
+    public void invalidateCustomers() {
+        if (!isMemoryMode()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpCustomerVersion();
+                }
+            });
+        } else {
+            bumpCustomerVersion();
+        }
+    }
+
+    private void bumpCustomerVersion() {
+        synchronized (customerLock) {
+            customerVersion++;
+        }
+    }
+
+    /**
+     * 包含匹配的 LIKE 模式，用户输入中的通配符按字面匹配；为空时返回null
+     */
+    public static String containsPattern(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return null;
+        }
+        String escaped = keyword.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private NgramIndex<Long> customerIndex() {
+        NgramIndex<Long> index = customerIndex;
+        if (index != null && customerIndexVersion == customerVersion
+                && System.currentTimeMillis() - customerIndexTime < refreshMs) {
+            return index;
+        }
+        long version;
+        synchronized (customerLock) {
+            version = customerVersion;
+        }
+        // 在锁外加载，变更提交（bumpCustomerVersion）不被重建阻塞
+        NgramIndex<Long> rebuilt = new NgramIndex<>(GRAM_SIZE);
+        for (Customer customer : customerMapper.selectNames()) {
+            rebuilt.put(customer.getId(), customer.getCompanyName());
+        }
+        synchronized (customerLock) {
+            // 并发重建时不让较旧的结果覆盖较新的
+            if (customerIndex == null || version >= customerIndexVersion) {
+                customerIndex = rebuilt;
+                customerIndexVersion = version;
+                customerIndexTime = System.currentTimeMillis();
+            }
+        }
+        return rebuilt;
+    }
+
+    private NgramIndex<String> operatorIndex() {
+        NgramIndex<String> index = operatorIndex;
+        if (index != null && System.currentTimeMillis() - operatorIndexTime < refreshMs) {
+            return index;
+        }
+        // 在锁外加载，并发的重建最多各查一次账号表（数据量很小）
+        NgramIndex<String> rebuilt = new NgramIndex<>(GRAM_SIZE);
+        putNames(rebuilt, adminMapper.selectNames());
+        putNames(rebuilt, userMapper.selectNames());
+        synchronized (operatorLock) {
+            operatorIndex = rebuilt;
+            operatorIndexTime = System.currentTimeMillis();
+        }
+        return rebuilt;
+    }
+
+    private static void putNames(NgramIndex<String> index, List<String> names) {
+        for (String name : names) {
+            index.put(name, name);
+        }
+    }
+}
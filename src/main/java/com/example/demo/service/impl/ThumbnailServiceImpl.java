@@ -0,0 +1,369 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dto.ThumbnailDTO;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.service.ThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缩略图服务实现类
+ * 缩略图按预设尺寸生成一次并持久化到上传目录的 thumb/ 子目录，
+ * 热点缩略图字节保存在按总字节数限制的内存 LRU 中；
+ * 解码原图通过信号量限制并发，避免冷缓存时大量大图同时解码撑爆堆内存
+ */
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    // 缩略图子目录
+    private static final String THUMB_DIR = "thumb";
+
+    @Value("${upload.dir}")
+    private String uploadDir;
+
+    // 预设缩略图尺寸（请求尺寸归并到不小于它的最小预设尺寸）
+    @Value("${thumbnail.sizes:80,160,320}")
+    private int[] sizes = {80, 160, 320};
+
+    // 内存缓存的最大总字节数
+    @Value("${thumbnail.cache-max-bytes:33554432}")
+    private long cacheMaxBytes = 32L * 1024 * 1024;
+
+    // 同时解码原图的最大数量
+    @Value("${thumbnail.max-concurrent-decodes:2}")
+    private int maxConcurrentDecodes = 2;
+
+    // 等待解码许可的最长时间（毫秒）
+    @Value("${thumbnail.decode-timeout-ms:10000}")
+    private long decodeTimeoutMs = 10000;
+
+    private Semaphore decodePermits;
+
+    // 文件名@尺寸 -> 缓存的缩略图（访问顺序，最久未使用的在前）
+    private LinkedHashMap<String, ThumbnailDTO> cache;
+    private long cachedBytes;
+
+    // 统计指标
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        sizes = Arrays.stream(sizes).filter(s -> s > 0).sorted().distinct().toArray();
+        decodePermits = new Semaphore(Math.max(1, maxConcurrentDecodes), true);
+        cache = new LinkedHashMap<>(64, 0.75f, true);
+    }
+
+    @Override
+    public ThumbnailDTO getThumbnail(String fileName, int size) {
+        File original = resolveOriginal(fileName);
+        if (original == null || !original.isFile()) {
+            return null;
+        }
+        int target = snapSize(size);
+        long lastModified = original.lastModified();
+        String etag = buildEtag(original, target);
+        String key = cacheKey(fileName, target);
+
+        ThumbnailDTO cached = getCached(key);
+        if (cached != null && cached.getEtag().equals(etag)) {
+            memoryHits.incrementAndGet();
+            return cached;
+        }
+
+        byte[] data = readPersisted(fileName, target, lastModified);
+        if (data != null) {
+            diskHits.incrementAndGet();
+        } else {
+            Map<Integer, byte[]> all = generateAll(original, fileName);
+            if (all == null) {
+                return null;
+            }
+            data = all.get(target);
+        }
+
+        ThumbnailDTO thumbnail = new ThumbnailDTO(data, etag, lastModified);
+        putCached(key, thumbnail);
+        return thumbnail;
+    }
+
+    @Override
+    public boolean generate(String fileName) {
+        File original = resolveOriginal(fileName);
+        return original != null && original.isFile() && generateAll(original, fileName) != null;
+    }
+
+    @Override
+    @Async
+    public void pregenerate(String fileName) {
+        try {
+            generate(fileName);
+        } catch (Exception e) {
+            // 预生成失败不影响上传，首次访问时会再次生成
+            logger.warn("预生成缩略图失败: {}", fileName, e);
+        }
+    }
+
+    @Override
+    public void invalidate(String fileName) {
+        if (resolveOriginal(fileName) == null) {
+            return;
+        }
+        for (int size : sizes) {
+            synchronized (this) {
+                ThumbnailDTO removed = cache.remove(cacheKey(fileName, size));
+                if (removed != null) {
+                    cachedBytes -= removed.getData().length;
+                }
+            }
+            try {
+                Files.deleteIfExists(thumbFile(fileName, size).toPath());
+            } catch (IOException e) {
+                logger.warn("删除缩略图失败: {}", fileName, e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("entries", cache.size());
+        stats.put("bytes", cachedBytes);
+        stats.put("maxBytes", cacheMaxBytes);
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("generated", generated.get());
+        stats.put("evictions", evictions.get());
+        stats.put("rejected", rejected.get());
+        stats.put("availableDecodePermits", decodePermits.availablePermits());
+        return stats;
+    }
+
+    /**
+     * 解码原图一次，生成并持久化所有预设尺寸
+     *
+     * @return 尺寸 -> JPEG 字节，原图无法解码时返回 null
+     */
+    private Map<Integer, byte[]> generateAll(File original, String fileName) {
+        boolean acquired;
+        try {
+            acquired = decodePermits.tryAcquire(decodeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.incrementAndGet();
+            throw new BusinessException("图片处理繁忙，请稍后重试", 503);
+        }
+
+        try {
+            long lastModified = original.lastModified();
+            // 等待许可期间可能已由其他线程生成
+            Map<Integer, byte[]> result = new HashMap<>();
+            for (int size : sizes) {
+                byte[] data = readPersisted(fileName, size, lastModified);
+                if (data == null) {
+                    result = null;
+                    break;
+                }
+                result.put(size, data);
+            }
+            if (result != null) {
+                return result;
+            }
+
+            BufferedImage source = decode(original, sizes[sizes.length - 1]);
+            if (source == null) {
+                return null;
+            }
+            result = new HashMap<>();
+            for (int size : sizes) {
+                byte[] data = encode(scale(source, size));
+                persist(thumbFile(fileName, size), data);
+                result.put(size, data);
+            }
+            generated.incrementAndGet();
+            return result;
+        } catch (IOException e) {
+            logger.warn("生成缩略图失败: {}", fileName, e);
+            return null;
+        } finally {
+            decodePermits.release();
+        }
+    }
+
+    /**
+     * 解码原图；大图按比例降采样读取，解码后的像素只比最大缩略图大一倍左右
+     */
+    private BufferedImage decode(File file, int maxTarget) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int factor = Math.max(1, longest / (maxTarget * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按最长边缩放到指定尺寸，保持宽高比
+     */
+    private BufferedImage scale(BufferedImage source, int size) {
+        int originalWidth = source.getWidth();
+        int originalHeight = source.getHeight();
+        int targetWidth, targetHeight;
+
+        if (originalWidth > originalHeight) {
+            targetWidth = size;
+            targetHeight = (int) ((double) originalHeight / originalWidth * size);
+        } else {
+            targetHeight = size;
+            targetWidth = (int) ((double) originalWidth / originalHeight * size);
+        }
+
+        BufferedImage thumbnail = new BufferedImage(Math.max(1, targetWidth), Math.max(1, targetHeight), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = thumbnail.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(source, 0, 0, thumbnail.getWidth(), thumbnail.getHeight(), null);
+        g2d.dispose();
+        return thumbnail;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免读到写了一半的缩略图
+     */
+    private void persist(File target, byte[] data) throws IOException {
+        Path dir = target.getParentFile().toPath();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getName(), ".tmp");
+        try {
+            Files.write(temp, data);
+            Files.move(temp, target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 读取磁盘上的缩略图，比原图旧则视为失效
+     */
+    private byte[] readPersisted(String fileName, int size, long originalLastModified) {
+        File thumb = thumbFile(fileName, size);
+        if (!thumb.isFile() || thumb.lastModified() < originalLastModified) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(thumb.toPath());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private synchronized ThumbnailDTO getCached(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void putCached(String key, ThumbnailDTO thumbnail) {
+        int length = thumbnail.getData().length;
+        if (length > cacheMaxBytes) {
+            return;
+        }
+        ThumbnailDTO previous = cache.put(key, thumbnail);
+        if (previous != null) {
+            cachedBytes -= previous.getData().length;
+        }
+        cachedBytes += length;
+        Iterator<ThumbnailDTO> iterator = cache.values().iterator();
+        while (cachedBytes > cacheMaxBytes && iterator.hasNext()) {
+            cachedBytes -= iterator.next().getData().length;
+            iterator.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * 请求尺寸归并到不小于它的最小预设尺寸，超过最大预设尺寸时取最大值
+     */
+    private int snapSize(int size) {
+        for (int preset : sizes) {
+            if (size <= preset) {
+                return preset;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    private String buildEtag(File original, int size) {
+        return "\"" + Long.toHexString(original.lastModified()) + "-"
+                + Long.toHexString(original.length()) + "-" + size + "\"";
+    }
+
+    private String cacheKey(String fileName, int size) {
+        return fileName + "@" + size;
+    }
+
+    private File thumbFile(String fileName, int size) {
+        return new File(uploadDir + THUMB_DIR + File.separator + fileName + "." + size + ".jpg");
+    }
+
+    /**
+     * 解析原图文件，拒绝包含路径分隔符或上级目录的文件名
+     */
+    private File resolveOriginal(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.contains("/")
+                || fileName.contains("\\") || fileName.contains("..")) {
+            return null;
+        }
+        return new File(uploadDir + fileName);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.config.PrincipalCache;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.entity.User;
 import com.example.demo.mapper.UserMapper;
@@ -42,6 +43,13 @@ public class UserLoginServiceImpl implements UserLoginService {
     @Autowired
     private OperationLogService operationLogService;
 
+    /**
+     * 登录主体缓存
+     * 版本号或用户信息变化后需要主动失效
+     */
+    @Autowired
+    private PrincipalCache principalCache;
+
     /**
      * 用户登录验证实现
      * 根据用户名查询用户，验证密码是否匹配
@@ -69,6 +77,7 @@ public class UserLoginServiceImpl implements UserLoginService {
         // 更新 tokenVersion（单点登录：每次登录生成新版本号，旧 token 失效）
         Integer newTokenVersion = (user.getTokenVersion() != null ? user.getTokenVersion() : 0) + 1;
         userMapper.updateTokenVersion(user.getId(), newTokenVersion);
+        principalCache.invalidate("user", user.getId());
 
         // 生成 JWT Token（包含新版本号）
         String token = jwtUtil.generateToken(user.getId(), user.getUsername(), "user", newTokenVersion);
@@ -176,6 +185,8 @@ public class UserLoginServiceImpl implements UserLoginService {
             // 更新用户记录
             int result = userMapper.updateUser(user);
             if (result > 0) {
+                // 姓名等信息已变化，清除登录主体缓存
+                principalCache.invalidate("user", user.getId());
                 // 更新成功
                 return ApiResponse.success("用户更新成功", user.getId());
             } else {
@@ -200,6 +211,8 @@ public class UserLoginServiceImpl implements UserLoginService {
             // 删除用户记录
             int result = userMapper.deleteUser(id);
             if (result > 0) {
+                // 用户已删除，旧 Token 不应再通过校验
+                principalCache.invalidate("user", id);
                 // 删除成功
                 return ApiResponse.success("用户删除成功", id);
             } else {
@@ -0,0 +1,236 @@
+package com.example.demo.util;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * 异步加载的按键过期缓存
+ * <ul>
+ *   <li>新鲜期内直接返回缓存值</li>
+ *   <li>过期但仍在可用期内时立即返回旧值，同时在后台刷新（stale-while-revalidate）；刷新失败时继续使用旧值</li>
+ *   <li>同一个键同一时刻只有一次加载，并发请求共享同一个 Future</li>
+ *   <li>加载失败且没有可用旧值时，在短时间内直接返回同样的失败，避免反复请求故障的上游（可按异常排除）</li>
+ * </ul>
+ * 容量有上限（LRU淘汰）
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class AsyncTtlCache<K, V> {
+
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final long errorTtlMillis;
+    private final int maxSize;
+    // 哪些加载失败需要缓存（如本地限流拒绝不代表上游故障，不应缓存）
+    private final Predicate<Throwable> errorCacheable;
+    private final LongSupplier clock;
+
+    // 缓存条目和进行中的加载，都由 entries 加锁保护
+    private final Map<K, Entry<V>> entries;
+    private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param ttlMillis      新鲜期（毫秒）
+     * @param staleMillis    过期后仍可返回旧值并后台刷新的时长（毫秒）
+     * @param errorTtlMillis 加载失败结果的缓存时长（毫秒），0 表示不缓存失败
+     * @param maxSize        最大条目数
+     */
+    public AsyncTtlCache(long ttlMillis, long staleMillis, long errorTtlMillis, int maxSize) {
+        this(ttlMillis, staleMillis, errorTtlMillis, maxSize, error -> true);
+    }
+
+    /**
+     * @param ttlMillis      新鲜期（毫秒）
+     * @param staleMillis    过期后仍可返回旧值并后台刷新的时长（毫秒）
+     * @param errorTtlMillis 加载失败结果的缓存时长（毫秒），0 表示不缓存失败
+     * @param maxSize        最大条目数
+     * @param errorCacheable 判断加载失败是否缓存，返回 false 的失败不缓存，下次请求重新加载
+     */
+    public AsyncTtlCache(long ttlMillis, long staleMillis, long errorTtlMillis, int maxSize,
+                         Predicate<Throwable> errorCacheable) {
+        this(ttlMillis, staleMillis, errorTtlMillis, maxSize, errorCacheable, System::currentTimeMillis);
+    }
+
+    AsyncTtlCache(long ttlMillis, long staleMillis, long errorTtlMillis, int maxSize, LongSupplier clock) {
+        this(ttlMillis, staleMillis, errorTtlMillis, maxSize, error -> true, clock);
+    }
+
+    AsyncTtlCache(long ttlMillis, long staleMillis, long errorTtlMillis, int maxSize,
+                  Predicate<Throwable> errorCacheable, LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.staleMillis = staleMillis;
+        this.errorTtlMillis = errorTtlMillis;
+        this.maxSize = maxSize;
+        this.errorCacheable = errorCacheable;
+        this.clock = clock;
+        // accessOrder = true，按访问顺序淘汰最久未使用的条目
+        this.entries = new LinkedHashMap<K, Entry<V>>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > AsyncTtlCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存值，需要时调用 loader 异步加载
+     *
+     * @param key    键
+     * @param loader 加载函数，返回加载结果的 Future（不应阻塞）
+     * @return 缓存值或加载结果
+     */
+    public CompletableFuture<V> get(K key, Function<? super K, CompletableFuture<V>> loader) {
+        long now = clock.getAsLong();
+        CompletableFuture<V> stale = null;
+        CompletableFuture<V> promise = new CompletableFuture<>();
+
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now < entry.freshUntil) {
+                if (entry.error != null) {
+                    negativeHits.incrementAndGet();
+                    return CompletableFuture.failedFuture(entry.error);
+                }
+                hits.incrementAndGet();
+                return CompletableFuture.completedFuture(entry.value);
+            }
+            CompletableFuture<V> inFlight = loading.get(key);
+            if (entry != null && entry.error == null && now < entry.staleUntil) {
+                staleHits.incrementAndGet();
+                stale = CompletableFuture.completedFuture(entry.value);
+                if (inFlight != null) {
+                    return stale;
+                }
+            } else if (inFlight != null) {
+                coalesced.incrementAndGet();
+                return inFlight;
+            } else {
+                misses.incrementAndGet();
+            }
+            loading.put(key, promise);
+        }
+
+        load(key, loader, promise);
+        return stale != null ? stale : promise;
+    }
+
+    /**
+     * 移除指定键的缓存
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * 获取缓存统计信息（命中率、后台刷新、合并请求、失败缓存等）
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long staleCount = staleHits.get();
+        long negativeCount = negativeHits.get();
+        long coalescedCount = coalesced.get();
+        long missCount = misses.get();
+        long total = hitCount + staleCount + negativeCount + coalescedCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+            stats.put("loading", loading.size());
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("staleHits", staleCount);
+        stats.put("negativeHits", negativeCount);
+        stats.put("coalesced", coalescedCount);
+        stats.put("misses", missCount);
+        stats.put("loads", loads.get());
+        stats.put("loadFailures", loadFailures.get());
+        stats.put("evictions", evictions.get());
+        // 不需要等待上游的请求比例
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (hitCount + staleCount + negativeCount) / total);
+        return stats;
+    }
+
+    /**
+     * 调用 loader（在锁外），完成后写入缓存并结束 promise
+     */
+    private void load(K key, Function<? super K, CompletableFuture<V>> loader, CompletableFuture<V> promise) {
+        loads.incrementAndGet();
+        CompletableFuture<V> source;
+        try {
+            source = loader.apply(key);
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, error) -> {
+            Throwable cause = unwrap(error);
+            long now = clock.getAsLong();
+            synchronized (entries) {
+                loading.remove(key, promise);
+                if (cause == null) {
+                    entries.put(key, new Entry<>(value, null, now + ttlMillis, now + ttlMillis + staleMillis));
+                } else {
+                    loadFailures.incrementAndGet();
+                    Entry<V> previous = entries.get(key);
+                    boolean staleUsable = previous != null && previous.error == null && now < previous.staleUntil;
+                    if (!staleUsable && errorTtlMillis > 0 && errorCacheable.test(cause)) {
+                        entries.put(key, new Entry<>(null, cause, now + errorTtlMillis, now + errorTtlMillis));
+                    }
+                }
+            }
+            if (cause == null) {
+                promise.complete(value);
+            } else {
+                promise.completeExceptionally(cause);
+            }
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 缓存条目（不可变）：加载成功的值或加载失败的异常
+     */
+    private static final class Entry<V> {
+        private final V value;
+        private final Throwable error;
+        private final long freshUntil;
+        private final long staleUntil;
+
+        Entry(V value, Throwable error, long freshUntil, long staleUntil) {
+            this.value = value;
+            this.error = error;
+            this.freshUntil = freshUntil;
+            this.staleUntil = staleUntil;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * 限长 JSON 序列化工具
+ * 序列化结果直接写入限长缓冲区，超过上限即中止序列化并以 "..." 结尾，
+ * 不再先生成完整字符串再 substring 截断（大对象只做到上限附近的工作量）
+ */
+public final class JsonTruncator {
+
+    private static final String ELLIPSIS = "...";
+
+    private JsonTruncator() {
+    }
+
+    /**
+     * 序列化为 JSON，超过最大长度时截断
+     *
+     * @param objectMapper Jackson ObjectMapper
+     * @param value        待序列化对象
+     * @param maxLength    最大字符数（不含省略号）
+     * @return JSON 字符串，超长时为前 maxLength 个字符加 "..."
+     * @throws IOException 序列化失败（非截断原因）
+     */
+    public static String toJson(ObjectMapper objectMapper, Object value, int maxLength) throws IOException {
+        CappedWriter writer = new CappedWriter(maxLength);
+        try {
+            objectMapper.writeValue(writer, value);
+        } catch (IOException e) {
+            if (!writer.truncated) {
+                throw e;
+            }
+        }
+        return writer.truncated ? writer.buffer + ELLIPSIS : writer.buffer.toString();
+    }
+
+    /**
+     * 达到上限后拒绝继续写入的 Writer，通过异常中止 Jackson 序列化
+     */
+    private static final class CappedWriter extends Writer {
+        private final StringBuilder buffer;
+        private final int maxLength;
+        private boolean truncated;
+
+        CappedWriter(int maxLength) {
+            this.maxLength = maxLength;
+            this.buffer = new StringBuilder(Math.min(maxLength, 1024));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (truncated) {
+                throw new LimitReachedException();
+            }
+            int room = maxLength - buffer.length();
+            if (len <= room) {
+                buffer.append(cbuf, off, len);
+                return;
+            }
+            buffer.append(cbuf, off, room);
+            truncated = true;
+            throw new LimitReachedException();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static final class LimitReachedException extends IOException {
+        LimitReachedException() {
+            super("JSON output limit reached");
+        }
+
+        // 仅用于控制流程，不需要堆栈
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
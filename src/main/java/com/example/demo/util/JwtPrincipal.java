@@ -0,0 +1,35 @@
+package com.example.demo.util;
+
+/**
+ * 已验证的 JWT 主体信息（不可变）
+ * 由 JwtUtil.parsePrincipal 一次解析得到，避免对同一个 Token 重复验签
+ */
+public final class JwtPrincipal {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+    private final Integer tokenVersion;
+    private final long expiration;  // 过期时间（毫秒时间戳）
+
+    public JwtPrincipal(Long userId, String username, String role, Integer tokenVersion, long expiration) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.tokenVersion = tokenVersion;
+        this.expiration = expiration;
+    }
+
+    public Long getUserId() { return userId; }
+    public String getUsername() { return username; }
+    public String getRole() { return role; }
+    public Integer getTokenVersion() { return tokenVersion; }
+    public long getExpiration() { return expiration; }
+
+    /**
+     * 是否已过期
+     */
+    public boolean isExpired() {
+        return expiration <= System.currentTimeMillis();
+    }
+}
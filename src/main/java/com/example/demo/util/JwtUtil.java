@@ -10,6 +10,7 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -25,8 +26,15 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}")
     private Long expiration; // 默认24小时
 
+    // 已验签Token缓存容量（同一浏览器的重复请求跳过验签和JSON解析）
+    @Value("${jwt.verified-cache-size:1024}")
+    private int verifiedCacheSize = 1024;
+
     private SecretKey key;
 
+    // 签名 -> 已验证的主体信息（LRU）
+    private Map<String, VerifiedToken> verifiedTokens;
+
     @PostConstruct
     public void init() {
         // 确保密钥至少256位
@@ -35,6 +43,12 @@ public class JwtUtil {
             paddedSecret += secret;
         }
         this.key = Keys.hmacShaKeyFor(paddedSecret.getBytes(StandardCharsets.UTF_8));
+        this.verifiedTokens = new LinkedHashMap<String, VerifiedToken>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                return size() > verifiedCacheSize;
+            }
+        };
     }
 
     /**
@@ -82,6 +96,45 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * 解析并验证 Token，一次得到全部主体信息
+     * 最近验证过的 Token 直接从缓存返回，跳过 HMAC 验签和 JSON 解析，直到过期
+     *
+     * @param token JWT Token
+     * @return 已验证的主体信息
+     */
+    public JwtPrincipal parsePrincipal(String token) {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+
+        VerifiedToken verified;
+        synchronized (verifiedTokens) {
+            verified = verifiedTokens.get(signature);
+        }
+        // 签名相同还需整串比对，防止拼接伪造的 header/payload
+        if (verified != null && verified.token.equals(token)) {
+            if (!verified.principal.isExpired()) {
+                return verified.principal;
+            }
+            synchronized (verifiedTokens) {
+                verifiedTokens.remove(signature);
+            }
+            throw new RuntimeException("Token已过期");
+        }
+
+        Claims claims = parseToken(token);
+        JwtPrincipal principal = new JwtPrincipal(
+                claims.get("userId", Long.class),
+                claims.getSubject(),
+                claims.get("role", String.class),
+                claims.get("tokenVersion", Integer.class),
+                claims.getExpiration().getTime()
+        );
+        synchronized (verifiedTokens) {
+            verifiedTokens.put(signature, new VerifiedToken(token, principal));
+        }
+        return principal;
+    }
+
     /**
      * 验证 Token 是否有效
      *
@@ -90,7 +143,7 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            parseToken(token);
+            parsePrincipal(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -101,24 +154,21 @@ public class JwtUtil {
      * 从 Token 中获取用户ID
      */
     public Long getUserId(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("userId", Long.class);
+        return parsePrincipal(token).getUserId();
     }
 
     /**
      * 从 Token 中获取用户名
      */
     public String getUsername(String token) {
-        Claims claims = parseToken(token);
-        return claims.getSubject();
+        return parsePrincipal(token).getUsername();
     }
 
     /**
      * 从 Token 中获取角色
      */
     public String getRole(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("role", String.class);
+        return parsePrincipal(token).getRole();
     }
 
     /**
@@ -126,8 +176,7 @@ public class JwtUtil {
      */
     public boolean isTokenExpired(String token) {
         try {
-            Claims claims = parseToken(token);
-            return claims.getExpiration().before(new Date());
+            return parsePrincipal(token).isExpired();
         } catch (Exception e) {
             return true;
         }
@@ -137,8 +186,7 @@ public class JwtUtil {
      * 从 Token 中获取版本号
      */
     public Integer getTokenVersion(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("tokenVersion", Integer.class);
+        return parsePrincipal(token).getTokenVersion();
     }
 
     /**
@@ -149,13 +197,22 @@ public class JwtUtil {
      * @return 新的 JWT Token
      */
     public String refreshToken(String token) {
-        Claims claims = parseToken(token);
-        Long userId = claims.get("userId", Long.class);
-        String username = claims.getSubject();
-        String role = claims.get("role", String.class);
-        Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+        JwtPrincipal principal = parsePrincipal(token);
         
         // 生成新 Token，重置过期时间为 24 小时
-        return generateToken(userId, username, role, tokenVersion);
+        return generateToken(principal.getUserId(), principal.getUsername(), principal.getRole(), principal.getTokenVersion());
+    }
+
+    /**
+     * 已验签Token缓存条目
+     */
+    private static final class VerifiedToken {
+        private final String token;
+        private final JwtPrincipal principal;
+
+        VerifiedToken(String token, JwtPrincipal principal) {
+            this.token = token;
+            this.principal = principal;
+        }
     }
 }
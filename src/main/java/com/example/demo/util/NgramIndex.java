@@ -0,0 +1,156 @@
+package com.example.demo.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存 n-gram 倒排索引，用于子串（包含）搜索
+ * 每个文本拆成所有长度为 n 的片段，查询时取查询串各片段对应集合的交集作为候选，再逐个确认包含关系；
+ * 查询串短于 n 时退化为逐个比较
+ * 适合数据量不大（几万条以内）且没有 pg_trgm 扩展的部署；按字符（char）切分，对中文同样有效
+ *
+ * @param <K> 键类型（如客户ID、操作人姓名）
+ */
+public class NgramIndex<K> {
+
+    private final int n;
+
+    // 键 -> 原文本，片段 -> 键集合；由读写锁保护
+    private final Map<K, String> texts = new HashMap<>();
+    private final Map<String, Set<K>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param n 片段长度，通常为 2（中文）或 3（与 pg_trgm 一致）
+     */
+    public NgramIndex(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n 必须大于0");
+        }
+        this.n = n;
+    }
+
+    /**
+     * 添加或替换键对应的文本，text 为null时等同于移除
+     */
+    public void put(K key, String text) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+            if (text == null) {
+                return;
+            }
+            texts.put(key, text);
+            for (String gram : grams(text)) {
+                postings.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除键
+     */
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找文本中包含 query 的键（区分大小写，与 SQL LIKE 一致）
+     *
+     * @param query 查询串，为空时返回空列表
+     * @param limit 最多返回的数量
+     * @return 匹配的键
+     */
+    public List<K> search(String query, int limit) {
+        if (query == null || query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Set<K> candidates = query.length() < n ? texts.keySet() : candidates(query);
+            List<K> result = new ArrayList<>();
+            for (K key : candidates) {
+                if (texts.get(key).contains(query)) {
+                    result.add(key);
+                    if (result.size() >= limit) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已索引的键数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return texts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询串各片段对应键集合的交集，从最小的集合开始求交
+     */
+    private Set<K> candidates(String query) {
+        List<Set<K>> sets = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<K> keys = postings.get(gram);
+            if (keys == null) {
+                return Collections.emptySet();
+            }
+            sets.add(keys);
+        }
+        sets.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        Set<K> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+        return result;
+    }
+
+    private void removeLocked(K key) {
+        String previous = texts.remove(key);
+        if (previous == null) {
+            return;
+        }
+        for (String gram : grams(previous)) {
+            Set<K> keys = postings.get(gram);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Set<String> grams(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + n <= text.length(); i++) {
+            result.add(text.substring(i, i + n));
+        }
+        return result;
+    }
+}
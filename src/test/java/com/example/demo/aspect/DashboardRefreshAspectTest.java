@@ -0,0 +1,70 @@
+package com.example.demo.aspect;
+
+import com.example.demo.service.DashboardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * DashboardRefreshAspect 测试
+ * 覆盖事务内写操作推迟到提交后刷新、回滚不刷新，以及无事务时立即刷新
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DashboardRefreshAspect 测试")
+class DashboardRefreshAspectTest {
+
+    @InjectMocks
+    private DashboardRefreshAspect dashboardRefreshAspect;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // ==================== afterMutation 测试 ====================
+
+    @Test
+    @DisplayName("事务内写操作 - 提交后才请求刷新")
+    void afterMutation_refreshesAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dashboardRefreshAspect.afterMutation();
+        verify(dashboardService, never()).requestRefresh();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(dashboardService).requestRefresh();
+    }
+
+    @Test
+    @DisplayName("事务内写操作 - 回滚不请求刷新")
+    void afterMutation_rollbackSkipsRefresh() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        dashboardRefreshAspect.afterMutation();
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(dashboardService, never()).requestRefresh();
+    }
+
+    @Test
+    @DisplayName("无事务写操作 - 立即请求刷新")
+    void afterMutation_noTransaction() {
+        dashboardRefreshAspect.afterMutation();
+
+        verify(dashboardService).requestRefresh();
+    }
+}
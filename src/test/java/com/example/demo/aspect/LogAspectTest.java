@@ -0,0 +1,159 @@
+package com.example.demo.aspect;
+
+import com.example.demo.annotation.Log;
+import com.example.demo.entity.Customer;
+import com.example.demo.entity.OperationLog;
+import com.example.demo.mapper.CustomerMapper;
+import com.example.demo.mapper.SampleMapper;
+import com.example.demo.service.OperationLogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LogAspect 白盒测试
+ * 覆盖方法元数据的缓存、原数据加载器选择、ID参数解析和参数快照时机
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LogAspect 白盒测试")
+class LogAspectTest {
+
+    @InjectMocks
+    private LogAspect logAspect;
+
+    @Mock
+    private CustomerMapper customerMapper;
+
+    @Mock
+    private SampleMapper sampleMapper;
+
+    @Mock
+    private OperationLogService operationLogService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    private LogOverheadStats logOverheadStats = new LogOverheadStats();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("同一方法只构建一次元数据")
+    void getDescriptor_cached() throws Exception {
+        Method method = DemoController.class.getMethod("update", Long.class, Customer.class);
+
+        LogMethodDescriptor first = logAspect.getDescriptor(method);
+        LogMethodDescriptor second = logAspect.getDescriptor(method);
+
+        assertSame(first, second);
+        assertEquals("客户管理", first.getModule());
+        assertEquals(LogMethodDescriptor.Action.UPDATE, first.getAction());
+        assertEquals(DemoController.class.getName() + ".update", first.getMethodName());
+        assertTrue(first.capturesNewData());
+    }
+
+    @Test
+    @DisplayName("UPDATE - 按实体类型加载原数据")
+    void loadOldEntity_update() throws Exception {
+        Customer customer = new Customer();
+        when(customerMapper.getDetailById(1L)).thenReturn(customer);
+        Method method = DemoController.class.getMethod("update", Long.class, Customer.class);
+
+        LogMethodDescriptor descriptor = logAspect.getDescriptor(method);
+
+        assertTrue(descriptor.loadsOldData());
+        assertSame(customer, descriptor.loadOldEntity(new Object[]{1L, new Customer()}));
+    }
+
+    @Test
+    @DisplayName("DELETE - 字符串ID参数也能解析")
+    void loadOldEntity_stringId() throws Exception {
+        Method method = DemoController.class.getMethod("delete", String.class);
+
+        LogMethodDescriptor descriptor = logAspect.getDescriptor(method);
+        descriptor.loadOldEntity(new Object[]{"5"});
+
+        verify(sampleMapper).selectById(5L);
+        assertFalse(descriptor.capturesNewData());
+    }
+
+    @Test
+    @DisplayName("CREATE - 不加载原数据")
+    void getDescriptor_create() throws Exception {
+        Method method = DemoController.class.getMethod("create", Customer.class);
+
+        LogMethodDescriptor descriptor = logAspect.getDescriptor(method);
+
+        assertEquals(LogMethodDescriptor.Action.CREATE, descriptor.getAction());
+        assertFalse(descriptor.loadsOldData());
+        assertFalse(descriptor.capturesNewData());
+    }
+
+    @Test
+    @DisplayName("参数和新数据 - 记录执行前客户端提交的内容，不受目标方法修改影响")
+    void around_serializesArgumentsBeforeProceed() throws Throwable {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("PUT", "/api/customers/1")));
+        Method method = DemoController.class.getMethod("update", Long.class, Customer.class);
+        Customer body = new Customer();
+        body.setCompanyName("提交的名称");
+        ProceedingJoinPoint point = mock(ProceedingJoinPoint.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(point.getSignature()).thenReturn(signature);
+        when(signature.getMethod()).thenReturn(method);
+        when(point.getArgs()).thenReturn(new Object[]{1L, body});
+        when(point.proceed()).thenAnswer(invocation -> {
+            body.setId(99L);
+            body.setCompanyName("服务端修改后的名称");
+            return "ok";
+        });
+
+        logAspect.around(point);
+
+        ArgumentCaptor<OperationLog> captor = ArgumentCaptor.forClass(OperationLog.class);
+        verify(operationLogService).save(captor.capture());
+        OperationLog saved = captor.getValue();
+        assertTrue(saved.getNewData().contains("提交的名称"));
+        assertFalse(saved.getNewData().contains("99"));
+        assertTrue(saved.getRequestParams().contains("提交的名称"));
+        assertFalse(saved.getRequestParams().contains("服务端修改后的名称"));
+        assertEquals("\"ok\"", saved.getResponseData());
+    }
+
+    // ==================== 辅助类 ====================
+
+    static class DemoController {
+
+        @Log(module = "客户管理", action = "CREATE", description = "创建客户")
+        public void create(Customer customer) {
+        }
+
+        @Log(module = "客户管理", action = "UPDATE", description = "更新客户", entityType = "customer", idParamIndex = 0)
+        public void update(Long id, Customer customer) {
+        }
+
+        @Log(module = "样品管理", action = "DELETE", description = "删除样品", entityType = "Sample", idParamIndex = 0)
+        public void delete(String id) {
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.Admin;
+import com.example.demo.entity.User;
+import com.example.demo.mapper.AdminMapper;
+import com.example.demo.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * PrincipalCache 白盒测试
+ * 覆盖命中、未命中、失效、过期、容量淘汰等路径
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PrincipalCache 白盒测试")
+class PrincipalCacheTest {
+
+    @InjectMocks
+    private PrincipalCache principalCache;
+
+    @Mock
+    private AdminMapper adminMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(principalCache, "maxSize", 2);
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 60L);
+        principalCache.init();
+    }
+
+    @Test
+    @DisplayName("重复获取 - 只查询一次数据库")
+    void get_cachedAfterFirstLoad() {
+        when(userMapper.findById(1L)).thenReturn(createUser(1L, "张三", 3));
+
+        PrincipalCache.CachedPrincipal first = principalCache.get("user", 1L);
+        PrincipalCache.CachedPrincipal second = principalCache.get("user", 1L);
+
+        assertSame(first, second);
+        assertEquals(3, second.getTokenVersion());
+        assertEquals("张三", second.getName());
+        verify(userMapper, times(1)).findById(1L);
+
+        Map<String, Object> stats = principalCache.getStats();
+        assertEquals(1L, stats.get("hits"));
+        assertEquals(1L, stats.get("misses"));
+    }
+
+    @Test
+    @DisplayName("管理员与用户使用不同的缓存键")
+    void get_adminAndUserSeparated() {
+        Admin admin = new Admin();
+        admin.setId(1L);
+        admin.setName("系统管理员");
+        admin.setTokenVersion(7);
+        when(adminMapper.findById(1L)).thenReturn(admin);
+        when(userMapper.findById(1L)).thenReturn(createUser(1L, "张三", 3));
+
+        assertEquals(7, principalCache.get("admin", 1L).getTokenVersion());
+        assertEquals(3, principalCache.get("user", 1L).getTokenVersion());
+    }
+
+    @Test
+    @DisplayName("用户不存在 - 返回null且不缓存")
+    void get_notFound() {
+        when(userMapper.findById(9L)).thenReturn(null);
+
+        assertNull(principalCache.get("user", 9L));
+        assertNull(principalCache.get("user", 9L));
+        verify(userMapper, times(2)).findById(9L);
+    }
+
+    @Test
+    @DisplayName("失效后重新加载最新版本号")
+    void invalidate_reloads() {
+        when(userMapper.findById(1L))
+                .thenReturn(createUser(1L, "张三", 3))
+                .thenReturn(createUser(1L, "张三", 4));
+
+        assertEquals(3, principalCache.get("user", 1L).getTokenVersion());
+        principalCache.invalidate("user", 1L);
+
+        assertEquals(4, principalCache.get("user", 1L).getTokenVersion());
+        verify(userMapper, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("过期条目重新加载")
+    void get_expired() {
+        ReflectionTestUtils.setField(principalCache, "ttlSeconds", 0L);
+        when(userMapper.findById(1L)).thenReturn(createUser(1L, "张三", 3));
+
+        principalCache.get("user", 1L);
+        principalCache.get("user", 1L);
+
+        verify(userMapper, times(2)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("超过容量 - 淘汰最久未使用的条目")
+    void get_evictsEldest() {
+        when(userMapper.findById(anyLong())).thenAnswer(inv -> createUser(inv.getArgument(0), "用户", 0));
+
+        principalCache.get("user", 1L);
+        principalCache.get("user", 2L);
+        principalCache.get("user", 3L);
+
+        Map<String, Object> stats = principalCache.getStats();
+        assertEquals(2, stats.get("size"));
+        assertEquals(1L, stats.get("evictions"));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private User createUser(Long id, String name, Integer tokenVersion) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setTokenVersion(tokenVersion);
+        return user;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SlidingWindowRateLimiter 白盒测试
+ * 覆盖窗口内限流、滑动加权、并发计数准确性和大量IP的后台清理
+ */
+@DisplayName("SlidingWindowRateLimiter 白盒测试")
+class SlidingWindowRateLimiterTest {
+
+    private static final long WINDOW = 60000;
+    // 对齐到窗口起点，便于计算加权
+    private static final long WINDOW_START = 1_000_000L * WINDOW;
+
+    @Test
+    @DisplayName("窗口内超过上限后拒绝")
+    void tryAcquire_rejectsOverLimit() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(3, WINDOW);
+
+        assertEquals(2, limiter.tryAcquire("1.1.1.1", WINDOW_START).getRemaining());
+        assertTrue(limiter.tryAcquire("1.1.1.1", WINDOW_START + 1).isAllowed());
+        assertTrue(limiter.tryAcquire("1.1.1.1", WINDOW_START + 2).isAllowed());
+
+        SlidingWindowRateLimiter.Result rejected = limiter.tryAcquire("1.1.1.1", WINDOW_START + 3);
+        assertFalse(rejected.isAllowed());
+        assertEquals(0, rejected.getRemaining());
+        assertEquals(WINDOW_START + WINDOW, rejected.getResetTime());
+
+        // 不同IP互不影响
+        assertTrue(limiter.tryAcquire("2.2.2.2", WINDOW_START + 3).isAllowed());
+    }
+
+    @Test
+    @DisplayName("进入下一窗口后按上一窗口剩余占比加权")
+    void tryAcquire_slidingWeight() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(10, WINDOW);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("ip", WINDOW_START + i).isAllowed());
+        }
+
+        // 下一窗口过半：上一窗口10次按50%计为5次，还可再通过5次
+        long halfNext = WINDOW_START + WINDOW + WINDOW / 2;
+        int allowed = 0;
+        for (int i = 0; i < 10; i++) {
+            if (limiter.tryAcquire("ip", halfNext).isAllowed()) {
+                allowed++;
+            }
+        }
+        assertEquals(5, allowed);
+
+        // 隔一个窗口以上，计数完全重置
+        assertEquals(9, limiter.tryAcquire("ip", WINDOW_START + WINDOW * 3).getRemaining());
+    }
+
+    @Test
+    @DisplayName("并发压力 - 同一IP放行数量精确等于上限")
+    void tryAcquire_concurrentExact() throws InterruptedException {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(1000, WINDOW);
+        int threads = 16;
+        int perThread = 500;
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        if (limiter.tryAcquire("hot-ip", WINDOW_START + 10).isAllowed()) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1000, allowed.get());
+    }
+
+    @Test
+    @DisplayName("10万个不同IP - 判断不受影响，空闲后由后台清理")
+    void evictIdle_manyDistinctKeys() {
+        SlidingWindowRateLimiter limiter = new SlidingWindowRateLimiter(100, WINDOW);
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(limiter.tryAcquire("10." + (i >> 16) + "." + ((i >> 8) & 255) + "." + (i & 255), WINDOW_START).isAllowed());
+        }
+        assertEquals(100_000, limiter.size());
+
+        // 两个窗口内仍保留
+        assertEquals(0, limiter.evictIdle(WINDOW_START + WINDOW));
+        // 超过两个窗口未访问则清理
+        assertEquals(100_000, limiter.evictIdle(WINDOW_START + WINDOW * 2 + 1));
+        assertEquals(0, limiter.size());
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.config.PrincipalCache;
 import com.example.demo.entity.Admin;
 import com.example.demo.mapper.AdminMapper;
 import com.example.demo.service.OperationLogService;
@@ -36,6 +37,9 @@ class AdminLoginServiceImplTest {
     @Mock
     private OperationLogService operationLogService;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     // ==================== login 方法测试 ====================
 
     @Test
@@ -110,6 +114,7 @@ class AdminLoginServiceImplTest {
         assertTrue(response.isSuccess());
         // tokenVersion 应从 5 + 1 = 6
         verify(adminMapper).updateTokenVersion(1L, 6);
+        verify(principalCache).invalidate("admin", 1L);
         verify(jwtUtil).generateToken(1L, "admin", "admin", 6);
         // 验证返回数据
         assertNotNull(response.getData());
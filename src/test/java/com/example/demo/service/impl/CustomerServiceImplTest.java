@@ -15,6 +15,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -43,28 +44,30 @@ class CustomerServiceImplTest {
     @Mock
     private SampleMapper sampleMapper;
 
+    @Mock
+    private SubstringSearchIndex substringSearchIndex;
+
     // ==================== getById 测试 ====================
 
     @Test
-    @DisplayName("根据ID查询 - 存在（加载地址和联系人）")
+    @DisplayName("根据ID查询 - 存在（一次调用详情查询，地址和联系人由结果映射按客户ID加载）")
     void getById_found() {
         Customer customer = createCustomer(1L, "测试公司");
-        when(customerMapper.getById(1L)).thenReturn(customer);
-        when(customerMapper.getAddressesByCustomerId(1L)).thenReturn(Collections.emptyList());
-        when(customerMapper.getContactsByCustomerId(1L)).thenReturn(Collections.emptyList());
+        when(customerMapper.getDetailById(1L)).thenReturn(customer);
 
         Customer result = customerService.getById(1L);
 
         assertNotNull(result);
         assertEquals("测试公司", result.getCompanyName());
-        verify(customerMapper).getAddressesByCustomerId(1L);
-        verify(customerMapper).getContactsByCustomerId(1L);
+        assertNotNull(result.getAddresses());
+        assertNotNull(result.getContacts());
+        assertEquals(1, mockingDetails(customerMapper).getInvocations().size());
     }
 
     @Test
-    @DisplayName("根据ID查询 - 不存在（不加载关联数据）")
+    @DisplayName("根据ID查询 - 不存在")
     void getById_notFound() {
-        when(customerMapper.getById(999L)).thenReturn(null);
+        when(customerMapper.getDetailById(999L)).thenReturn(null);
 
         Customer result = customerService.getById(999L);
 
@@ -73,6 +76,89 @@ class CustomerServiceImplTest {
         verify(customerMapper, never()).getContactsByCustomerId(anyLong());
     }
 
+    // ==================== listByCompanyName 测试 ====================
+
+    @Test
+    @DisplayName("客户列表 - 地址和联系人各批量查询一次（SQL条数见 CustomerServiceSqlCountTest）")
+    void listByCompanyName_batchLoadsChildren() {
+        List<Customer> customers = new ArrayList<>();
+        List<CustomerAddress> addresses = new ArrayList<>();
+        List<CustomerContact> contacts = new ArrayList<>();
+        for (long id = 1000; id >= 1; id--) {
+            customers.add(createCustomer(id, "公司" + id));
+            CustomerAddress address = new CustomerAddress();
+            address.setCustomerId(id);
+            addresses.add(address);
+            CustomerContact contact = new CustomerContact();
+            contact.setCustomerId(id);
+            contacts.add(contact);
+            contacts.add(contact);
+        }
+        when(customerMapper.selectAll()).thenReturn(customers);
+        when(customerMapper.getAddressesByCustomerIds(any(Long[].class))).thenReturn(addresses);
+        when(customerMapper.getContactsByCustomerIds(any(Long[].class))).thenReturn(contacts);
+
+        List<Customer> result = customerService.listByCompanyName();
+
+        assertEquals(1000, result.size());
+        assertTrue(result.stream().allMatch(c -> c.getAddresses().size() == 1 && c.getContacts().size() == 2));
+        assertEquals(3, mockingDetails(customerMapper).getInvocations().size());
+        verify(customerMapper, never()).getAddressesByCustomerId(anyLong());
+        verify(customerMapper, never()).getContactsByCustomerId(anyLong());
+    }
+
+    @Test
+    @DisplayName("客户列表 - 无客户时不查询关联数据")
+    void listByCompanyName_empty() {
+        when(customerMapper.selectAll()).thenReturn(Collections.emptyList());
+
+        assertTrue(customerService.listByCompanyName().isEmpty());
+        verify(customerMapper, never()).getAddressesByCustomerIds(any());
+    }
+
+    // ==================== searchByCompanyName 测试 ====================
+
+    @Test
+    @DisplayName("名称搜索 - 默认使用 LIKE 包含匹配，通配符按字面转义，数量有上限")
+    void searchByCompanyName_trgm() {
+        when(customerMapper.listByCompanyName(anyString(), isNull(), anyInt())).thenReturn(Collections.emptyList());
+
+        customerService.searchByCompanyName(" 道威 ", 50);
+        customerService.searchByCompanyName("100%_", 10000);
+
+        verify(customerMapper).listByCompanyName("%道威%", null, 50);
+        verify(customerMapper).listByCompanyName("%100\\%\\_%", null, 200);
+        verify(substringSearchIndex, never()).matchCustomerIds(anyString());
+    }
+
+    @Test
+    @DisplayName("名称搜索 - 内存索引模式按匹配出的ID查询，无匹配时不查库")
+    void searchByCompanyName_memoryIndex() {
+        when(substringSearchIndex.isMemoryMode()).thenReturn(true);
+        when(substringSearchIndex.matchCustomerIds("道威")).thenReturn(new Long[]{1L, 2L});
+        when(substringSearchIndex.matchCustomerIds("不存在")).thenReturn(new Long[0]);
+        when(customerMapper.listByCompanyName(anyString(), any(Long[].class), anyInt()))
+                .thenReturn(Arrays.asList(createCustomer(1L, "深圳道威"), createCustomer(2L, "广州道威")));
+        when(customerMapper.getAddressesByCustomerIds(any(Long[].class))).thenReturn(Collections.emptyList());
+        when(customerMapper.getContactsByCustomerIds(any(Long[].class))).thenReturn(Collections.emptyList());
+
+        List<Customer> result = customerService.searchByCompanyName("道威", 20);
+
+        assertEquals(2, result.size());
+        assertTrue(result.get(0).getAddresses().isEmpty());
+        verify(customerMapper).listByCompanyName("%道威%", new Long[]{1L, 2L}, 20);
+        assertTrue(customerService.searchByCompanyName("不存在", 20).isEmpty());
+        verify(customerMapper, times(1)).listByCompanyName(any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("名称搜索 - 关键字为空")
+    void searchByCompanyName_blank() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> customerService.searchByCompanyName("  ", 20));
+        assertEquals("搜索关键字不能为空", ex.getMessage());
+    }
+
     // ==================== save 测试 ====================
 
     @Test
@@ -93,15 +179,15 @@ class CustomerServiceImplTest {
             return null;
         }).when(customerMapper).insert(any(Customer.class));
 
-        when(customerMapper.getById(1L)).thenReturn(createCustomer(1L, "新公司"));
-        when(customerMapper.getAddressesByCustomerId(1L)).thenReturn(Collections.emptyList());
-        when(customerMapper.getContactsByCustomerId(1L)).thenReturn(Collections.emptyList());
+        when(customerMapper.getDetailById(1L)).thenReturn(createCustomer(1L, "新公司"));
 
         Customer result = customerService.save(customer);
 
         assertNotNull(result);
-        verify(customerMapper).insertAddress(any(CustomerAddress.class));
-        verify(customerMapper).insertContact(any(CustomerContact.class));
+        verify(customerMapper).insertAddresses(argThat(list -> list.size() == 1 && list.get(0).getCustomerId() == 1L));
+        verify(customerMapper).insertContacts(argThat(list -> list.size() == 1 && list.get(0).getCustomerId() == 1L));
+        verify(customerMapper, never()).insertAddress(any(CustomerAddress.class));
+        verify(customerMapper, never()).insertContact(any(CustomerContact.class));
     }
 
     @Test
@@ -117,15 +203,13 @@ class CustomerServiceImplTest {
             return null;
         }).when(customerMapper).insert(any(Customer.class));
 
-        when(customerMapper.getById(2L)).thenReturn(createCustomer(2L, "简单公司"));
-        when(customerMapper.getAddressesByCustomerId(2L)).thenReturn(Collections.emptyList());
-        when(customerMapper.getContactsByCustomerId(2L)).thenReturn(Collections.emptyList());
+        when(customerMapper.getDetailById(2L)).thenReturn(createCustomer(2L, "简单公司"));
 
         Customer result = customerService.save(customer);
 
         assertNotNull(result);
-        verify(customerMapper, never()).insertAddress(any(CustomerAddress.class));
-        verify(customerMapper, never()).insertContact(any(CustomerContact.class));
+        verify(customerMapper, never()).insertAddresses(any());
+        verify(customerMapper, never()).insertContacts(any());
     }
 
     // ==================== update 测试 ====================
@@ -144,7 +228,7 @@ class CustomerServiceImplTest {
     @DisplayName("更新客户 - 客户不存在抛出异常")
     void update_notFound() {
         Customer customer = createCustomer(999L, "公司");
-        when(customerMapper.getById(999L)).thenReturn(null);
+        when(customerMapper.getDetailById(999L)).thenReturn(null);
 
         BusinessException ex = assertThrows(BusinessException.class,
                 () -> customerService.update(customer));
@@ -153,21 +237,71 @@ class CustomerServiceImplTest {
     }
 
     @Test
-    @DisplayName("更新客户 - 成功（先删旧关联再插新关联）")
-    void update_success() {
-        Customer customer = createCustomer(1L, "更新公司");
-        customer.setAddresses(Collections.emptyList());
-        customer.setContacts(Collections.emptyList());
+    @DisplayName("更新客户 - 按ID比对，只写入新增、修改和删除的行")
+    void update_mergesChildren() {
+        Customer stored = createCustomer(1L, "旧公司");
+        stored.setAddresses(Arrays.asList(address(10L, "地址A"), address(11L, "地址B"), address(12L, "地址C")));
+        stored.setContacts(Arrays.asList(contact(20L, "张三", "138"), contact(21L, "李四", "139")));
+        when(customerMapper.getDetailById(1L)).thenReturn(stored, createCustomer(1L, "新公司"));
+
+        Customer customer = createCustomer(1L, "新公司");
+        customer.setAddresses(Arrays.asList(
+                address(10L, "地址A"),        // 未变化
+                address(11L, "地址B-改"),     // 修改
+                address(null, "地址D"),       // 新增
+                address(99L, "地址E")));      // 不属于该客户的ID按新增处理
+        customer.setContacts(Arrays.asList(contact(20L, "张三", "138"), contact(21L, "李四", "139")));
+
+        customerService.update(customer);
+
+        verify(customerMapper).update(customer);
+        verify(customerMapper).deleteAddressesByIds(1L, new Long[]{12L});
+        verify(customerMapper).updateAddresses(eq(1L), argThat(list -> list.size() == 1 && list.get(0).getId() == 11L));
+        verify(customerMapper).insertAddresses(argThat(list -> list.size() == 2
+                && list.stream().allMatch(a -> a.getId() == null && a.getCustomerId() == 1L)));
+        // 联系人没有变化，不执行任何写入
+        verify(customerMapper, never()).deleteContactsByIds(anyLong(), any());
+        verify(customerMapper, never()).updateContacts(anyLong(), any());
+        verify(customerMapper, never()).insertContacts(any());
+        verify(customerMapper, never()).deleteAddressesByCustomerId(anyLong());
+        verify(customerMapper, never()).deleteContactsByCustomerId(anyLong());
+    }
+
+    @Test
+    @DisplayName("更新客户 - 名称和关联数据都未变化时不写数据库")
+    void update_noChanges() {
+        Customer stored = createCustomer(1L, "公司");
+        stored.setAddresses(Collections.singletonList(address(10L, "地址A")));
+        stored.setContacts(Collections.emptyList());
+        when(customerMapper.getDetailById(1L)).thenReturn(stored);
 
-        when(customerMapper.getById(1L)).thenReturn(createCustomer(1L, "旧公司"));
-        when(customerMapper.getAddressesByCustomerId(1L)).thenReturn(Collections.emptyList());
-        when(customerMapper.getContactsByCustomerId(1L)).thenReturn(Collections.emptyList());
+        Customer customer = createCustomer(1L, "公司");
+        customer.setAddresses(Collections.singletonList(address(10L, "地址A")));
 
         customerService.update(customer);
 
-        verify(customerMapper).update(any(Customer.class));
-        verify(customerMapper).deleteAddressesByCustomerId(1L);
-        verify(customerMapper).deleteContactsByCustomerId(1L);
+        verify(customerMapper, never()).update(any(Customer.class));
+        verify(customerMapper, never()).deleteAddressesByIds(anyLong(), any());
+        verify(customerMapper, never()).updateAddresses(anyLong(), any());
+        verify(customerMapper, never()).insertAddresses(any());
+    }
+
+    @Test
+    @DisplayName("更新客户 - 只有关联数据变化时仍更新客户行以刷新 update_time")
+    void update_childrenOnlyTouchesCustomer() {
+        Customer stored = createCustomer(1L, "公司");
+        stored.setAddresses(Collections.emptyList());
+        stored.setContacts(Collections.singletonList(contact(20L, "张三", "138")));
+        when(customerMapper.getDetailById(1L)).thenReturn(stored);
+
+        Customer customer = createCustomer(1L, "公司");
+        customer.setContacts(Collections.singletonList(contact(20L, "张三", "186")));
+
+        customerService.update(customer);
+
+        verify(customerMapper).updateContacts(eq(1L), argThat(list -> list.size() == 1));
+        verify(customerMapper).update(customer);
+        verify(substringSearchIndex, never()).invalidateCustomers();
     }
 
     // ==================== delete 测试 ====================
@@ -250,6 +384,21 @@ class CustomerServiceImplTest {
 
     // ==================== 辅助方法 ====================
 
+    private CustomerAddress address(Long id, String text) {
+        CustomerAddress address = new CustomerAddress();
+        address.setId(id);
+        address.setAddress(text);
+        return address;
+    }
+
+    private CustomerContact contact(Long id, String name, String phone) {
+        CustomerContact contact = new CustomerContact();
+        contact.setId(id);
+        contact.setContactName(name);
+        contact.setPhone(phone);
+        return contact;
+    }
+
     private Customer createCustomer(Long id, String companyName) {
         Customer customer = new Customer();
         customer.setId(id);
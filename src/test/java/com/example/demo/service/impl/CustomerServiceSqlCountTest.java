@@ -0,0 +1,210 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.Customer;
+import com.example.demo.mapper.CustomerMapper;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * CustomerServiceImpl SQL 条数测试
+ * 使用真实的 CustomerMapper.xml，由 MyBatis 拦截器统计实际执行的语句数，
+ * 结果映射里的嵌套查询（collection select）引入的 N+1 同样会被统计到
+ * 数据库连接为模拟对象，按 SQL 访问的表返回内存中的结果集
+ */
+@DisplayName("CustomerServiceImpl SQL 条数测试")
+class CustomerServiceSqlCountTest {
+
+    private final CustomerServiceImpl customerService = new CustomerServiceImpl();
+
+    private final StatementCounter counter = new StatementCounter();
+
+    private SqlSession sqlSession;
+
+    // 客户表返回的行数
+    private int customerCount;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Configuration configuration = new Configuration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.setEnvironment(new Environment("test", new JdbcTransactionFactory(), mockDataSource()));
+        configuration.addInterceptor(counter);
+        try (InputStream in = Resources.getResourceAsStream("mapper/CustomerMapper.xml")) {
+            new XMLMapperBuilder(in, configuration, "mapper/CustomerMapper.xml", configuration.getSqlFragments()).parse();
+        }
+        sqlSession = new SqlSessionFactoryBuilder().build(configuration).openSession(true);
+        ReflectionTestUtils.setField(customerService, "customerMapper", sqlSession.getMapper(CustomerMapper.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        sqlSession.close();
+    }
+
+    // ==================== listByCompanyName 测试 ====================
+
+    @Test
+    @DisplayName("客户列表 - 1000个客户只执行3条SQL（无N+1）")
+    void listByCompanyName_threeStatementsFor1000Customers() {
+        customerCount = 1000;
+
+        List<Customer> result = customerService.listByCompanyName();
+
+        assertEquals(1000, result.size());
+        assertTrue(result.stream().allMatch(c -> c.getAddresses().size() == 1 && c.getContacts().size() == 2));
+        assertEquals(3, counter.statements.size(), String.join("\n", counter.statements));
+    }
+
+    // ==================== getById 测试 ====================
+
+    @Test
+    @DisplayName("客户详情 - 客户、地址、联系人各一条SQL")
+    void getById_threeStatements() {
+        customerCount = 1;
+
+        Customer result = customerService.getById(1L);
+
+        assertEquals(1, result.getAddresses().size());
+        assertEquals(2, result.getContacts().size());
+        assertEquals(3, counter.statements.size(), String.join("\n", counter.statements));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 统计 MyBatis 准备执行的每一条语句
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+    private static class StatementCounter implements Interceptor {
+        private final List<String> statements = new ArrayList<>();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            statements.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql().trim());
+            return invocation.proceed();
+        }
+    }
+
+    private DataSource mockDataSource() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(connection.createArrayOf(anyString(), any())).thenReturn(mock(Array.class));
+        when(connection.prepareStatement(anyString())).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(statement.getConnection()).thenReturn(connection);
+            when(statement.execute()).thenReturn(true);
+            when(statement.getUpdateCount()).thenReturn(-1);
+            when(statement.getResultSet()).thenAnswer(i -> resultFor(sql));
+            return statement;
+        });
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        return dataSource;
+    }
+
+    /**
+     * 按 SQL 访问的表返回结果：客户 customerCount 行；批量查询时每个客户1个地址、2个联系人，单个客户查询时同样数量
+     */
+    private ResultSet resultFor(String sql) throws SQLException {
+        boolean batch = sql.contains("ANY(");
+        int customers = batch ? customerCount : 1;
+        if (sql.contains("customer_address")) {
+            CachedRowSet rows = rowSet("id", "customer_id");
+            for (long id = 1; id <= customers; id++) {
+                addRow(rows, id, id);
+            }
+            return rewind(rows);
+        }
+        if (sql.contains("customer_contact")) {
+            CachedRowSet rows = rowSet("id", "customer_id");
+            for (long id = 1; id <= customers; id++) {
+                addRow(rows, id * 2 - 1, id);
+                addRow(rows, id * 2, id);
+            }
+            return rewind(rows);
+        }
+        CachedRowSet rows = rowSet("id", "company_name");
+        for (long id = customerCount; id >= 1; id--) {
+            rows.moveToInsertRow();
+            rows.updateLong(1, id);
+            rows.updateString(2, "公司" + id);
+            rows.insertRow();
+        }
+        return rewind(rows);
+    }
+
+    private static CachedRowSet rowSet(String idColumn, String secondColumn) throws SQLException {
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(2);
+        metaData.setColumnName(1, idColumn);
+        metaData.setColumnLabel(1, idColumn);
+        metaData.setColumnType(1, Types.BIGINT);
+        metaData.setColumnName(2, secondColumn);
+        metaData.setColumnLabel(2, secondColumn);
+        metaData.setColumnType(2, "company_name".equals(secondColumn) ? Types.VARCHAR : Types.BIGINT);
+        CachedRowSet rows = RowSetProvider.newFactory().createCachedRowSet();
+        rows.setMetaData(metaData);
+        return rows;
+    }
+
+    private static void addRow(CachedRowSet rows, long id, long customerId) throws SQLException {
+        rows.moveToInsertRow();
+        rows.updateLong(1, id);
+        rows.updateLong(2, customerId);
+        rows.insertRow();
+    }
+
+    /**
+     * 回到第一行之前；CachedRowSet 不支持 isClosed，包一层代理
+     */
+    private static ResultSet rewind(CachedRowSet rows) throws SQLException {
+        rows.moveToCurrentRow();
+        rows.beforeFirst();
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if ("isClosed".equals(method.getName())) {
+                        return false;
+                    }
+                    try {
+                        return method.invoke(rows, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
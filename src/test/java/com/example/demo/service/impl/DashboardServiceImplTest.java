@@ -0,0 +1,276 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dto.CursorPageDTO;
+import com.example.demo.entity.Dashboard;
+import com.example.demo.exception.BusinessException;
+import com.example.demo.mapper.DashboardMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * DashboardServiceImpl 白盒测试
+ * 覆盖快照共享、防抖合并刷新、刷新失败保留旧快照、并行查询耗时上限、排队不计入超时、单项降级和产品分类游标分页
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DashboardServiceImpl 白盒测试")
+class DashboardServiceImplTest {
+
+    @InjectMocks
+    private DashboardServiceImpl dashboardService;
+
+    @Mock
+    private DashboardMapper dashboardMapper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dashboardService, "debounceMs", 50L);
+        dashboardService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dashboardService.shutdown();
+    }
+
+    @Test
+    @DisplayName("多次读取 - 共享同一快照，只计算一次")
+    void getDashboard_sharedSnapshot() {
+        stubQueries();
+        Dashboard first = dashboardService.getDashboard();
+        Dashboard second = dashboardService.getDashboard();
+
+        assertSame(first, second);
+        assertEquals(10, first.getTotalCustomerCount());
+        verify(dashboardMapper, times(1)).getTotalCustomerCount();
+        assertTrue(dashboardService.getSnapshotAgeMillis() >= 0);
+    }
+
+    @Test
+    @DisplayName("连续变更 - 防抖合并为一次刷新")
+    void requestRefresh_debounced() throws Exception {
+        stubQueries();
+        dashboardService.getDashboard();
+
+        for (int i = 0; i < 20; i++) {
+            dashboardService.requestRefresh();
+        }
+        waitForRefreshCount(2);
+        Thread.sleep(100);
+
+        assertEquals(2L, dashboardService.getSnapshotStatus().get("refreshCount"));
+        assertEquals(11, dashboardService.getDashboard().getTotalCustomerCount());
+        verify(dashboardMapper, times(2)).getTotalCustomerCount();
+    }
+
+    @Test
+    @DisplayName("全部查询失败 - 保留旧快照")
+    void requestRefresh_failureKeepsSnapshot() throws Exception {
+        stubQueries();
+        Dashboard first = dashboardService.getDashboard();
+        when(dashboardMapper.getTotalPendingAmount()).thenThrow(new RuntimeException("db down"));
+        when(dashboardMapper.getRecentOrderCount()).thenThrow(new RuntimeException("db down"));
+        when(dashboardMapper.getTotalCustomerCount()).thenThrow(new RuntimeException("db down"));
+        when(dashboardMapper.getTotalSampleCount()).thenThrow(new RuntimeException("db down"));
+        when(dashboardMapper.getOrderStatusDistribution()).thenThrow(new RuntimeException("db down"));
+        when(dashboardMapper.getProducts(any(), isNull(), isNull(), anyInt())).thenThrow(new RuntimeException("db down"));
+        when(dashboardMapper.getEmployees()).thenThrow(new RuntimeException("db down"));
+
+        dashboardService.requestRefresh();
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) dashboardService.getSnapshotStatus().get("failedRefreshCount") == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(1L, dashboardService.getSnapshotStatus().get("failedRefreshCount"));
+        assertSame(first, dashboardService.getDashboard());
+    }
+
+    // ==================== 并行查询测试 ====================
+
+    @Test
+    @DisplayName("并行查询 - 总耗时接近最慢一项，超时项降级")
+    void compute_parallelWithTimeout() {
+        dashboardService.shutdown();
+        ReflectionTestUtils.setField(dashboardService, "queryThreads", 9);
+        ReflectionTestUtils.setField(dashboardService, "queryTimeoutMs", 500L);
+        dashboardService.init();
+        // 每项查询 200ms，依次执行至少需要 1.6s；员工查询模拟慢查询，远超超时时间
+        when(dashboardMapper.getTotalPendingAmount()).thenAnswer(slow(200, new BigDecimal("1")));
+        when(dashboardMapper.getRecentOrderCount()).thenAnswer(slow(200, 3));
+        when(dashboardMapper.getTotalCustomerCount()).thenAnswer(slow(200, 10));
+        when(dashboardMapper.getTotalSampleCount()).thenAnswer(slow(200, 20));
+        when(dashboardMapper.getOrderStatusDistribution()).thenAnswer(slow(200, Collections.emptyList()));
+        when(dashboardMapper.getProducts(any(), isNull(), isNull(), anyInt())).thenAnswer(slow(200, Collections.emptyList()));
+        when(dashboardMapper.getEmployees()).thenAnswer(slow(10000, Collections.emptyList()));
+
+        long start = System.nanoTime();
+        Dashboard dashboard = dashboardService.getDashboard();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1200, "elapsed " + elapsedMillis + "ms");
+        assertEquals(10, dashboard.getTotalCustomerCount());
+        assertTrue(dashboard.getEmployees().isEmpty());
+        assertEquals(Collections.singletonList("employees"), dashboardService.getSnapshotStatus().get("degradedSections"));
+    }
+
+    @Test
+    @DisplayName("并行查询 - 线程少于查询项时，排队时间不计入单项超时")
+    void compute_queuedQueriesNotTimedOut() {
+        dashboardService.shutdown();
+        ReflectionTestUtils.setField(dashboardService, "queryThreads", 2);
+        ReflectionTestUtils.setField(dashboardService, "queryTimeoutMs", 300L);
+        dashboardService.init();
+        // 每项 150ms，2个线程执行9项约需 750ms，排在后面的查询等待时间远超超时时间
+        when(dashboardMapper.getTotalPendingAmount()).thenAnswer(slow(150, new BigDecimal("1")));
+        when(dashboardMapper.getRecentOrderCount()).thenAnswer(slow(150, 3));
+        when(dashboardMapper.getTotalCustomerCount()).thenAnswer(slow(150, 10));
+        when(dashboardMapper.getTotalSampleCount()).thenAnswer(slow(150, 20));
+        when(dashboardMapper.getOrderStatusDistribution()).thenAnswer(slow(150, Collections.emptyList()));
+        when(dashboardMapper.getProducts(any(), isNull(), isNull(), anyInt())).thenAnswer(slow(150, Collections.emptyList()));
+        when(dashboardMapper.getEmployees()).thenAnswer(slow(150, Collections.emptyList()));
+
+        Dashboard dashboard = dashboardService.getDashboard();
+
+        assertEquals(Collections.emptyList(), dashboardService.getSnapshotStatus().get("degradedSections"));
+        assertEquals(20, dashboard.getTotalSampleCount());
+    }
+
+    @Test
+    @DisplayName("单项失败 - 沿用上一次快照中的值")
+    void compute_partialFailureUsesPrevious() throws Exception {
+        stubQueries();
+        dashboardService.getDashboard();
+        when(dashboardMapper.getTotalSampleCount()).thenThrow(new RuntimeException("db down"));
+
+        dashboardService.requestRefresh();
+        waitForRefreshCount(2);
+
+        Dashboard dashboard = dashboardService.getDashboard();
+        assertEquals(20, dashboard.getTotalSampleCount());
+        assertEquals(11, dashboard.getTotalCustomerCount());
+        assertEquals(Collections.singletonList("totalSampleCount"), dashboardService.getSnapshotStatus().get("degradedSections"));
+    }
+
+    // ==================== 产品分类测试 ====================
+
+    @Test
+    @DisplayName("产品分类 - 首屏只取前几条，数量来自状态分组统计")
+    void getDashboard_productCountsFromStatusDistribution() {
+        stubQueries();
+        when(dashboardMapper.getOrderStatusDistribution()).thenReturn(Arrays.asList(
+                statusCount("PENDING", 2L), statusCount("IN_PROGRESS", 3L), statusCount("PRODUCING", 1L),
+                statusCount("SHIPPED", 4L), statusCount("COMPLETED", 5L)));
+        List<Dashboard.OrderProduct> pending = Collections.singletonList(product(1L));
+        when(dashboardMapper.getProducts(aryEq(new String[]{"PENDING"}), isNull(), isNull(), eq(5))).thenReturn(pending);
+
+        Dashboard dashboard = dashboardService.getDashboard();
+
+        assertEquals(Integer.valueOf(2), dashboard.getProductCounts().get("pending"));
+        assertEquals(Integer.valueOf(4), dashboard.getProductCounts().get("producing"));
+        assertEquals(Integer.valueOf(4), dashboard.getProductCounts().get("shipping"));
+        assertEquals(pending, dashboard.getPendingProducts());
+        assertEquals(5, dashboard.getStatusDistribution().size());
+        assertThrows(UnsupportedOperationException.class,
+                () -> dashboard.getStatusDistribution().get(0).put("value", 0L));
+        assertThrows(UnsupportedOperationException.class, () -> dashboard.getPendingProducts().clear());
+        verify(dashboardMapper, never()).getProducts(any(), isNull(), isNull(), intThat(limit -> limit != 5));
+    }
+
+    @Test
+    @DisplayName("按分类分页 - 多取一条判断是否有下一页")
+    void getProducts_keysetPage() {
+        when(dashboardMapper.getProducts(aryEq(new String[]{"SHIPPED", "READY_TO_SHIP"}), eq(1767225600000000L), eq(50L), eq(3)))
+                .thenReturn(new ArrayList<>(Arrays.asList(product(40L), product(30L), product(20L))));
+
+        // 游标中的订单即使已被删除，也按游标中的时间和ID继续翻页
+        CursorPageDTO<Dashboard.OrderProduct> page = dashboardService.getProducts("shipping", "1767225600000000_50", 2);
+
+        assertEquals(2, page.getList().size());
+        assertTrue(page.isHasMore());
+        assertEquals(Long.valueOf(30L), page.getNextCursor());
+        assertEquals("1767225000000030_30", page.getNextKey());
+    }
+
+    @Test
+    @DisplayName("按分类分页 - 游标格式错误")
+    void getProducts_invalidCursor() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> dashboardService.getProducts("shipping", "50", 20));
+
+        assertEquals("游标格式不正确，请使用上一页返回的 nextKey", ex.getMessage());
+        verifyNoInteractions(dashboardMapper);
+    }
+
+    @Test
+    @DisplayName("按分类分页 - 未知分类抛出异常")
+    void getProducts_unknownBucket() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> dashboardService.getProducts("archived", null, 20));
+
+        assertEquals(404, ex.getCode());
+        verifyNoInteractions(dashboardMapper);
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private void stubQueries() {
+        when(dashboardMapper.getTotalPendingAmount()).thenReturn(new BigDecimal("100.5"));
+        when(dashboardMapper.getRecentOrderCount()).thenReturn(3);
+        when(dashboardMapper.getTotalCustomerCount()).thenReturn(10, 11);
+        when(dashboardMapper.getTotalSampleCount()).thenReturn(20);
+        when(dashboardMapper.getOrderStatusDistribution()).thenReturn(Collections.emptyList());
+        when(dashboardMapper.getProducts(any(), isNull(), isNull(), anyInt())).thenReturn(Collections.emptyList());
+        when(dashboardMapper.getEmployees()).thenReturn(Collections.emptyList());
+    }
+
+    private static Map<String, Object> statusCount(String name, long value) {
+        Map<String, Object> item = new HashMap<>();
+        item.put("name", name);
+        item.put("value", value);
+        return item;
+    }
+
+    private static Dashboard.OrderProduct product(Long id) {
+        Dashboard.OrderProduct product = new Dashboard.OrderProduct();
+        product.setId(id);
+        product.setCreateMicros(1767225000000000L + id);
+        return product;
+    }
+
+    private static <T> Answer<T> slow(long millis, T value) {
+        return invocation -> {
+            Thread.sleep(millis);
+            return value;
+        };
+    }
+
+    private void waitForRefreshCount(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) dashboardService.getSnapshotStatus().get("refreshCount") < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
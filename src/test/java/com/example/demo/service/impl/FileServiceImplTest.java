@@ -0,0 +1,90 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.service.ThumbnailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * FileServiceImpl 白盒测试
+ * 覆盖内容哈希文件名、原子写入和删除时的缩略图失效
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("FileServiceImpl 白盒测试")
+class FileServiceImplTest {
+
+    @InjectMocks
+    private FileServiceImpl fileService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileService, "uploadDir", uploadDir.toString() + File.separator);
+    }
+
+    // ==================== saveFile 测试 ====================
+
+    @Test
+    @DisplayName("保存文件 - 文件名包含内容哈希")
+    void saveFile_versionedName() throws Exception {
+        MockMultipartFile image = new MockMultipartFile("image", "a.jpg", "image/jpeg", new byte[]{1, 2, 3});
+
+        String path = fileService.saveFile(image, "12.jpg");
+
+        assertTrue(path.matches("/sampleImage/12\\.[0-9a-f]{16}\\.jpg"), path);
+        String fileName = path.substring("/sampleImage/".length());
+        assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(uploadDir.resolve(fileName)));
+        // 不残留临时文件
+        assertEquals(1, uploadDir.toFile().list().length);
+    }
+
+    @Test
+    @DisplayName("保存文件 - 内容不同则文件名不同，内容相同则文件名相同")
+    void saveFile_nameFollowsContent() throws Exception {
+        String first = fileService.saveFile(new MockMultipartFile("image", new byte[]{1}), "12.png");
+        String same = fileService.saveFile(new MockMultipartFile("image", new byte[]{1}), "12.png");
+        String changed = fileService.saveFile(new MockMultipartFile("image", new byte[]{2}), "12.png");
+
+        assertEquals(first, same);
+        assertNotEquals(first, changed);
+    }
+
+    // ==================== deleteFile 测试 ====================
+
+    @Test
+    @DisplayName("删除文件 - 同时清理缩略图")
+    void deleteFile_invalidatesThumbnails() throws Exception {
+        String path = fileService.saveFile(new MockMultipartFile("image", new byte[]{1}), "12.png");
+        String fileName = path.substring("/sampleImage/".length());
+
+        assertTrue(fileService.deleteFile(path));
+        assertFalse(uploadDir.resolve(fileName).toFile().exists());
+        verify(thumbnailService).invalidate(fileName);
+    }
+
+    @Test
+    @DisplayName("删除文件 - 空路径返回false")
+    void deleteFile_emptyPath() {
+        assertFalse(fileService.deleteFile(""));
+        verifyNoInteractions(thumbnailService);
+    }
+}
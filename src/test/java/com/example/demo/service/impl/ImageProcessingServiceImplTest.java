@@ -0,0 +1,173 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.ImageStatus;
+import com.example.demo.entity.Sample;
+import com.example.demo.mapper.SampleMapper;
+import com.example.demo.service.FileService;
+import com.example.demo.service.ThumbnailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ImageProcessingServiceImpl 白盒测试
+ * 覆盖文件头识别、EXIF 方向摆正、超大图缩小、替换旧图和失败状态
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ImageProcessingServiceImpl 白盒测试")
+class ImageProcessingServiceImplTest {
+
+    @InjectMocks
+    private ImageProcessingServiceImpl imageProcessingService;
+
+    @Mock
+    private SampleMapper sampleMapper;
+
+    @Mock
+    private FileService fileService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @TempDir
+    Path uploadDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(imageProcessingService, "uploadDir", uploadDir.toString() + File.separator);
+    }
+
+    // ==================== detectType 测试 ====================
+
+    @Test
+    @DisplayName("按文件头识别类型 - 忽略扩展名")
+    void detectType_byMagicBytes() throws Exception {
+        Path png = writePng("a.jpg", 10, 10);
+        Path gif = Files.write(uploadDir.resolve("b.png"), "GIF89a......".getBytes());
+        Path text = Files.write(uploadDir.resolve("c.png"), "<html></html>".getBytes());
+
+        assertEquals(ImageProcessingServiceImpl.ImageType.PNG, imageProcessingService.detectType(png));
+        assertEquals(ImageProcessingServiceImpl.ImageType.GIF, imageProcessingService.detectType(gif));
+        assertNull(imageProcessingService.detectType(text));
+    }
+
+    // ==================== readExifOrientation 测试 ====================
+
+    @Test
+    @DisplayName("读取 EXIF 方向 - 有 APP1 段返回标签值，没有返回1")
+    void readExifOrientation() throws Exception {
+        Path plain = writeJpeg("plain.jpg", 40, 20, -1);
+        Path rotated = writeJpeg("rotated.jpg", 40, 20, 6);
+
+        assertEquals(1, imageProcessingService.readExifOrientation(plain));
+        assertEquals(6, imageProcessingService.readExifOrientation(rotated));
+    }
+
+    // ==================== runPipeline 测试 ====================
+
+    @Test
+    @DisplayName("处理流程 - 按 EXIF 旋转后保存，替换并删除旧图片")
+    void runPipeline_rotatesAndReplaces() throws Exception {
+        Path staged = writeJpeg("s.upload", 40, 20, 6);
+        AtomicReference<BufferedImage> saved = new AtomicReference<>();
+        when(fileService.saveFile(any(Path.class), eq("5.jpg"))).thenAnswer(invocation -> {
+            saved.set(ImageIO.read(invocation.<Path>getArgument(0).toFile()));
+            return "/sampleImage/5.0123456789abcdef.jpg";
+        });
+        Sample replaced = new Sample();
+        replaced.setImage("/sampleImage/5.old.jpg");
+        when(sampleMapper.updateImage(5L, "/sampleImage/5.0123456789abcdef.jpg", ImageStatus.READY)).thenReturn(replaced);
+
+        imageProcessingService.runPipeline(5L, staged);
+
+        assertEquals(20, saved.get().getWidth());
+        assertEquals(40, saved.get().getHeight());
+        verify(thumbnailService).generate("5.0123456789abcdef.jpg");
+        verify(fileService).deleteFile("/sampleImage/5.old.jpg");
+        assertEquals(0, uploadDir.toFile().list().length);
+    }
+
+    @Test
+    @DisplayName("处理流程 - 超大图片按最长边缩小")
+    void runPipeline_downscales() throws Exception {
+        ReflectionTestUtils.setField(imageProcessingService, "maxDimension", 100);
+        Path staged = writePng("s.upload", 400, 200);
+        AtomicReference<BufferedImage> saved = new AtomicReference<>();
+        when(fileService.saveFile(any(Path.class), eq("6.png"))).thenAnswer(invocation -> {
+            saved.set(ImageIO.read(invocation.<Path>getArgument(0).toFile()));
+            return "/sampleImage/6.0123456789abcdef.png";
+        });
+
+        imageProcessingService.runPipeline(6L, staged);
+
+        assertEquals(100, saved.get().getWidth());
+        assertEquals(50, saved.get().getHeight());
+        // 处理期间样品已被删除，刚保存的图片也要删除
+        verify(fileService).deleteFile("/sampleImage/6.0123456789abcdef.png");
+    }
+
+    @Test
+    @DisplayName("处理流程 - 非图片内容标记为失败并删除暂存文件")
+    void runPipeline_invalidContent() throws Exception {
+        Path staged = Files.write(uploadDir.resolve("s.upload"), "not an image".getBytes());
+
+        imageProcessingService.runPipeline(7L, staged);
+
+        verify(sampleMapper).updateImageStatus(7L, ImageStatus.FAILED);
+        verify(sampleMapper, never()).updateImage(anyLong(), anyString(), any());
+        verifyNoInteractions(fileService);
+        assertFalse(Files.exists(staged));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private Path writePng(String name, int width, int height) throws Exception {
+        Path file = uploadDir.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", file.toFile());
+        return file;
+    }
+
+    /**
+     * 写入 JPEG；orientation 大于0时在 SOI 之后插入只含 Orientation 标签的 APP1(Exif) 段
+     */
+    private Path writeJpeg(String name, int width, int height, int orientation) throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        byte[] body = jpeg.toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(body, 0, 2);
+        if (orientation > 0) {
+            byte[] tiff = {
+                    'M', 'M', 0, 42, 0, 0, 0, 8,              // 大端 TIFF 头，IFD 偏移8
+                    0, 1,                                     // 1个条目
+                    0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, (byte) orientation, 0, 0,
+                    0, 0, 0, 0                                // 无下一个 IFD
+            };
+            int length = 2 + 6 + tiff.length;
+            out.write(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length});
+            out.write(new byte[]{'E', 'x', 'i', 'f', 0, 0});
+            out.write(tiff);
+        }
+        out.write(body, 2, body.length - 2);
+        return Files.write(uploadDir.resolve(name), out.toByteArray());
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.demo.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NotificationHub 白盒测试
+ * 覆盖发布不被慢连接阻塞、同键通知合并、按用户和主题路由、重连补发、心跳清理、队列满的丢弃（追加 resync）与断开策略、发送失败清理连接
+ */
+@DisplayName("NotificationHub 白盒测试")
+class NotificationHubTest {
+
+    private NotificationHub hub;
+
+    @BeforeEach
+    void setUp() {
+        hub = new NotificationHub();
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.shutdown();
+    }
+
+    // ==================== 发送测试 ====================
+
+    @Test
+    @DisplayName("慢连接 - 不阻塞发布线程，也不影响其他连接")
+    void broadcast_slowSubscriberDoesNotBlock() throws Exception {
+        hub.init();
+        RecordingEmitter slow = new RecordingEmitter(300, null);
+        RecordingEmitter fast = new RecordingEmitter(0, null);
+        hub.register("slow", null, null, slow);
+        hub.register("fast", null, null, fast);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            hub.broadcast("order_sync", "{\"n\":" + i + "}");
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 100, "elapsed " + elapsedMillis + "ms");
+        waitUntil(() -> fast.events.size() == 6);
+        assertTrue(fast.events.get(0).contains("event:connect"));
+        assertTrue(fast.events.get(5).contains("{\"n\":4}"));
+        assertTrue(slow.events.size() < 6);
+    }
+
+    @Test
+    @DisplayName("同一订单的未发送通知 - 只保留最新一条并移到队尾，事件ID按顺序发出")
+    void broadcast_coalescesPendingBySameKey() throws Exception {
+        hub.init();
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(0, gate);
+        hub.register("u1", null, null, emitter);
+        waitUntil(() -> emitter.sendStarted.getCount() == 0);
+
+        hub.broadcast("order_sync", "{\"v\":1}", "1");
+        hub.broadcast("order_sync", "{\"v\":2}", "1");
+        hub.broadcast("order_sync", "{\"other\":true}", "2");
+        hub.broadcast("order_sync", "{\"v\":3}", "1");
+        gate.countDown();
+
+        waitUntil(() -> emitter.events.size() == 3);
+        List<String> orderEvents = emitter.events.stream()
+                .filter(e -> e.contains("order_sync"))
+                .collect(Collectors.toList());
+        assertEquals(2, orderEvents.size());
+        assertTrue(orderEvents.get(0).contains("{\"other\":true}"));
+        assertTrue(orderEvents.get(1).contains("{\"v\":3}"));
+        assertTrue(eventId(orderEvents.get(0)) < eventId(orderEvents.get(1)));
+        assertEquals(2L, hub.getStats().get("coalesced"));
+    }
+
+    @Test
+    @DisplayName("定向推送 - 只发给指定用户的连接")
+    void sendToUser_onlyTargetUser() throws Exception {
+        hub.init();
+        RecordingEmitter alice = new RecordingEmitter(0, null);
+        RecordingEmitter bob = new RecordingEmitter(0, null);
+        hub.register("alice", null, null, alice);
+        hub.register("bob", null, null, bob);
+
+        hub.sendToUser("alice", "reminder", "{}");
+
+        waitUntil(() -> alice.events.size() == 2);
+        Thread.sleep(50);
+        assertEquals(1, bob.events.size());
+    }
+
+    // ==================== 路由测试 ====================
+
+    @Test
+    @DisplayName("按主题推送 - 只发给订阅了该主题或未指定主题的连接，每个连接只收一次")
+    void publish_routesByTopic() throws Exception {
+        hub.init();
+        RecordingEmitter everything = new RecordingEmitter(0, null);
+        RecordingEmitter orderWatcher = new RecordingEmitter(0, null);
+        RecordingEmitter sampleWatcher = new RecordingEmitter(0, null);
+        hub.register("a", null, null, everything);
+        hub.register("b", Arrays.asList("module:order", "order:12"), null, orderWatcher);
+        hub.register("c", Collections.singletonList("module:sample"), null, sampleWatcher);
+
+        hub.publish(Arrays.asList("module:order", "order:12"), "order_sync", "{}", "12");
+
+        waitUntil(() -> everything.events.size() == 2 && orderWatcher.events.size() == 2);
+        Thread.sleep(50);
+        assertEquals(2, orderWatcher.events.size());
+        assertEquals(1, sampleWatcher.events.size());
+        assertEquals(3, hub.getStats().get("topics"));
+    }
+
+    // ==================== 重连补发测试 ====================
+
+    @Test
+    @DisplayName("带 Last-Event-ID 重连 - 补发错过的且属于订阅主题的通知，之后的通知不重复")
+    void register_replaysMissedEvents() throws Exception {
+        hub.init();
+        long base = (long) hub.getStats().get("latestEventId");
+        hub.publish(Arrays.asList("module:order", "order:1"), "order_sync", "{\"v\":1}", "1");
+        hub.publish(Arrays.asList("module:order", "order:2"), "order_sync", "{\"v\":2}", "2");
+        hub.publish(Collections.singletonList("module:sample"), "sample_sync", "{\"v\":3}", "3");
+        hub.publish(Arrays.asList("module:order", "order:4"), "order_sync", "{\"v\":4}", "4");
+
+        RecordingEmitter emitter = new RecordingEmitter(0, null);
+        hub.register("u1", Collections.singletonList("module:order"), base + 1, emitter);
+        hub.publish(Arrays.asList("module:order", "order:5"), "order_sync", "{\"v\":5}", "5");
+
+        waitUntil(() -> emitter.events.size() == 4);
+        Thread.sleep(50);
+        assertEquals(4, emitter.events.size());
+        assertTrue(emitter.events.get(0).contains("event:connect"));
+        assertTrue(emitter.events.get(1).contains("{\"v\":2}"));
+        assertTrue(emitter.events.get(1).contains("id:" + (base + 2)));
+        assertTrue(emitter.events.get(2).contains("{\"v\":4}"));
+        assertTrue(emitter.events.get(3).contains("{\"v\":5}"));
+        assertEquals(2L, hub.getStats().get("replayed"));
+    }
+
+    @Test
+    @DisplayName("错过的通知已被淘汰 - 发送 resync 事件")
+    void register_resyncWhenEventsExpired() throws Exception {
+        ReflectionTestUtils.setField(hub, "replayCapacity", 2);
+        hub.init();
+        long base = (long) hub.getStats().get("latestEventId");
+        for (int i = 0; i < 5; i++) {
+            hub.broadcast("test", "{\"n\":" + i + "}");
+        }
+
+        RecordingEmitter emitter = new RecordingEmitter(0, null);
+        hub.register("u1", null, base + 1, emitter);
+
+        waitUntil(() -> emitter.events.size() == 2);
+        assertTrue(emitter.events.get(1).contains("event:resync"));
+        assertTrue(emitter.events.get(1).contains("id:" + (base + 5)));
+        assertEquals(1L, hub.getStats().get("resyncs"));
+        assertEquals(2, hub.getStats().get("recentEvents"));
+    }
+
+    // ==================== 心跳测试 ====================
+
+    @Test
+    @DisplayName("心跳 - 写失败的连接被清理")
+    void heartbeat_reapsDeadConnection() throws Exception {
+        hub.init();
+        RecordingEmitter emitter = new RecordingEmitter(0, null);
+        hub.register("u1", null, null, emitter);
+        waitUntil(() -> emitter.events.size() == 1);
+
+        emitter.fail = true;
+        hub.heartbeat();
+
+        waitUntil(() -> hub.getConnectionCount() == 0);
+        assertEquals(1L, hub.getStats().get("failedSends"));
+        assertEquals(0, hub.getStats().get("users"));
+    }
+
+    @Test
+    @DisplayName("心跳 - 发送卡住超时的连接被移除")
+    void heartbeat_reapsStalledConnection() throws Exception {
+        ReflectionTestUtils.setField(hub, "stallTimeoutMs", 50L);
+        hub.init();
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(0, gate);
+        hub.register("u1", null, null, emitter);
+        waitUntil(() -> emitter.sendStarted.getCount() == 0);
+
+        Thread.sleep(100);
+        hub.heartbeat();
+
+        assertEquals(0, hub.getConnectionCount());
+        assertEquals(1L, hub.getStats().get("reaped"));
+        gate.countDown();
+        waitUntil(() -> emitter.completed);
+    }
+
+    @Test
+    @DisplayName("心跳 - 卡住的连接占满发送线程后，补充线程让其他连接继续收到通知")
+    void heartbeat_stalledSendersDoNotBlockOthers() throws Exception {
+        ReflectionTestUtils.setField(hub, "stallTimeoutMs", 50L);
+        hub.init();
+        CountDownLatch neverOpens = new CountDownLatch(1);
+        RecordingEmitter stalled1 = new RecordingEmitter(0, neverOpens);
+        RecordingEmitter stalled2 = new RecordingEmitter(0, neverOpens);
+        hub.register("u1", null, null, stalled1);
+        hub.register("u2", null, null, stalled2);
+        waitUntil(() -> stalled1.sendStarted.getCount() == 0 && stalled2.sendStarted.getCount() == 0);
+        RecordingEmitter healthy = new RecordingEmitter(0, null);
+        hub.register("u3", null, null, healthy);
+
+        Thread.sleep(100);
+        assertTrue(healthy.events.isEmpty());
+        hub.heartbeat();
+        hub.broadcast("order_sync", "{\"id\":1}");
+
+        // 心跳时若连接成功消息已发出，还会多收到一条心跳
+        waitUntil(() -> healthy.events.stream().anyMatch(e -> e.contains("order_sync")));
+        // 两个卡住的写操作仍未返回
+        assertTrue(stalled1.events.isEmpty() && stalled2.events.isEmpty());
+        assertEquals(2L, hub.getStats().get("reaped"));
+        assertEquals(4, hub.getStats().get("senderPoolSize"));
+    }
+
+    // ==================== 负载测试 ====================
+
+    @Test
+    @DisplayName("1万个连接 - 定向推送只访问目标用户的连接")
+    void sendToUser_tenThousandSubscribers() throws Exception {
+        hub.init();
+        int count = 10000;
+        List<RecordingEmitter> emitters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RecordingEmitter emitter = new RecordingEmitter(0, null);
+            emitters.add(emitter);
+            hub.register("user:" + i, null, null, emitter);
+        }
+        waitUntil(() -> (long) hub.getStats().get("sent") == count);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            hub.sendToUser("user:" + i, "reminder", "{\"n\":" + i + "}");
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        waitUntil(() -> (long) hub.getStats().get("sent") == 2L * count);
+        assertTrue(elapsedMillis < 1000, "elapsed " + elapsedMillis + "ms");
+        for (int i = 0; i < count; i++) {
+            List<String> events = emitters.get(i).events;
+            assertEquals(2, events.size());
+            assertTrue(events.get(1).contains("{\"n\":" + i + "}"));
+        }
+        assertEquals(count, hub.getStats().get("users"));
+    }
+
+    // ==================== 溢出策略测试 ====================
+
+    @Test
+    @DisplayName("队列满 - 丢弃最旧通知，保留最新的，并在最后追加 resync")
+    void enqueue_dropOldest() throws Exception {
+        configure(3, NotificationHub.OverflowPolicy.DROP_OLDEST, 100);
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(0, gate);
+        hub.register("u1", null, null, emitter);
+        waitUntil(() -> emitter.sendStarted.getCount() == 0);
+
+        for (int i = 0; i < 10; i++) {
+            hub.broadcast("test", "{\"n\":" + i + "}");
+        }
+        gate.countDown();
+
+        waitUntil(() -> emitter.events.size() == 5);
+        assertTrue(emitter.events.get(1).contains("{\"n\":7}"));
+        assertTrue(emitter.events.get(3).contains("{\"n\":9}"));
+        // 被丢弃的通知无法补发，最后发出 resync，ID 与最后一条通知相同，重连时不会跳过之后的通知
+        assertTrue(emitter.events.get(4).contains("event:resync"));
+        assertTrue(emitter.events.get(4).contains("events_dropped"));
+        assertEquals(eventId(emitter.events.get(3)), eventId(emitter.events.get(4)));
+        assertEquals(7L, hub.getStats().get("dropped"));
+        assertEquals(1L, hub.getStats().get("resyncs"));
+        assertEquals(1, hub.getConnectionCount());
+    }
+
+    @Test
+    @DisplayName("慢消费者累计丢弃过多 - 断开连接")
+    void enqueue_disconnectAfterTooManyDrops() throws Exception {
+        configure(3, NotificationHub.OverflowPolicy.DROP_OLDEST, 5);
+        CountDownLatch gate = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(0, gate);
+        hub.register("u1", null, null, emitter);
+        waitUntil(() -> emitter.sendStarted.getCount() == 0);
+
+        for (int i = 0; i < 10; i++) {
+            hub.broadcast("test", "{\"n\":" + i + "}");
+        }
+
+        assertEquals(0, hub.getConnectionCount());
+        assertEquals(1L, hub.getStats().get("disconnected"));
+        gate.countDown();
+        waitUntil(() -> emitter.completed);
+        assertEquals(1, emitter.events.size());
+    }
+
+    @Test
+    @DisplayName("发送失败 - 移除连接")
+    void send_failureRemovesSubscriber() throws Exception {
+        hub.init();
+        RecordingEmitter broken = new RecordingEmitter(0, null);
+        broken.fail = true;
+        hub.register("u1", null, null, broken);
+
+        waitUntil(() -> hub.getConnectionCount() == 0);
+        hub.broadcast("test", "{}");
+
+        assertEquals(1L, hub.getStats().get("failedSends"));
+        assertEquals(0L, hub.getStats().get("sent"));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private void configure(int capacity, NotificationHub.OverflowPolicy policy, int maxDropped) {
+        ReflectionTestUtils.setField(hub, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(hub, "overflowPolicy", policy);
+        ReflectionTestUtils.setField(hub, "maxDropped", maxDropped);
+        hub.init();
+    }
+
+    private static long eventId(String event) {
+        Matcher matcher = Pattern.compile("id:(\\d+)").matcher(event);
+        assertTrue(matcher.find(), "no id in " + event);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met in time");
+    }
+
+    /**
+     * 记录发送内容的 SseEmitter，可模拟慢连接、阻塞和发送失败
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sendStarted = new CountDownLatch(1);
+        private final long delayMillis;
+        private final CountDownLatch gate;
+        private volatile boolean fail;
+        private volatile boolean completed;
+
+        RecordingEmitter(long delayMillis, CountDownLatch gate) {
+            this.delayMillis = delayMillis;
+            this.gate = gate;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sendStarted.countDown();
+            try {
+                if (gate != null) {
+                    gate.await(5, TimeUnit.SECONDS);
+                }
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) {
+                throw new IOException("broken pipe");
+            }
+            events.add(builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .map(String::valueOf)
+                    .collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.mapper.OperationLogMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * OperationLogPartitionManager 测试
+ * 覆盖提前创建月份分区、按整月摘除/删除过期分区、归档模式、并发摘除和未分区旧库的回退
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OperationLogPartitionManager 测试")
+class OperationLogPartitionManagerTest {
+
+    @InjectMocks
+    private OperationLogPartitionManager partitionManager;
+
+    @Mock
+    private OperationLogMapper operationLogMapper;
+
+    // ==================== ensurePartitions 测试 ====================
+
+    @Test
+    @DisplayName("创建分区 - 只补齐缺少的月份，跨年正确")
+    void ensurePartitions_createsMissingMonths() {
+        when(operationLogMapper.isPartitioned()).thenReturn(true);
+        when(operationLogMapper.selectPartitionNames())
+                .thenReturn(Arrays.asList("operation_log_default", "operation_log_p202611"));
+
+        int created = partitionManager.ensurePartitions(LocalDate.of(2026, 11, 15));
+
+        assertEquals(3, created);
+        verify(operationLogMapper).createPartition("operation_log_p202612", "2026-12-01", "2027-01-01");
+        verify(operationLogMapper).createPartition("operation_log_p202701", "2027-01-01", "2027-02-01");
+        verify(operationLogMapper).createPartition("operation_log_p202702", "2027-02-01", "2027-03-01");
+        verify(operationLogMapper, never()).createPartition(eq("operation_log_p202611"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("创建分区 - 未分区的旧表不做处理")
+    void ensurePartitions_notPartitioned() {
+        when(operationLogMapper.isPartitioned()).thenReturn(false);
+
+        assertEquals(0, partitionManager.ensurePartitions(LocalDate.of(2026, 11, 15)));
+        verify(operationLogMapper, never()).createPartition(anyString(), anyString(), anyString());
+    }
+
+    // ==================== dropBefore 测试 ====================
+
+    @Test
+    @DisplayName("清理 - 只删除整月都早于截止日期的分区，不执行DELETE")
+    void dropBefore_dropsWholeMonths() {
+        when(operationLogMapper.isPartitioned()).thenReturn(true);
+        when(operationLogMapper.selectPartitionNames()).thenReturn(Arrays.asList(
+                "operation_log_default", "operation_log_p202608", "operation_log_p202609", "operation_log_p202610"));
+        when(operationLogMapper.estimatePartitionRows("operation_log_p202608")).thenReturn(1000L);
+        when(operationLogMapper.estimatePartitionRows("operation_log_p202609")).thenReturn(200L);
+
+        int removed = partitionManager.dropBefore(LocalDate.of(2026, 10, 1));
+
+        assertEquals(1200, removed);
+        verify(operationLogMapper).detachPartition("operation_log_p202608", false);
+        verify(operationLogMapper).dropTable("operation_log_p202608");
+        verify(operationLogMapper).dropTable("operation_log_p202609");
+        verify(operationLogMapper, never()).detachPartition(eq("operation_log_p202610"), anyBoolean());
+        verify(operationLogMapper, never()).detachPartition(eq("operation_log_default"), anyBoolean());
+        verify(operationLogMapper, never()).deleteByDate(anyString());
+    }
+
+    @Test
+    @DisplayName("清理 - 归档模式只摘除不删除")
+    void dropBefore_archiveDetached() {
+        ReflectionTestUtils.setField(partitionManager, "archiveDetached", true);
+        when(operationLogMapper.isPartitioned()).thenReturn(true);
+        when(operationLogMapper.selectPartitionNames()).thenReturn(Arrays.asList("operation_log_p202608"));
+        when(operationLogMapper.estimatePartitionRows("operation_log_p202608")).thenReturn(10L);
+
+        assertEquals(10, partitionManager.dropBefore(LocalDate.of(2026, 9, 15)));
+        verify(operationLogMapper).detachPartition("operation_log_p202608", false);
+        verify(operationLogMapper, never()).dropTable(anyString());
+    }
+
+    @Test
+    @DisplayName("清理 - 配置后使用 DETACH CONCURRENTLY")
+    void dropBefore_detachConcurrently() {
+        ReflectionTestUtils.setField(partitionManager, "detachConcurrently", true);
+        when(operationLogMapper.isPartitioned()).thenReturn(true);
+        when(operationLogMapper.selectPartitionNames()).thenReturn(Arrays.asList("operation_log_p202608"));
+
+        partitionManager.dropBefore(LocalDate.of(2026, 9, 15));
+
+        verify(operationLogMapper).detachPartition("operation_log_p202608", true);
+        verify(operationLogMapper).dropTable("operation_log_p202608");
+    }
+
+    @Test
+    @DisplayName("清理 - 未分区的旧表回退为按日期删除")
+    void dropBefore_notPartitioned() {
+        when(operationLogMapper.isPartitioned()).thenReturn(false);
+        when(operationLogMapper.deleteByDate("2026-09-15")).thenReturn(50);
+
+        assertEquals(50, partitionManager.dropBefore(LocalDate.of(2026, 9, 15)));
+        verify(operationLogMapper, never()).detachPartition(anyString(), anyBoolean());
+    }
+
+    // ==================== 分区名测试 ====================
+
+    @Test
+    @DisplayName("分区名 - 与月份互相转换，非月份分区返回null")
+    void partitionName_roundTrip() {
+        assertEquals("operation_log_p202701", OperationLogPartitionManager.partitionName(YearMonth.of(2027, 1)));
+        assertEquals(YearMonth.of(2027, 1), OperationLogPartitionManager.monthOf("operation_log_p202701"));
+        assertNull(OperationLogPartitionManager.monthOf("operation_log_default"));
+        assertNull(OperationLogPartitionManager.monthOf("operation_log_pabc"));
+    }
+}
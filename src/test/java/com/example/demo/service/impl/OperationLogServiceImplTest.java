@@ -1,18 +1,31 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dto.CursorPageDTO;
+import com.example.demo.dto.OperationLogSummaryDTO;
 import com.example.demo.entity.OperationLog;
+import com.example.demo.exception.BusinessException;
 import com.example.demo.mapper.OperationLogMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.pagehelper.PageHelper;
+import com.github.pagehelper.PageInfo;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -30,6 +43,23 @@ class OperationLogServiceImplTest {
     @Mock
     private OperationLogMapper operationLogMapper;
 
+    @Mock
+    private OperationLogWriter operationLogWriter;
+
+    @Mock
+    private OperationLogPartitionManager partitionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private SubstringSearchIndex substringSearchIndex;
+
+    @AfterEach
+    void clearPage() {
+        PageHelper.clearPage();
+    }
+
     // ==================== save 测试 ====================
 
     @Test
@@ -38,14 +68,15 @@ class OperationLogServiceImplTest {
         OperationLog log = createLog("订单管理", "CREATE");
 
         assertDoesNotThrow(() -> operationLogService.save(log));
-        verify(operationLogMapper).insert(any(OperationLog.class));
+        verify(operationLogWriter).submit(log);
+        verify(operationLogMapper, never()).insert(any(OperationLog.class));
     }
 
     @Test
     @DisplayName("保存日志 - 异常不抛出（不影响主业务）")
     void save_exception() {
         OperationLog log = createLog("订单管理", "CREATE");
-        doThrow(new RuntimeException("数据库异常")).when(operationLogMapper).insert(any(OperationLog.class));
+        doThrow(new RuntimeException("队列异常")).when(operationLogWriter).submit(any(OperationLog.class));
 
         // 不应抛出异常
         assertDoesNotThrow(() -> operationLogService.save(log));
@@ -66,17 +97,121 @@ class OperationLogServiceImplTest {
         assertEquals(1L, result.getId());
     }
 
+    // ==================== findByCondition 测试 ====================
+
+    @Test
+    @DisplayName("条件查询 - 未指定开始时间时默认带上时间下限")
+    void findByCondition_defaultsStartTime() {
+        when(operationLogMapper.selectByCondition(any(), any(), any(), any(), anyString(), any()))
+                .thenReturn(Collections.emptyList());
+
+        operationLogService.findByCondition("admin", null, null, null, "2026-03-31 12:00:00", 1, 20, false);
+        operationLogService.findByCondition(null, "订单管理", null, null, null, 1, 20, false);
+
+        verify(operationLogMapper).selectByCondition("%admin%", null, null, null, "2026-03-01 12:00:00", "2026-03-31 12:00:00");
+        String defaultStart = LocalDateTime.now().minusDays(30).format(DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        verify(operationLogMapper).selectByCondition(isNull(), isNull(), eq("订单管理"), isNull(), startsWith(defaultStart), isNull());
+    }
+
+    @Test
+    @DisplayName("条件查询 - 内存索引模式按匹配出的操作人等值查询，无匹配时不查库")
+    void findByCondition_memoryIndex() {
+        when(substringSearchIndex.isMemoryMode()).thenReturn(true);
+        when(substringSearchIndex.matchOperatorNames("张")).thenReturn(new String[]{"张三", "张伟"});
+        when(substringSearchIndex.matchOperatorNames("王")).thenReturn(new String[0]);
+        when(operationLogMapper.selectByCondition(any(), any(), any(), any(), anyString(), any()))
+                .thenReturn(Collections.emptyList());
+
+        operationLogService.findByCondition("张", null, null, "2026-01-01", null, 1, 20, false);
+        PageInfo<OperationLogSummaryDTO> none = operationLogService.findByCondition(
+                "王", null, null, "2026-01-01", null, 1, 20, false);
+
+        verify(operationLogMapper).selectByCondition(eq("%张%"), aryEq(new String[]{"张三", "张伟"}),
+                isNull(), isNull(), eq("2026-01-01 00:00:00"), isNull());
+        verify(operationLogMapper, times(1)).selectByCondition(any(), any(), any(), any(), any(), any());
+        assertTrue(none.getList().isEmpty());
+    }
+
+    @Test
+    @DisplayName("条件查询 - 时间格式错误")
+    void findByCondition_invalidTime() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> operationLogService.findByCondition(null, null, null, "2026/01/01", null, 1, 20, false));
+
+        assertTrue(ex.getMessage().contains("开始时间"));
+        verify(operationLogMapper, never()).selectByCondition(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("条件查询 - 估算总数时使用执行计划的估算行数")
+    void findByCondition_estimateTotal() {
+        when(operationLogMapper.selectByCondition(any(), any(), any(), any(), anyString(), any()))
+                .thenReturn(Arrays.asList(createSummary(2L, 2_000_000L), createSummary(1L, 1_000_000L)));
+        when(operationLogMapper.explainCountByCondition(any(), any(), eq("订单管理"), any(), anyString(), any()))
+                .thenReturn("[{\"Plan\": {\"Node Type\": \"Append\", \"Plan Rows\": 123456}}]");
+
+        PageInfo<OperationLogSummaryDTO> page = operationLogService.findByCondition(
+                null, "订单管理", null, "2026-01-01", null, 1, 20, true);
+
+        assertEquals(123456L, page.getTotal());
+        assertEquals(6173, page.getPages());
+        assertTrue(page.isHasNextPage());
+    }
+
+    // ==================== findByCursor 测试 ====================
+
+    @Test
+    @DisplayName("游标分页 - 多查一条判断下一页，游标为最后一条的时间和ID")
+    void findByCursor_buildsNextKey() {
+        when(operationLogMapper.selectCursorPage(any(), any(), any(), any(), anyString(), any(), any(), any(), eq(3)))
+                .thenReturn(Arrays.asList(createSummary(9L, 3_000_001L), createSummary(8L, 3_000_000L),
+                        createSummary(7L, 2_999_999L)));
+
+        CursorPageDTO<OperationLogSummaryDTO> page = operationLogService.findByCursor(
+                null, null, "CREATE", "2026-01-01", null, "3000002_10", 2, false);
+
+        assertEquals(2, page.getList().size());
+        assertTrue(page.isHasMore());
+        assertEquals("3000000_8", page.getNextKey());
+        assertNull(page.getApproximateTotal());
+        verify(operationLogMapper).selectCursorPage(null, null, null, "CREATE", "2026-01-01 00:00:00", null, 3000002L, 10L, 3);
+    }
+
+    @Test
+    @DisplayName("游标分页 - 最后一页没有下一页游标")
+    void findByCursor_lastPage() {
+        when(operationLogMapper.selectCursorPage(any(), any(), any(), any(), anyString(), any(), isNull(), isNull(), eq(21)))
+                .thenReturn(Collections.singletonList(createSummary(1L, 1_000_000L)));
+
+        CursorPageDTO<OperationLogSummaryDTO> page = operationLogService.findByCursor(
+                null, null, null, null, null, null, 20, false);
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextKey());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("游标分页 - 游标格式错误")
+    void findByCursor_invalidCursor() {
+        BusinessException ex = assertThrows(BusinessException.class,
+                () -> operationLogService.findByCursor(null, null, null, null, null, "abc", 20, false));
+
+        assertTrue(ex.getMessage().contains("游标"));
+        verify(operationLogMapper, never()).selectCursorPage(any(), any(), any(), any(), any(), any(), any(), any(), anyInt());
+    }
+
     // ==================== cleanOldLogs 测试 ====================
 
     @Test
-    @DisplayName("清理旧日志")
+    @DisplayName("清理旧日志 - 按分区清理截止日期之前的日志")
     void cleanOldLogs() {
-        when(operationLogMapper.deleteByDate(anyString())).thenReturn(50);
+        when(partitionManager.dropBefore(LocalDate.now().minusDays(30))).thenReturn(50);
 
         int count = operationLogService.cleanOldLogs(30);
 
         assertEquals(50, count);
-        verify(operationLogMapper).deleteByDate(anyString());
+        verify(operationLogMapper, never()).deleteByDate(anyString());
     }
 
     // ==================== cleanLoginLogs 测试 ====================
@@ -93,6 +228,13 @@ class OperationLogServiceImplTest {
 
     // ==================== 辅助方法 ====================
 
+    private OperationLogSummaryDTO createSummary(Long id, Long createMicros) {
+        OperationLogSummaryDTO summary = new OperationLogSummaryDTO();
+        summary.setId(id);
+        summary.setCreateMicros(createMicros);
+        return summary;
+    }
+
     private OperationLog createLog(String module, String action) {
         OperationLog log = new OperationLog();
         log.setModule(module);
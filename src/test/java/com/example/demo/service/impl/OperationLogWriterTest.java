@@ -0,0 +1,224 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.OperationLog;
+import com.example.demo.mapper.OperationLogMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * OperationLogWriter 白盒测试
+ * 覆盖按数量分批、按时间刷新、关闭时写完剩余日志、队列满的溢出策略、坏数据的逐条重试（保留创建时间）
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OperationLogWriter 白盒测试")
+class OperationLogWriterTest {
+
+    @InjectMocks
+    private OperationLogWriter writer;
+
+    @Mock
+    private OperationLogMapper operationLogMapper;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("按批量大小分批写入，关闭时写完剩余日志")
+    void submit_batchedBySize() {
+        recordBatches(null);
+        configure(1000, 100, 60000, OperationLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 250; i++) {
+            writer.submit(createLog(i));
+        }
+        writer.shutdown();
+
+        assertEquals(250, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 100));
+        assertTrue(batchSizes.size() < 250);
+        assertEquals(250L, writer.getStats().get("written"));
+    }
+
+    @Test
+    @DisplayName("未攒满一批时按刷新间隔写入，并补全创建时间")
+    void submit_flushedByInterval() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        doAnswer(inv -> {
+            flushed.countDown();
+            return 1;
+        }).when(operationLogMapper).insertBatch(anyList());
+        configure(1000, 100, 50, OperationLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        OperationLog log = createLog(1);
+        writer.submit(log);
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertNotNull(log.getCreateTime());
+    }
+
+    @Test
+    @DisplayName("队列满 - DROP_OLDEST 丢弃最旧日志并计数")
+    void submit_dropOldest() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = recordBatches(release);
+        configure(2, 1, 60000, OperationLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        // 第一条被后台线程取走后阻塞在写库上，队列再放满2条
+        writer.submit(createLog(0));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            writer.submit(createLog(i));
+        }
+
+        Map<String, Object> stats = writer.getStats();
+        assertEquals(3L, stats.get("dropped"));
+        assertEquals(2, stats.get("queueDepth"));
+
+        release.countDown();
+        writer.shutdown();
+        assertEquals(3, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    @DisplayName("队列满 - SPILL 写入本地文件")
+    void submit_spill(@TempDir Path dir) throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch blocked = recordBatches(release);
+        Path spillFile = dir.resolve("spill.jsonl");
+        ReflectionTestUtils.setField(writer, "spillFile", spillFile.toString());
+        configure(1, 1, 60000, OperationLogWriter.OverflowPolicy.SPILL);
+
+        writer.submit(createLog(0));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        writer.submit(createLog(1));
+        writer.submit(createLog(2));
+        writer.submit(createLog(3));
+
+        List<String> lines = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"description\":\"日志2\""));
+        assertEquals(2L, writer.getStats().get("spilled"));
+
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("批量写入失败 - 逐条重试，只丢弃仍然失败的一条")
+    void flush_retriesRowByRowOnBatchFailure() {
+        doThrow(new RuntimeException("value too long for type character varying(50)"))
+                .when(operationLogMapper).insertBatch(anyList());
+        doAnswer(inv -> {
+            OperationLog log = inv.getArgument(0);
+            if ("日志3".equals(log.getDescription())) {
+                throw new RuntimeException("value too long for type character varying(50)");
+            }
+            return 1;
+        }).when(operationLogMapper).insert(any(OperationLog.class));
+        configure(100, 10, 60000, OperationLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 10; i++) {
+            writer.submit(createLog(i));
+        }
+        writer.shutdown();
+
+        verify(operationLogMapper, times(10)).insert(any(OperationLog.class));
+        Map<String, Object> stats = writer.getStats();
+        assertEquals(9L, stats.get("written"));
+        assertEquals(1L, stats.get("dropped"));
+        assertEquals(1L, stats.get("failedFlushCount"));
+    }
+
+    @Test
+    @DisplayName("批量写入失败 - 逐条重试时保留提交时的创建时间")
+    void flush_retryKeepsCreateTime() {
+        doThrow(new RuntimeException("connection reset")).when(operationLogMapper).insertBatch(anyList());
+        List<Date> insertedTimes = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> {
+            insertedTimes.add(((OperationLog) inv.getArgument(0)).getCreateTime());
+            return 1;
+        }).when(operationLogMapper).insert(any(OperationLog.class));
+        configure(100, 10, 60000, OperationLogWriter.OverflowPolicy.DROP_OLDEST);
+
+        // 月末最后一秒提交，重试时已跨月，仍应写入原来的时间
+        Date monthEnd = Date.from(LocalDateTime.of(2026, 1, 31, 23, 59, 59).atZone(ZoneId.systemDefault()).toInstant());
+        OperationLog log = createLog(1);
+        log.setCreateTime(monthEnd);
+        writer.submit(log);
+        writer.shutdown();
+
+        assertEquals(Collections.singletonList(monthEnd), insertedTimes);
+        assertEquals(1L, writer.getStats().get("written"));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private void configure(int capacity, int batchSize, long flushIntervalMs, OperationLogWriter.OverflowPolicy policy) {
+        ReflectionTestUtils.setField(writer, "capacity", capacity);
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", flushIntervalMs);
+        ReflectionTestUtils.setField(writer, "overflowPolicy", policy);
+        writer.start();
+    }
+
+    /**
+     * 记录每批写入条数；release 不为空时第一批写入会阻塞直到放行
+     *
+     * @return 第一批开始写入时触发的信号
+     */
+    private CountDownLatch recordBatches(CountDownLatch release) {
+        CountDownLatch started = new CountDownLatch(1);
+        doAnswer(inv -> {
+            List<?> batch = inv.getArgument(0);
+            batchSizes.add(batch.size());
+            started.countDown();
+            if (release != null) {
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return batch.size();
+        }).when(operationLogMapper).insertBatch(anyList());
+        return started;
+    }
+
+    private OperationLog createLog(int index) {
+        OperationLog log = new OperationLog();
+        log.setModule("订单管理");
+        log.setAction("CREATE");
+        log.setDescription("日志" + index);
+        log.setStatus(1);
+        return log;
+    }
+}
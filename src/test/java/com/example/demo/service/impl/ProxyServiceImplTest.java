@@ -0,0 +1,324 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.exception.BusinessException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProxyServiceImpl 测试
+ * 使用本地 HttpServer 模拟上游，覆盖响应解析、连接复用、缓存与请求合并、token提前刷新、超时、并发上限（拒绝不缓存）、错误状态码和响应体中的错误状态
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProxyServiceImpl 测试")
+class ProxyServiceImplTest {
+
+    @InjectMocks
+    private ProxyServiceImpl proxyService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private HttpServer server;
+    private String baseUrl;
+
+    // 上游收到的请求（查询串）和对端端口
+    private final List<String> queries = new CopyOnWriteArrayList<>();
+    private final List<Integer> remotePorts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    // ==================== 正常调用测试 ====================
+
+    @Test
+    @DisplayName("天气 - 解析上游JSON，连续调用复用同一连接")
+    void getWeather_parsesAndReusesConnection() throws Exception {
+        stub("/weather", exchange -> respond(exchange, 200, "{\"status\":\"1\",\"lives\":[{\"city\":\"深圳\"}]}"));
+        configure(20, 1000);
+
+        Map<String, Object> first = proxyService.getWeather(null).get(5, TimeUnit.SECONDS);
+        proxyService.getWeather("110000").get(5, TimeUnit.SECONDS);
+
+        assertEquals("1", first.get("status"));
+        assertTrue(queries.get(0).contains("city=440300"));
+        assertTrue(queries.get(1).contains("city=110000"));
+        assertEquals(remotePorts.get(0), remotePorts.get(1));
+    }
+
+    @Test
+    @DisplayName("OCR - 先取token再识别，token缓存复用")
+    void recognize_fetchesTokenOnce() throws Exception {
+        stub("/token", exchange -> respond(exchange, 200, "{\"access_token\":\"tk-1\",\"expires_in\":2592000}"));
+        stub("/ocr", exchange -> respond(exchange, 200, "{\"words_result_num\":1}"));
+        configure(20, 1000);
+
+        Map<String, Object> result = proxyService.recognize("aGVsbG8=").get(5, TimeUnit.SECONDS);
+        proxyService.recognize("aGVsbG8=").get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, result.get("words_result_num"));
+        assertEquals(1, queries.stream().filter(q -> q.contains("grant_type=client_credentials")).count());
+        assertTrue(queries.stream().anyMatch(q -> q.contains("access_token=tk-1")));
+    }
+
+    @Test
+    @DisplayName("同一城市并发请求 - 只请求一次上游，之后命中缓存")
+    void getWeather_cachedAndCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stub("/weather", exchange -> {
+            await(release);
+            respond(exchange, 200, "{\"status\":\"1\"}");
+        });
+        configure(20, 5000);
+
+        CompletableFuture<Map<String, Object>> first = proxyService.getWeather("440300");
+        CompletableFuture<Map<String, Object>> second = proxyService.getWeather(null);
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        Map<String, Object> third = proxyService.getWeather("440300").get(5, TimeUnit.SECONDS);
+
+        assertEquals("1", second.get(5, TimeUnit.SECONDS).get("status"));
+        assertEquals("1", third.get("status"));
+        assertEquals(1, queries.size());
+        assertEquals(1L, stats("weatherCache").get("coalesced"));
+        assertEquals(1L, stats("weatherCache").get("hits"));
+    }
+
+    @Test
+    @DisplayName("OCR token - 并发获取只换取一次token")
+    void getOcrToken_coalescesConcurrentRefresh() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stub("/token", exchange -> {
+            await(release);
+            respond(exchange, 200, "{\"access_token\":\"tk-1\",\"expires_in\":2592000}");
+        });
+        configure(20, 5000);
+
+        List<CompletableFuture<String>> futures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(proxyService.getOcrToken());
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> future : futures) {
+            assertEquals("tk-1", future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("tk-1", proxyService.getOcrToken().get(5, TimeUnit.SECONDS));
+        assertEquals(1, queries.size());
+    }
+
+    @Test
+    @DisplayName("OCR token - 进入刷新窗口后立即返回当前token，在后台换取新token")
+    void getOcrToken_refreshesAheadInBackground() throws Exception {
+        AtomicInteger issued = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        stub("/token", exchange -> {
+            int n = issued.incrementAndGet();
+            if (n > 1) {
+                await(release);
+            }
+            respond(exchange, 200, "{\"access_token\":\"tk-" + n + "\",\"expires_in\":2592000}");
+        });
+        configure(20, 5000);
+        // 刷新窗口覆盖整个有效期：拿到token后的每次访问都会触发后台刷新
+        ReflectionTestUtils.setField(proxyService, "tokenRefreshAheadMs", 2592000_000L);
+
+        assertEquals("tk-1", proxyService.getOcrToken().get(5, TimeUnit.SECONDS));
+        CompletableFuture<String> during = proxyService.getOcrToken();
+        CompletableFuture<String> again = proxyService.getOcrToken();
+
+        assertTrue(during.isDone());
+        assertEquals("tk-1", during.get());
+        assertEquals("tk-1", again.get());
+        assertEquals(true, stats("ocrToken").get("refreshing"));
+        // 两次访问只发起了一次后台刷新
+        assertEquals(2L, stats("baiduOauth").get("requests"));
+
+        release.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (Boolean.TRUE.equals(stats("ocrToken").get("refreshing")) && System.currentTimeMillis() < deadline) {
+            sleep(10);
+        }
+        assertEquals("tk-2", proxyService.getOcrToken().get(5, TimeUnit.SECONDS));
+    }
+
+    // ==================== 异常测试 ====================
+
+    @Test
+    @DisplayName("上游响应慢 - 超时失败，不无限等待")
+    void getWeather_timeout() {
+        stub("/weather", exchange -> {
+            sleep(2000);
+            respond(exchange, 200, "{}");
+        });
+        configure(20, 200);
+
+        long start = System.nanoTime();
+        BusinessException ex = failure(proxyService.getWeather(null));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(504, ex.getCode());
+        assertTrue(elapsedMillis < 1500, "elapsed " + elapsedMillis + "ms");
+        assertEquals(1L, stats("weather").get("timedOut"));
+    }
+
+    @Test
+    @DisplayName("超过上游并发上限 - 立即拒绝，拒绝结果不缓存")
+    void getCalendar_concurrencyLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        stub("/calendar", exchange -> {
+            await(release);
+            respond(exchange, 200, "{\"code\":200}");
+        });
+        configure(1, 5000);
+
+        CompletableFuture<Map<String, Object>> first = proxyService.getCalendar(null);
+        BusinessException ex = failure(proxyService.getCalendar("2026-01-01"));
+        release.countDown();
+
+        assertEquals(503, ex.getCode());
+        assertEquals(200, first.get(5, TimeUnit.SECONDS).get("code"));
+        assertEquals(1L, stats("calendar").get("rejected"));
+        assertEquals(0, stats("calendar").get("inFlight"));
+        // 本地拒绝不代表上游故障，并发空出后同一日期立即重新请求上游
+        assertEquals(200, proxyService.getCalendar("2026-01-01").get(5, TimeUnit.SECONDS).get("code"));
+        assertEquals(0L, stats("calendarCache").get("negativeHits"));
+    }
+
+    @Test
+    @DisplayName("上游返回错误状态码 - 以502失败")
+    void getWeather_upstreamError() {
+        stub("/weather", exchange -> respond(exchange, 500, "oops"));
+        configure(20, 1000);
+
+        BusinessException ex = failure(proxyService.getWeather(null));
+
+        assertEquals(502, ex.getCode());
+        assertEquals(1L, stats("weather").get("failed"));
+    }
+
+    @Test
+    @DisplayName("天气 - HTTP 200 但 status 为0（key错误、超配额）按失败短暂缓存")
+    void getWeather_errorBodyNegativelyCached() {
+        stub("/weather", exchange -> respond(exchange, 200, "{\"status\":\"0\",\"info\":\"INVALID_USER_KEY\"}"));
+        configure(20, 1000);
+
+        BusinessException first = failure(proxyService.getWeather(null));
+        BusinessException second = failure(proxyService.getWeather(null));
+
+        assertEquals(502, first.getCode());
+        assertTrue(first.getMessage().contains("INVALID_USER_KEY"));
+        assertSame(first, second);
+        assertEquals(1, queries.size());
+        assertEquals(1L, stats("weather").get("failed"));
+        assertEquals(1L, stats("weatherCache").get("negativeHits"));
+    }
+
+    @Test
+    @DisplayName("日历 - 响应体 code 不为200时按失败处理")
+    void getCalendar_errorCode() {
+        stub("/calendar", exchange -> respond(exchange, 200, "{\"code\":400,\"msg\":\"通讯秘钥错误\"}"));
+        configure(20, 1000);
+
+        BusinessException ex = failure(proxyService.getCalendar("2026-01-01"));
+
+        assertEquals(502, ex.getCode());
+        assertEquals(1L, stats("calendar").get("failed"));
+        assertEquals(1L, stats("calendarCache").get("loadFailures"));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void stub(String path, Handler handler) {
+        server.createContext(path, exchange -> {
+            queries.add(String.valueOf(exchange.getRequestURI().getRawQuery()));
+            remotePorts.add(exchange.getRemoteAddress().getPort());
+            handler.handle(exchange);
+        });
+    }
+
+    private void configure(int maxConcurrent, long readTimeoutMs) {
+        ReflectionTestUtils.setField(proxyService, "amapWeatherUrl", baseUrl + "/weather");
+        ReflectionTestUtils.setField(proxyService, "calendarApiUrl", baseUrl + "/calendar");
+        ReflectionTestUtils.setField(proxyService, "baiduTokenUrl", baseUrl + "/token");
+        ReflectionTestUtils.setField(proxyService, "baiduRecognizeUrl", baseUrl + "/ocr");
+        ReflectionTestUtils.setField(proxyService, "maxConcurrentPerUpstream", maxConcurrent);
+        ReflectionTestUtils.setField(proxyService, "readTimeoutMs", readTimeoutMs);
+        proxyService.init();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> stats(String upstream) {
+        return (Map<String, Object>) proxyService.getStats().get(upstream);
+    }
+
+    private static BusinessException failure(CompletableFuture<?> future) {
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof BusinessException, String.valueOf(ex.getCause()));
+        return (BusinessException) ex.getCause();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
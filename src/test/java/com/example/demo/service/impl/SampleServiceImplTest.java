@@ -1,12 +1,16 @@
 package com.example.demo.service.impl;
 
+import com.example.demo.dto.CursorPageDTO;
 import com.example.demo.dto.DeleteResultDTO;
+import com.example.demo.dto.SampleQueryDTO;
+import com.example.demo.entity.ImageStatus;
 import com.example.demo.entity.Order;
 import com.example.demo.entity.Sample;
 import com.example.demo.exception.BusinessException;
 import com.example.demo.mapper.OrderMapper;
 import com.example.demo.mapper.SampleMapper;
 import com.example.demo.service.FileService;
+import com.example.demo.service.ImageProcessingService;
 import com.example.demo.service.OperationLogService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
@@ -15,8 +19,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -48,6 +55,9 @@ class SampleServiceImplTest {
     @Mock
     private FileService fileService;
 
+    @Mock
+    private ImageProcessingService imageProcessingService;
+
     @Mock
     private OperationLogService operationLogService;
 
@@ -64,6 +74,64 @@ class SampleServiceImplTest {
         assertEquals(2, result.size());
     }
 
+    // ==================== getByCursor 测试 ====================
+
+    @Test
+    @DisplayName("游标分页 - 多查一条判断下一页，游标为本页最后一条ID")
+    void getByCursor_hasMore() {
+        SampleQueryDTO query = new SampleQueryDTO();
+        when(sampleMapper.selectPage(query, 100L, 3))
+                .thenReturn(Arrays.asList(createSample(99L), createSample(98L), createSample(97L)));
+
+        CursorPageDTO<Sample> page = sampleService.getByCursor(query, 100L, 2, false);
+
+        assertEquals(2, page.getList().size());
+        assertTrue(page.isHasMore());
+        assertEquals(98L, page.getNextCursor());
+        assertNull(page.getApproximateTotal());
+        verify(sampleMapper, never()).countByQuery(any());
+    }
+
+    @Test
+    @DisplayName("游标分页 - 最后一页没有游标，每页数量有上限")
+    void getByCursor_lastPage() {
+        when(sampleMapper.selectPage(any(SampleQueryDTO.class), isNull(), eq(201)))
+                .thenReturn(Collections.singletonList(createSample(1L)));
+
+        CursorPageDTO<Sample> page = sampleService.getByCursor(null, null, 10000, false);
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("游标分页 - 无过滤用统计信息估算总数，有过滤精确统计，结果缓存")
+    void getByCursor_approximateTotal() {
+        SampleQueryDTO filtered = new SampleQueryDTO();
+        filtered.setAlias("红");
+        when(sampleMapper.selectPage(any(SampleQueryDTO.class), any(), anyInt())).thenReturn(Collections.emptyList());
+        when(sampleMapper.estimateCount()).thenReturn(5000L);
+        when(sampleMapper.countByQuery(filtered)).thenReturn(12L);
+
+        assertEquals(5000L, sampleService.getByCursor(new SampleQueryDTO(), null, 20, true).getApproximateTotal());
+        assertEquals(5000L, sampleService.getByCursor(new SampleQueryDTO(), null, 20, true).getApproximateTotal());
+        assertEquals(12L, sampleService.getByCursor(filtered, null, 20, true).getApproximateTotal());
+
+        verify(sampleMapper, times(1)).estimateCount();
+        verify(sampleMapper, times(1)).countByQuery(filtered);
+    }
+
+    @Test
+    @DisplayName("查询条件 - 前缀模式转义通配符")
+    void sampleQuery_prefixPattern() {
+        SampleQueryDTO query = new SampleQueryDTO();
+        query.setAlias(" 50%_off ");
+
+        assertEquals("50\\%\\_off%", query.getAliasPattern());
+        assertNull(query.getModelPattern());
+        assertFalse(query.isEmpty());
+    }
+
     // ==================== getById 测试 ====================
 
     @Test
@@ -295,6 +363,72 @@ class SampleServiceImplTest {
         assertEquals(0, count);
     }
 
+    // ==================== createSample / updateSample 测试 ====================
+
+    @Test
+    @DisplayName("创建样品（带图片） - 暂存后只插入一次，图片交给后台处理，返回重新查询的样品")
+    void createSample_withImage() throws Exception {
+        Sample sample = createSample(null);
+        sample.setImage("/sampleImage/forged.jpg");
+        MockMultipartFile image = new MockMultipartFile("image", "a.jpg", "image/jpeg", new byte[]{1});
+        Path staged = Paths.get("staged.upload");
+        when(objectMapper.readValue("{}", Sample.class)).thenReturn(sample);
+        when(imageProcessingService.stage(image)).thenReturn(staged);
+        doAnswer(invocation -> {
+            Sample s = invocation.getArgument(0);
+            s.setId(7L);
+            return null;
+        }).when(sampleMapper).insert(any(Sample.class));
+        Sample saved = createSample(7L);
+        saved.setCompanyName("测试公司");
+        when(sampleMapper.selectById(7L)).thenReturn(saved);
+
+        Sample result = sampleService.createSample("{}", image);
+
+        assertSame(saved, result);
+        assertNull(sample.getImage());
+        assertEquals(ImageStatus.PROCESSING, sample.getImageStatus());
+        verify(sampleMapper, times(1)).insert(any(Sample.class));
+        verify(imageProcessingService).process(7L, staged);
+        verify(sampleMapper, never()).update(any(Sample.class));
+    }
+
+    @Test
+    @DisplayName("创建样品 - 插入失败时删除暂存文件")
+    void createSample_insertFails_discardsStaged() throws Exception {
+        Sample sample = createSample(null);
+        MockMultipartFile image = new MockMultipartFile("image", "a.png", "image/png", new byte[]{1});
+        Path staged = Paths.get("staged.upload");
+        when(objectMapper.readValue("{}", Sample.class)).thenReturn(sample);
+        when(imageProcessingService.stage(image)).thenReturn(staged);
+        doThrow(new RuntimeException("db down")).when(sampleMapper).insert(any(Sample.class));
+
+        assertThrows(BusinessException.class, () -> sampleService.createSample("{}", image));
+
+        verify(imageProcessingService).discard(staged);
+        verify(imageProcessingService, never()).process(anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("更新样品（带图片） - 保留旧图片直到后台处理完成")
+    void updateSample_withImage_keepsOldImage() throws Exception {
+        Sample existing = createSample(1L);
+        existing.setImage("/sampleImage/1.old.jpg");
+        MockMultipartFile image = new MockMultipartFile("image", "b.jpg", "image/jpeg", new byte[]{1});
+        Path staged = Paths.get("staged.upload");
+        when(objectMapper.readValue("{}", Sample.class)).thenReturn(createSample(null));
+        when(sampleMapper.selectById(1L)).thenReturn(existing);
+        when(imageProcessingService.stage(image)).thenReturn(staged);
+        when(sampleMapper.update(any(Sample.class))).thenReturn(1);
+
+        sampleService.updateSample(1L, "{}", image);
+
+        verify(sampleMapper).update(argThat(s -> "/sampleImage/1.old.jpg".equals(s.getImage())
+                && s.getImageStatus() == ImageStatus.PROCESSING));
+        verify(imageProcessingService).process(1L, staged);
+        verify(fileService, never()).deleteFile(anyString());
+    }
+
     // ==================== 辅助方法 ====================
 
     private Sample createSample(Long id) {
@@ -0,0 +1,111 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.entity.Customer;
+import com.example.demo.mapper.AdminMapper;
+import com.example.demo.mapper.CustomerMapper;
+import com.example.demo.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SubstringSearchIndex 测试
+ * 覆盖内存模式下操作人索引的数据来源、客户索引失效，以及两个索引的重建互不阻塞
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SubstringSearchIndex 测试")
+class SubstringSearchIndexTest {
+
+    @InjectMocks
+    private SubstringSearchIndex substringSearchIndex;
+
+    @Mock
+    private CustomerMapper customerMapper;
+
+    @Mock
+    private AdminMapper adminMapper;
+
+    @Mock
+    private UserMapper userMapper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(substringSearchIndex, "mode", SubstringSearchIndex.Mode.MEMORY);
+    }
+
+    // ==================== 操作人索引测试 ====================
+
+    @Test
+    @DisplayName("操作人索引 - 取自管理员和用户表的姓名，间隔内不重复加载")
+    void matchOperatorNames_fromAccounts() {
+        when(adminMapper.selectNames()).thenReturn(Arrays.asList("张伟", "系统管理员"));
+        when(userMapper.selectNames()).thenReturn(Arrays.asList("张三", "李四"));
+
+        assertEquals(new HashSet<>(Arrays.asList("张伟", "张三")),
+                new HashSet<>(Arrays.asList(substringSearchIndex.matchOperatorNames("张"))));
+        assertArrayEquals(new String[]{"系统管理员"}, substringSearchIndex.matchOperatorNames(" 管理 "));
+        verify(adminMapper, times(1)).selectNames();
+        verify(userMapper, times(1)).selectNames();
+    }
+
+    @Test
+    @DisplayName("操作人索引重建期间 - 客户变更不被阻塞")
+    void invalidateCustomers_notBlockedByOperatorRebuild() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(adminMapper.selectNames()).thenAnswer(inv -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Collections.singletonList("张伟");
+        });
+        when(userMapper.selectNames()).thenReturn(Collections.emptyList());
+        CompletableFuture<String[]> search = CompletableFuture.supplyAsync(
+                () -> substringSearchIndex.matchOperatorNames("张"));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture.runAsync(substringSearchIndex::invalidateCustomers).get(1, TimeUnit.SECONDS);
+
+        release.countDown();
+        assertArrayEquals(new String[]{"张伟"}, search.get(5, TimeUnit.SECONDS));
+    }
+
+    // ==================== 客户索引测试 ====================
+
+    @Test
+    @DisplayName("客户索引 - 客户变更后下次搜索重新加载")
+    void matchCustomerIds_rebuiltAfterInvalidate() {
+        when(customerMapper.selectNames())
+                .thenReturn(Collections.singletonList(createCustomer(1L, "深圳道威服装")))
+                .thenReturn(Arrays.asList(createCustomer(1L, "深圳道威服装"), createCustomer(2L, "广州道威贸易")));
+
+        assertArrayEquals(new Long[]{1L}, substringSearchIndex.matchCustomerIds("道威"));
+        substringSearchIndex.invalidateCustomers();
+
+        assertEquals(2, substringSearchIndex.matchCustomerIds("道威").length);
+        verify(customerMapper, times(2)).selectNames();
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private Customer createCustomer(Long id, String companyName) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setCompanyName(companyName);
+        return customer;
+    }
+}
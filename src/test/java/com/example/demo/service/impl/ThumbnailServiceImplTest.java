@@ -0,0 +1,106 @@
+package com.example.demo.service.impl;
+
+import com.example.demo.dto.ThumbnailDTO;
+import com.example.demo.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ThumbnailServiceImpl 白盒测试
+ * 覆盖尺寸归并、持久化与内存命中、失效、路径校验和解码并发限制
+ */
+@DisplayName("ThumbnailServiceImpl 白盒测试")
+class ThumbnailServiceImplTest {
+
+    @TempDir
+    Path uploadDir;
+
+    private ThumbnailServiceImpl thumbnailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        thumbnailService = new ThumbnailServiceImpl();
+        ReflectionTestUtils.setField(thumbnailService, "uploadDir", uploadDir.toString() + File.separator);
+        thumbnailService.init();
+        ImageIO.write(new BufferedImage(1200, 600, BufferedImage.TYPE_INT_RGB), "png", uploadDir.resolve("1.png").toFile());
+    }
+
+    // ==================== getThumbnail 测试 ====================
+
+    @Test
+    @DisplayName("首次请求 - 一次解码生成全部预设尺寸并持久化")
+    void getThumbnail_generatesAllSizes() throws Exception {
+        ThumbnailDTO thumbnail = thumbnailService.getThumbnail("1.png", 80);
+
+        assertNotNull(thumbnail);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(thumbnail.getData()));
+        assertEquals(80, image.getWidth());
+        assertEquals(40, image.getHeight());
+        assertTrue(uploadDir.resolve("thumb/1.png.80.jpg").toFile().isFile());
+        assertTrue(uploadDir.resolve("thumb/1.png.160.jpg").toFile().isFile());
+        assertTrue(uploadDir.resolve("thumb/1.png.320.jpg").toFile().isFile());
+        assertEquals(1L, thumbnailService.getStats().get("generated"));
+    }
+
+    @Test
+    @DisplayName("重复请求 - 命中内存缓存，任意尺寸归并到预设尺寸")
+    void getThumbnail_cachedAndSnapped() throws Exception {
+        ThumbnailDTO first = thumbnailService.getThumbnail("1.png", 80);
+        ThumbnailDTO second = thumbnailService.getThumbnail("1.png", 80);
+        ThumbnailDTO snapped = thumbnailService.getThumbnail("1.png", 100);
+
+        assertSame(first, second);
+        assertEquals(160, ImageIO.read(new ByteArrayInputStream(snapped.getData())).getWidth());
+        Map<String, Object> stats = thumbnailService.getStats();
+        assertEquals(1L, stats.get("generated"));
+        assertEquals(1L, stats.get("memoryHits"));
+        assertEquals(1L, stats.get("diskHits"));
+    }
+
+    @Test
+    @DisplayName("原图不存在或文件名非法 - 返回null")
+    void getThumbnail_notFound() {
+        assertNull(thumbnailService.getThumbnail("2.png", 80));
+        assertNull(thumbnailService.getThumbnail("../1.png", 80));
+    }
+
+    @Test
+    @DisplayName("解码许可耗尽 - 抛出503业务异常")
+    void getThumbnail_decodeBusy() {
+        Semaphore permits = (Semaphore) ReflectionTestUtils.getField(thumbnailService, "decodePermits");
+        permits.drainPermits();
+        ReflectionTestUtils.setField(thumbnailService, "decodeTimeoutMs", 10L);
+
+        BusinessException e = assertThrows(BusinessException.class,
+                () -> thumbnailService.getThumbnail("1.png", 80));
+
+        assertEquals(503, e.getCode());
+    }
+
+    // ==================== invalidate 测试 ====================
+
+    @Test
+    @DisplayName("失效 - 删除磁盘缩略图并清空内存缓存")
+    void invalidate_removesThumbnails() {
+        thumbnailService.getThumbnail("1.png", 80);
+
+        thumbnailService.invalidate("1.png");
+
+        assertFalse(uploadDir.resolve("thumb/1.png.80.jpg").toFile().exists());
+        assertEquals(0, thumbnailService.getStats().get("entries"));
+        assertEquals(0L, thumbnailService.getStats().get("bytes"));
+    }
+}
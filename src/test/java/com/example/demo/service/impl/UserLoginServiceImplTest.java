@@ -1,6 +1,7 @@
 package com.example.demo.service.impl;
 
 import com.example.demo.common.ApiResponse;
+import com.example.demo.config.PrincipalCache;
 import com.example.demo.entity.User;
 import com.example.demo.mapper.UserMapper;
 import com.example.demo.service.OperationLogService;
@@ -39,6 +40,9 @@ class UserLoginServiceImplTest {
     @Mock
     private OperationLogService operationLogService;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     // ==================== login 方法测试 ====================
 
     @Test
@@ -91,6 +95,8 @@ class UserLoginServiceImplTest {
 
         assertTrue(response.isSuccess());
         verify(userMapper).updateTokenVersion(1L, 4);
+        // 版本号变化后应清除登录主体缓存
+        verify(principalCache).invalidate("user", 1L);
     }
 
     // ==================== findAll 测试 ====================
@@ -160,6 +166,7 @@ class UserLoginServiceImplTest {
 
         assertTrue(response.isSuccess());
         assertEquals("用户更新成功", response.getMessage());
+        verify(principalCache).invalidate("user", 1L);
     }
 
     @Test
@@ -172,6 +179,7 @@ class UserLoginServiceImplTest {
 
         assertFalse(response.isSuccess());
         assertEquals("用户更新失败", response.getMessage());
+        verify(principalCache, never()).invalidate(anyString(), anyLong());
     }
 
     @Test
@@ -197,6 +205,7 @@ class UserLoginServiceImplTest {
 
         assertTrue(response.isSuccess());
         assertEquals("用户删除成功", response.getMessage());
+        verify(principalCache).invalidate("user", 1L);
     }
 
     @Test
@@ -0,0 +1,141 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncTtlCache 测试
+ * 使用可控时钟，覆盖新鲜期命中、并发加载合并、过期后返回旧值并后台刷新、失败缓存（可按异常排除）和容量淘汰
+ */
+@DisplayName("AsyncTtlCache 测试")
+class AsyncTtlCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final AtomicInteger loadCount = new AtomicInteger();
+
+    private final AsyncTtlCache<String, String> cache = new AsyncTtlCache<>(1000, 5000, 500, 3, now::get);
+
+    @Test
+    @DisplayName("新鲜期内 - 直接返回缓存值，不再加载")
+    void get_freshHit() throws Exception {
+        assertEquals("v1", cache.get("k", k -> load("v1")).get());
+        now.addAndGet(999);
+
+        assertEquals("v1", cache.get("k", k -> load("v2")).get());
+        assertEquals(1, loadCount.get());
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    @DisplayName("并发请求同一个键 - 只加载一次，共享结果")
+    void get_coalescesConcurrentLoads() throws Exception {
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+
+        CompletableFuture<String> first = cache.get("k", k -> {
+            loadCount.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<String> second = cache.get("k", k -> load("other"));
+        upstream.complete("v1");
+
+        assertSame(first, second);
+        assertEquals("v1", second.get());
+        assertEquals(1, loadCount.get());
+        assertEquals(1L, cache.getStats().get("coalesced"));
+    }
+
+    @Test
+    @DisplayName("过期但仍可用 - 立即返回旧值并只触发一次后台刷新")
+    void get_staleWhileRevalidate() throws Exception {
+        cache.get("k", k -> load("v1")).get();
+        now.addAndGet(2000);
+        CompletableFuture<String> refresh = new CompletableFuture<>();
+
+        assertEquals("v1", cache.get("k", k -> {
+            loadCount.incrementAndGet();
+            return refresh;
+        }).get());
+        assertEquals("v1", cache.get("k", k -> load("unused")).get());
+        refresh.complete("v2");
+
+        assertEquals("v2", cache.get("k", k -> load("unused")).get());
+        assertEquals(2, loadCount.get());
+        assertEquals(2L, cache.getStats().get("staleHits"));
+    }
+
+    @Test
+    @DisplayName("后台刷新失败 - 继续返回旧值")
+    void get_refreshFailureKeepsStale() throws Exception {
+        cache.get("k", k -> load("v1")).get();
+        now.addAndGet(2000);
+
+        assertEquals("v1", cache.get("k", k -> CompletableFuture.failedFuture(new IllegalStateException("down"))).get());
+        assertEquals("v1", cache.get("k", k -> CompletableFuture.failedFuture(new IllegalStateException("down"))).get());
+        assertEquals(2L, cache.getStats().get("loadFailures"));
+    }
+
+    @Test
+    @DisplayName("加载失败且无旧值 - 短时间内直接返回失败，过后重新加载")
+    void get_negativeCaching() throws Exception {
+        ExecutionException first = assertThrows(ExecutionException.class,
+                () -> cache.get("k", k -> fail()).get());
+        ExecutionException second = assertThrows(ExecutionException.class,
+                () -> cache.get("k", k -> fail()).get());
+
+        assertTrue(first.getCause() instanceof IllegalStateException);
+        assertSame(first.getCause(), second.getCause());
+        assertEquals(1, loadCount.get());
+        assertEquals(1L, cache.getStats().get("negativeHits"));
+
+        now.addAndGet(501);
+        assertEquals("v1", cache.get("k", k -> load("v1")).get());
+        assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    @DisplayName("不缓存的失败 - 下次请求重新加载")
+    void get_uncacheableErrorNotCached() throws Exception {
+        AsyncTtlCache<String, String> rejecting = new AsyncTtlCache<>(1000, 5000, 500, 3,
+                error -> !(error instanceof IllegalStateException), now::get);
+
+        assertThrows(ExecutionException.class, () -> rejecting.get("k", k -> fail()).get());
+
+        assertEquals("v1", rejecting.get("k", k -> load("v1")).get());
+        assertEquals(2, loadCount.get());
+        assertEquals(0L, rejecting.getStats().get("negativeHits"));
+    }
+
+    @Test
+    @DisplayName("超过容量 - 淘汰最久未使用的键")
+    void get_evictsLeastRecentlyUsed() throws Exception {
+        cache.get("a", k -> load("a")).get();
+        cache.get("b", k -> load("b")).get();
+        cache.get("c", k -> load("c")).get();
+        cache.get("a", k -> load("unused")).get();
+        cache.get("d", k -> load("d")).get();
+
+        assertEquals("b2", cache.get("b", k -> load("b2")).get());
+        assertEquals("a", cache.get("a", k -> load("a3")).get());
+        assertEquals(2L, cache.getStats().get("evictions"));
+        assertEquals(3, cache.getStats().get("size"));
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private CompletableFuture<String> load(String value) {
+        loadCount.incrementAndGet();
+        return CompletableFuture.completedFuture(value);
+    }
+
+    private CompletableFuture<String> fail() {
+        loadCount.incrementAndGet();
+        return CompletableFuture.failedFuture(new IllegalStateException("upstream down"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JsonTruncator 白盒测试
+ * 覆盖未超长、超长截断、超大对象提前中止序列化
+ */
+@DisplayName("JsonTruncator 白盒测试")
+class JsonTruncatorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("未超长 - 与完整序列化结果一致")
+    void toJson_withinLimit() throws Exception {
+        Map<String, Object> value = Collections.singletonMap("name", "张三");
+
+        assertEquals(objectMapper.writeValueAsString(value), JsonTruncator.toJson(objectMapper, value, 2000));
+    }
+
+    @Test
+    @DisplayName("超长 - 截断到上限并以省略号结尾")
+    void toJson_truncated() throws Exception {
+        StringBuilder longText = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            longText.append('a');
+        }
+        String full = objectMapper.writeValueAsString(Collections.singletonMap("text", longText.toString()));
+
+        String result = JsonTruncator.toJson(objectMapper, Collections.singletonMap("text", longText.toString()), 2000);
+
+        assertEquals(full.substring(0, 2000) + "...", result);
+    }
+
+    @Test
+    @DisplayName("超大对象 - 达到上限后中止序列化")
+    void toJson_stopsEarly() throws Exception {
+        AtomicInteger produced = new AtomicInteger();
+        Iterable<Integer> huge = () -> new Iterator<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return produced.get() < 1_000_000;
+            }
+
+            @Override
+            public Integer next() {
+                return produced.incrementAndGet();
+            }
+        };
+
+        String result = JsonTruncator.toJson(objectMapper, huge, 100);
+
+        assertEquals(103, result.length());
+        assertTrue(result.endsWith("..."));
+        // 只序列化到输出缓冲区刷新点附近即停止
+        assertTrue(produced.get() < 100_000);
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.util.Base64;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -85,6 +87,60 @@ class JwtUtilTest {
         assertEquals("Token已过期", ex.getMessage());
     }
 
+    // ==================== parsePrincipal 测试 ====================
+
+    @Test
+    @DisplayName("解析主体 - 一次得到全部信息")
+    void parsePrincipal_normal() {
+        String token = jwtUtil.generateToken(7L, "testuser", "user", 3);
+        JwtPrincipal principal = jwtUtil.parsePrincipal(token);
+
+        assertEquals(7L, principal.getUserId());
+        assertEquals("testuser", principal.getUsername());
+        assertEquals("user", principal.getRole());
+        assertEquals(3, principal.getTokenVersion());
+        assertFalse(principal.isExpired());
+    }
+
+    @Test
+    @DisplayName("解析主体 - 重复解析命中缓存（返回同一对象）")
+    void parsePrincipal_cached() {
+        String token = jwtUtil.generateToken(1L, "admin", "admin", 1);
+
+        JwtPrincipal first = jwtUtil.parsePrincipal(token);
+        JwtPrincipal second = jwtUtil.parsePrincipal(token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    @DisplayName("解析主体 - 签名相同但内容被篡改时拒绝")
+    void parsePrincipal_tamperedPayloadRejected() {
+        String token = jwtUtil.generateToken(1L, "user1", "user", 1);
+        jwtUtil.parsePrincipal(token);
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"userId\":2,\"role\":\"admin\",\"sub\":\"x\"}".getBytes());
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> jwtUtil.parsePrincipal(forged));
+        assertEquals("Token无效", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("解析主体 - 过期Token抛出异常")
+    void parsePrincipal_expired() {
+        JwtUtil expiredJwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(expiredJwtUtil, "secret", "daowei_jwt_secret_key_2024_this_is_a_very_long_secret_key");
+        ReflectionTestUtils.setField(expiredJwtUtil, "expiration", -1L);
+        expiredJwtUtil.init();
+
+        String token = expiredJwtUtil.generateToken(1L, "admin", "admin", 1);
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> jwtUtil.parsePrincipal(token));
+        assertEquals("Token已过期", ex.getMessage());
+    }
+
     // ==================== validateToken 测试 ====================
 
     @Test
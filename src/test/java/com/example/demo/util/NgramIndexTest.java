@@ -0,0 +1,80 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NgramIndex 测试
+ * 覆盖中英文子串匹配、短查询退化扫描、替换和移除、返回数量上限
+ */
+@DisplayName("NgramIndex 测试")
+class NgramIndexTest {
+
+    private final NgramIndex<Long> index = new NgramIndex<>(2);
+
+    @Test
+    @DisplayName("子串匹配 - 中文和英文都按包含关系返回")
+    void search_substring() {
+        index.put(1L, "深圳市道威服装有限公司");
+        index.put(2L, "广州道威贸易公司");
+        index.put(3L, "Acme Textile Ltd");
+
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(index.search("道威", 10)));
+        assertEquals(Arrays.asList(1L), index.search("服装有限", 10));
+        assertEquals(Arrays.asList(3L), index.search("Textile", 10));
+        assertTrue(index.search("textile", 10).isEmpty());
+        assertTrue(index.search("不存在", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("片段都存在但不连续 - 经过确认后不匹配")
+    void search_verifiesCandidates() {
+        index.put(1L, "道威-威服");
+
+        assertTrue(index.search("道威服", 10).isEmpty());
+        assertEquals(Arrays.asList(1L), index.search("威服", 10));
+    }
+
+    @Test
+    @DisplayName("查询串短于片段长度 - 逐个比较")
+    void search_shortQuery() {
+        index.put(1L, "张三");
+        index.put(2L, "李四");
+
+        assertEquals(Arrays.asList(2L), index.search("四", 10));
+        assertTrue(index.search("", 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("替换和移除 - 旧文本的片段不再命中")
+    void put_replaceAndRemove() {
+        index.put(1L, "旧公司名称");
+        index.put(1L, "新公司名称");
+
+        assertTrue(index.search("旧公司", 10).isEmpty());
+        assertEquals(Arrays.asList(1L), index.search("新公司", 10));
+
+        index.remove(1L);
+        assertTrue(index.search("公司", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("返回数量上限")
+    void search_limit() {
+        for (long i = 0; i < 50; i++) {
+            index.put(i, "客户" + i);
+        }
+
+        List<Long> result = index.search("客户", 5);
+
+        assertEquals(5, result.size());
+        assertEquals(50, index.size());
+    }
+}